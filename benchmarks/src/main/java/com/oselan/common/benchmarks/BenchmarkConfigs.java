@@ -0,0 +1,51 @@
+package com.oselan.common.benchmarks;
+
+/***
+ * Generates the xml configurations the benchmarks load
+ * @author Ahmad Hamid
+ */
+public final class BenchmarkConfigs
+{
+   /***
+    * Number of annotated fields of {@link SettingsConfig}
+    */
+   public static final int SETTINGS_FIELDS = 20;
+
+   private BenchmarkConfigs()
+   {
+   }
+
+   /***
+    * A configuration holding a Settings section and an Items list of size items
+    * @param items
+    * @return
+    */
+   public static String createXml(int items)
+   {
+      StringBuilder xml = new StringBuilder(256 + items * 128);
+      xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Config>\n");
+      xml.append("  <Settings>\n");
+      for(int i = 0; i < 4; i++)
+      {
+         xml.append("    <Name").append(i).append(">settings name ").append(i).append("</Name").append(i).append(">\n");
+         xml.append("    <Count").append(i).append('>').append(i * 10).append("</Count").append(i).append(">\n");
+         xml.append("    <Timeout").append(i).append('>').append(3000000000L + i).append("</Timeout").append(i).append(">\n");
+         xml.append("    <Ratio").append(i).append('>').append(0.5 + i).append("</Ratio").append(i).append(">\n");
+         xml.append("    <Enabled").append(i).append('>').append(i % 2 == 0).append("</Enabled").append(i).append(">\n");
+      }
+      xml.append("  </Settings>\n  <Items>\n");
+      for(int i = 0; i < items; i++)
+      {
+         xml.append("    <Item id=\"item").append(i).append("\"><Name>item name ").append(i).append("</Name><Value>").append(i)
+            .append("</Value><Enabled>").append(i % 2 == 0).append("</Enabled><Level>").append(Level.values()[i % Level.values().length])
+            .append("</Level></Item>\n");
+      }
+      xml.append("  </Items>\n</Config>\n");
+      return xml.toString();
+   }
+
+   public enum Level
+   {
+      LOW, MEDIUM, HIGH
+   }
+}
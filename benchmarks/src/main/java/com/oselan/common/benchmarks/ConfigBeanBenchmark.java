@@ -0,0 +1,62 @@
+package com.oselan.common.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.oselan.common.config.ConfigProvider;
+
+/***
+ * Re-reading loaded beans: a bean with {@link BenchmarkConfigs#SETTINGS_FIELDS} annotated fields
+ * and a ConfigBeanList of items children
+ * @author Ahmad Hamid
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigBeanBenchmark
+{
+   /***
+    * Number of list items in the configuration
+    */
+   @Param({ "100", "1000", "10000" })
+   public int items;
+
+   private SettingsConfig settings;
+   private ItemListConfig itemList;
+
+   @Setup
+   public void setup()
+   {
+      settings = new SettingsConfig();
+      itemList = new ItemListConfig();
+      new ConfigProvider().withConfigBean(settings).withConfigBean(itemList).loadConfiguration(BenchmarkConfigs.createXml(items));
+   }
+
+   @Benchmark
+   public SettingsConfig readSettings()
+   {
+      settings.readConfiguration();
+      return settings;
+   }
+
+   @Benchmark
+   public ItemListConfig readItemList()
+   {
+      itemList.readConfiguration();
+      return itemList;
+   }
+}
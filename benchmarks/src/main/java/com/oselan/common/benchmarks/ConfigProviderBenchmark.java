@@ -0,0 +1,83 @@
+package com.oselan.common.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.oselan.common.config.ConfigProvider;
+
+/***
+ * Loading a configuration from a file, an xml string and a stream, including binding the settings and items beans
+ * @author Ahmad Hamid
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigProviderBenchmark
+{
+   /***
+    * Number of list items in the configuration
+    */
+   @Param({ "10", "1000", "10000" })
+   public int items;
+
+   private String xml;
+   private byte[] xmlBytes;
+   private File file;
+
+   @Setup
+   public void setup() throws IOException
+   {
+      xml = BenchmarkConfigs.createXml(items);
+      xmlBytes = xml.getBytes("UTF-8");
+      file = File.createTempFile("benchmark", ".xml");
+      Files.write(file.toPath(), xmlBytes);
+   }
+
+   @TearDown
+   public void tearDown()
+   {
+      file.delete();
+   }
+
+   @Benchmark
+   public ConfigProvider loadFile()
+   {
+      return load().loadConfiguration(file.getPath());
+   }
+
+   @Benchmark
+   public ConfigProvider loadString()
+   {
+      return load().loadConfiguration(xml);
+   }
+
+   @Benchmark
+   public ConfigProvider loadStream()
+   {
+      return load().loadConfiguration(new ByteArrayInputStream(xmlBytes));
+   }
+
+   private static ConfigProvider load()
+   {
+      return new ConfigProvider().withConfigBean(new SettingsConfig()).withConfigBean(new ItemListConfig());
+   }
+}
@@ -0,0 +1,65 @@
+package com.oselan.common.benchmarks;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.oselan.common.util.DateUtil;
+
+/***
+ * Parsing dates and checking date ranges on a batch of dates
+ * @author Ahmad Hamid
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateUtilBenchmark
+{
+   /***
+    * Number of dates per operation
+    */
+   @Param({ "1", "100" })
+   public int dates;
+
+   private String[] values;
+   private Date defaultDate;
+
+   @Setup
+   public void setup() throws ParseException
+   {
+      values = new String[dates];
+      for(int i = 0; i < dates; i++)
+         values[i] = String.format("%02d/%02d/%d", i % 12 + 1, i % 28 + 1, 2000 + i % 20);
+      defaultDate = DateUtil.parseDate("12/31/9999", DateUtil.SIMPLE_DATE_FORMAT);
+   }
+
+   @Benchmark
+   public void parseDate(Blackhole blackhole) throws ParseException
+   {
+      for(String value : values)
+         blackhole.consume(DateUtil.parseDate(value, DateUtil.SIMPLE_DATE_FORMAT));
+   }
+
+   @Benchmark
+   public void isWithinDateRange(Blackhole blackhole) throws ParseException
+   {
+      for(String value : values)
+         blackhole.consume(DateUtil.isWithinDateRange(value, "12/31/2019", "01/01/2005", defaultDate));
+   }
+}
@@ -0,0 +1,50 @@
+package com.oselan.common.benchmarks;
+
+import com.oselan.common.benchmarks.BenchmarkConfigs.Level;
+import com.oselan.common.config.ConfigBean;
+import com.oselan.common.config.ConfigBeanMapping;
+import com.oselan.common.config.ConfigFieldMapping;
+
+/***
+ * An element of {@link ItemListConfig}
+ * @author Ahmad Hamid
+ */
+@ConfigBeanMapping("Item")
+public class ItemConfig extends ConfigBean
+{
+   @ConfigFieldMapping("[@id]")
+   private String id;
+   @ConfigFieldMapping("Name")
+   private String name;
+   @ConfigFieldMapping("Value")
+   private int value;
+   @ConfigFieldMapping("Enabled")
+   private boolean enabled;
+   @ConfigFieldMapping("Level")
+   private Level level;
+
+   public String getId()
+   {
+      return id;
+   }
+
+   public String getName()
+   {
+      return name;
+   }
+
+   public int getValue()
+   {
+      return value;
+   }
+
+   public boolean isEnabled()
+   {
+      return enabled;
+   }
+
+   public Level getLevel()
+   {
+      return level;
+   }
+}
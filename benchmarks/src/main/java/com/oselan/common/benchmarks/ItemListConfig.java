@@ -0,0 +1,18 @@
+package com.oselan.common.benchmarks;
+
+import com.oselan.common.config.ConfigBeanList;
+import com.oselan.common.config.ConfigBeanMapping;
+
+/***
+ * The Items list of the benchmark configuration
+ * @author Ahmad Hamid
+ */
+@ConfigBeanMapping("Items")
+public class ItemListConfig extends ConfigBeanList<ItemConfig>
+{
+   @Override
+   protected Class<ItemConfig> getElementClass()
+   {
+      return ItemConfig.class;
+   }
+}
@@ -0,0 +1,73 @@
+package com.oselan.common.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.oselan.common.util.ReflectionUtil;
+
+/***
+ * Filling a bean from a request parameter map and creating bean instances
+ * @author Ahmad Hamid
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReflectionUtilBenchmark
+{
+   /***
+    * Number of entries of the parameter map, up to the number of fields of {@link RequestBean}
+    */
+   @Param({ "2", "8" })
+   public int entries;
+
+   private Map<String, String[]> parameters;
+
+   @Setup
+   public void setup()
+   {
+      Map<String, String[]> all = new HashMap<String, String[]>();
+      all.put("name", new String[] { "request" });
+      all.put("count", new String[] { "42" });
+      all.put("ratio", new String[] { "0.75" });
+      all.put("enabled", new String[] { "true" });
+      all.put("code", new String[] { "X" });
+      all.put("created", new String[] { "12/12/2017" });
+      all.put("level", new String[] { "HIGH" });
+      all.put("description", new String[] { "benchmark request" });
+      parameters = new HashMap<String, String[]>();
+      for(String key : all.keySet())
+      {
+         if(parameters.size() == entries)
+            break;
+         parameters.put(key, all.get(key));
+      }
+   }
+
+   @Benchmark
+   public RequestBean parseMapIntoBean() throws Exception
+   {
+      return ReflectionUtil.parseMapIntoBean(RequestBean.class, parameters);
+   }
+
+   @Benchmark
+   public ItemConfig createInstance() throws Exception
+   {
+      return ReflectionUtil.createInstance(ItemConfig.class);
+   }
+}
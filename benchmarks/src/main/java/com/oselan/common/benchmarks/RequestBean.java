@@ -0,0 +1,61 @@
+package com.oselan.common.benchmarks;
+
+import java.util.Date;
+
+import com.oselan.common.benchmarks.BenchmarkConfigs.Level;
+
+/***
+ * A plain bean filled from request parameters by {@link ReflectionUtilBenchmark}
+ * @author Ahmad Hamid
+ */
+public class RequestBean
+{
+   private String name;
+   private int count;
+   private double ratio;
+   private boolean enabled;
+   private char code;
+   private Date created;
+   private Level level;
+   private String description;
+
+   public String getName()
+   {
+      return name;
+   }
+
+   public int getCount()
+   {
+      return count;
+   }
+
+   public double getRatio()
+   {
+      return ratio;
+   }
+
+   public boolean isEnabled()
+   {
+      return enabled;
+   }
+
+   public char getCode()
+   {
+      return code;
+   }
+
+   public Date getCreated()
+   {
+      return created;
+   }
+
+   public Level getLevel()
+   {
+      return level;
+   }
+
+   public String getDescription()
+   {
+      return description;
+   }
+}
@@ -0,0 +1,79 @@
+package com.oselan.common.benchmarks;
+
+import com.oselan.common.config.ConfigBean;
+import com.oselan.common.config.ConfigBeanMapping;
+import com.oselan.common.config.ConfigFieldMapping;
+
+/***
+ * A bean with many annotated fields of the common types
+ * @author Ahmad Hamid
+ */
+@ConfigBeanMapping("Settings")
+public class SettingsConfig extends ConfigBean
+{
+   @ConfigFieldMapping("Name0")
+   private String name0;
+   @ConfigFieldMapping("Name1")
+   private String name1;
+   @ConfigFieldMapping("Name2")
+   private String name2;
+   @ConfigFieldMapping("Name3")
+   private String name3;
+   @ConfigFieldMapping("Count0")
+   private int count0;
+   @ConfigFieldMapping("Count1")
+   private int count1;
+   @ConfigFieldMapping("Count2")
+   private int count2;
+   @ConfigFieldMapping("Count3")
+   private int count3;
+   @ConfigFieldMapping("Timeout0")
+   private long timeout0;
+   @ConfigFieldMapping("Timeout1")
+   private long timeout1;
+   @ConfigFieldMapping("Timeout2")
+   private long timeout2;
+   @ConfigFieldMapping("Timeout3")
+   private long timeout3;
+   @ConfigFieldMapping("Ratio0")
+   private double ratio0;
+   @ConfigFieldMapping("Ratio1")
+   private double ratio1;
+   @ConfigFieldMapping("Ratio2")
+   private double ratio2;
+   @ConfigFieldMapping("Ratio3")
+   private double ratio3;
+   @ConfigFieldMapping("Enabled0")
+   private boolean enabled0;
+   @ConfigFieldMapping("Enabled1")
+   private boolean enabled1;
+   @ConfigFieldMapping("Enabled2")
+   private boolean enabled2;
+   @ConfigFieldMapping("Enabled3")
+   private boolean enabled3;
+
+   public String getName0()
+   {
+      return name0;
+   }
+
+   public int getCount3()
+   {
+      return count3;
+   }
+
+   public long getTimeout3()
+   {
+      return timeout3;
+   }
+
+   public double getRatio3()
+   {
+      return ratio3;
+   }
+
+   public boolean isEnabled2()
+   {
+      return enabled2;
+   }
+}
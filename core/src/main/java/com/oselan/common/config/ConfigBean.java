@@ -0,0 +1,277 @@
+package com.oselan.common.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.configuration.HierarchicalConfiguration;
+import org.apache.commons.configuration.SubnodeConfiguration;
+ 
+ 
+/***
+ * An abstract class provides common implementation of the IConfig interface
+ * A config bean should be extended for every section in the configuration
+ * Supports single configuration or multiple configuration sections .
+ * e.g. 
+ * <MailConfig >
+ * <subConfig details>
+ * </MailConfig>
+ * @author Ahmad hamid 
+ */  
+public abstract class ConfigBean implements IConfig 
+{
+   //internal configuration section reference 
+   private transient HierarchicalConfiguration config;
+   /***
+    * Holds references for  Configbeans injected after initializations of this bean
+    */
+   private List<IConfig> configBeansList= new ArrayList<IConfig>();
+   /***
+    * Values last passed to memoized parser methods by field name, see {@link ConfigFieldMapping#memoizeParser()}
+    */
+   private transient Map<String, String> parsedValues;
+   /***
+    * Subconfiguration beans loaded from the configuration of this bean, fields and injected beans
+    */
+   private transient Set<IConfig> subconfigBeans;
+   
+   /**
+    * Sets the configuration of this configbean and initiates read Configuration
+    * @param config
+    * @return 
+    */ 
+   @Override
+   public void loadConfiguration(HierarchicalConfiguration config)  
+   { 
+      this.config = config;
+      if( this.config== null)
+         throw new ConfigException("Configuration not found."); 
+      subconfigBeans = null;
+      //read this config bean attributes
+      readConfiguration(); 
+   } 
+   
+   /***
+    * Sets the configuration of this bean and its subconfiguration beans without reading it, 
+    * for a bean whose configuration did not change but was reloaded into a new tree
+    * @param config
+    */
+   void attachConfiguration(HierarchicalConfiguration config)
+   {
+      this.config = config;
+      if(subconfigBeans == null)
+         return;
+      for(IConfig subConfigBean : subconfigBeans)
+      {
+         HierarchicalConfiguration subConfig = config.configurationAt(subConfigBean.getPath());
+         if(subConfigBean instanceof ConfigBean)
+            ((ConfigBean) subConfigBean).attachConfiguration(subConfig);
+         else if(subConfigBean instanceof LazyConfig)
+            ((LazyConfig<?>) subConfigBean).attachConfiguration(subConfig);
+         else
+            subConfigBean.loadConfiguration(subConfig);
+      }
+   }
+
+   /***
+   * The config hierarchical of this configBean  
+   * @return
+   */
+   public HierarchicalConfiguration getConfig()
+   {
+      return config;
+   }
+ 
+   
+   /***
+    * Attempts to read path from annotation on class @ConfigMapping(path="")
+    * Override if annotation is not present to provide the path for the bean configuration.
+    */
+   private String path;
+   @Override
+   public String getPath()
+   {  
+      //attempt to read path from @ConfigMapping(path="") if found
+      if (path==null && this.getClass().isAnnotationPresent(ConfigBeanMapping.class) ) {
+         ConfigBeanMapping annotation =(ConfigBeanMapping) this.getClass().getAnnotation(ConfigBeanMapping.class);
+         path =annotation.value();
+      }
+      return path;
+   }
+   
+   /***
+    * Allows internally setting path of the bean.
+    * @param path
+    */
+   void setPath(String path)
+   {
+      this.path = path;
+   }
+
+   /*** 
+    * Sometimes its required to inject configBeans to be loaded and reloaded at runtime.
+    * e.g. readng a new been relative to subconfiguration when there is no field for that particular bean. 
+    * Adds a config Bean to the list to be provided with configuration on load 
+    * To be monitored for changes and reloaded if a file was changed
+    * @param configBean
+    * @return parentBean
+    */
+    public <T extends IConfig>  ConfigBean withConfigBean(T configBean)
+    {  
+         configBeansList.add(configBean);
+         //read the configuration if the file is already loaded
+         if ( config!=null)
+            readSubconfigBean( configBean);
+         return this; 
+    }
+    
+    /***
+     * Returns the beans injected with {@link #withConfigBean(IConfig)}
+     * @return
+     */
+    List<IConfig> getConfigBeans()
+    {
+       return Collections.unmodifiableList(configBeansList);
+    }
+
+    /***
+     * Returns the subconfiguration beans loaded by the last load of this bean, fields and injected beans
+     * @return
+     */
+    Set<IConfig> getSubconfigBeans()
+    {
+       Set<IConfig> beans = subconfigBeans;
+       return beans == null ? Collections.<IConfig>emptySet() : Collections.unmodifiableSet(beans);
+    }
+
+    /***
+     * Writes a value at the specified path or key.
+     * The value is set holding the lock of the root configuration which the provider also holds while saving,
+     * so a save running on another thread never sees a half updated tree.
+     * @param path
+     * @param value
+     */
+    public void writeProperty(String path, Object value )
+    {
+       HierarchicalConfiguration config = this.config;
+       if (config!=null)
+          synchronized(getRootConfiguration(config))
+          {
+             config.setProperty(path,value);
+          }
+    }
+
+    /***
+     * Returns the configuration the section belongs to, the lock guarding changes to the configuration tree
+     * @param config
+     * @return
+     */
+    static HierarchicalConfiguration getRootConfiguration(HierarchicalConfiguration config)
+    {
+       while (config instanceof SubnodeConfiguration)
+          config = ((SubnodeConfiguration) config).getParent();
+       return config;
+    }
+
+   /***
+    * Returns true if value was the last value successfully parsed into field
+    * @param field
+    * @param value
+    * @return
+    */
+   boolean isParsed(String field, String value)
+   {
+      if(parsedValues == null || !parsedValues.containsKey(field))
+         return false;
+      String parsed = parsedValues.get(field);
+      return parsed == null ? value == null : parsed.equals(value);
+   }
+
+   /***
+    * Records the value successfully parsed into field
+    * @param field
+    * @param value
+    */
+   void setParsed(String field, String value)
+   {
+      if(parsedValues == null)
+         parsedValues = new HashMap<String, String>();
+      parsedValues.put(field, value);
+   }
+
+   /***
+    * Is Called to start reading the configuration into the appropriate bean properties 
+    * from config.
+    * Override this method to 
+    */
+   public  void readConfiguration(){
+        //read all fields with @ConfigFieldMapping(path="") or fields of type iconfig 
+        readFieldsConfigurations();
+        //reload configuration that were injected after load
+        readInjectedConfigurations();
+   }
+   
+  
+
+   /***
+     * Reloads all subConfiguration beans injected.  
+     */
+    private void readInjectedConfigurations()
+    {
+      for (IConfig configBean: configBeansList)
+      {
+         readSubconfigBean( configBean);
+      }
+    }
+
+   /***
+    * Reads all fields of types that implement iconfig representing subconfigurations.
+    * Reads all annotated fields of basic types automatically from configuration  
+    * Uses the generated binder of the class if available otherwise the fields are resolved once per class see {@link ConfigBinder}
+    */
+   private void readFieldsConfigurations()  {
+      ConfigBinder.forClass(getClass()).bind(this);
+   }
+   
+   /***
+    * Attempts to load subconfiguration bean by calling its getPath and attempting to extract it from this beans configuration object.
+    * Initializes subconfiguration bean if it is not initialized
+    * @param bean
+    */
+   void readSubconfigBean(IConfig subConfigBean )
+   {   
+      if(subConfigBean.getPath() == null)
+      { 
+         throw new ConfigException("Config bean missing configuration path:" + subConfigBean.getClass().getName());
+      } 
+      HierarchicalConfiguration config = this.config.configurationAt(subConfigBean.getPath());  
+      if( config!= null)
+      {
+         subConfigBean.loadConfiguration(config);  
+         if(subconfigBeans == null)
+            subconfigBeans = Collections.newSetFromMap(new IdentityHashMap<IConfig, Boolean>());
+         subconfigBeans.add(subConfigBean);
+      }
+   
+   }
+  
+   /***
+    * returns a toString value of this bean all the subBeans attached to it.
+    * @return
+    */
+   public String deepToString()
+   {
+      StringBuilder sb = new StringBuilder();
+      sb.append(this.toString());
+      for (IConfig config: this.configBeansList)
+      {
+         sb = sb.append("\r\n").append(config.toString());
+      } 
+      return sb.toString();
+   }
+   
+}
@@ -0,0 +1,209 @@
+package com.oselan.common.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.oselan.common.util.ValueConverter;
+import com.oselan.common.util.ValueConverters;
+
+/***
+ * An index of the children of a {@link ConfigBeanList} by a key read from the configuration of each child,
+ * e.g. an attribute "[@id]" or an element "Port", converted to the key type with the registered {@link ValueConverter}.
+ * Children without the key are not indexed.
+ * Indexes are declared on the list e.g.
+ * private final ConfigBeanIndex&lt;String, RouteConfig&gt; byName = addIndex(ConfigBeanIndex.&lt;String, RouteConfig&gt;unique("[@name]", String.class));
+ * There are 3 kinds of index:
+ * unique: a hash index with a single child per key, a duplicate key fails the read of the list.
+ * multi: a hash index with the children of each key in list order.
+ * range: a sorted index of the children of each key that also answers range queries e.g. on ports or priorities.
+ * The index is rebuilt on each read of its list and replaced at once, lookups see either the previous or the new children
+ * and never a partially built index. It is not updated by the list operations e.g. {@link ConfigBeanList#add(ConfigBean)}.
+ * @author Ahmad Hamid
+ * @param <K> the key type
+ * @param <T> the child type
+ */
+public final class ConfigBeanIndex<K, T extends ConfigBean>
+{
+   private enum Kind
+   {
+      UNIQUE, MULTI, RANGE
+   }
+
+   private final String keyPath;
+   private final ValueConverter<K> converter;
+   private final Kind kind;
+   private volatile Map<K, List<T>> children = Collections.emptyMap();
+
+   private ConfigBeanIndex(String keyPath, Class<K> keyType, Kind kind)
+   {
+      if(keyPath == null || keyType == null)
+         throw new IllegalArgumentException("Key path and key type are required");
+      this.converter = ValueConverters.forType(keyType);
+      if(converter == null)
+         throw new IllegalArgumentException("No converter registered for key type " + keyType.getName());
+      this.keyPath = keyPath;
+      this.kind = kind;
+      if(kind == Kind.RANGE)
+         children = Collections.unmodifiableNavigableMap(new TreeMap<K, List<T>>());
+   }
+
+   /***
+    * A hash index with a single child per key
+    * @param keyPath the configuration key of the child e.g. "[@id]"
+    * @param keyType
+    * @return
+    */
+   public static <K, T extends ConfigBean> ConfigBeanIndex<K, T> unique(String keyPath, Class<K> keyType)
+   {
+      return new ConfigBeanIndex<K, T>(keyPath, keyType, Kind.UNIQUE);
+   }
+
+   /***
+    * A hash index with any number of children per key
+    * @param keyPath the configuration key of the child e.g. "[@tenant]"
+    * @param keyType
+    * @return
+    */
+   public static <K, T extends ConfigBean> ConfigBeanIndex<K, T> multi(String keyPath, Class<K> keyType)
+   {
+      return new ConfigBeanIndex<K, T>(keyPath, keyType, Kind.MULTI);
+   }
+
+   /***
+    * A sorted index with any number of children per key supporting range queries
+    * @param keyPath the configuration key of the child e.g. "Priority"
+    * @param keyType a comparable type e.g. Integer
+    * @return
+    */
+   public static <K extends Comparable<? super K>, T extends ConfigBean> ConfigBeanIndex<K, T> range(String keyPath, Class<K> keyType)
+   {
+      return new ConfigBeanIndex<K, T>(keyPath, keyType, Kind.RANGE);
+   }
+
+   /***
+    * The configuration key of the children read as the key
+    * @return
+    */
+   public String getKeyPath()
+   {
+      return keyPath;
+   }
+
+   /***
+    * Returns the child of key, the first one for a multi or range index
+    * @param key
+    * @return null if there is no child with the key
+    */
+   public T get(K key)
+   {
+      List<T> keyChildren = children.get(key);
+      return keyChildren == null ? null : keyChildren.get(0);
+   }
+
+   /***
+    * Returns the children of key in list order
+    * @param key
+    * @return an empty list if there is no child with the key
+    */
+   public List<T> getAll(K key)
+   {
+      List<T> keyChildren = children.get(key);
+      return keyChildren == null ? Collections.<T>emptyList() : keyChildren;
+   }
+
+   public boolean containsKey(K key)
+   {
+      return children.containsKey(key);
+   }
+
+   /***
+    * The indexed keys, sorted for a range index
+    * @return
+    */
+   public Set<K> keySet()
+   {
+      return children.keySet();
+   }
+
+   /***
+    * Returns the children with keys from fromKey to toKey in key order
+    * @param fromKey
+    * @param fromInclusive
+    * @param toKey
+    * @param toInclusive
+    * @return
+    * @throws UnsupportedOperationException if this is not a range index
+    */
+   public List<T> getRange(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive)
+   {
+      List<T> rangeChildren = new ArrayList<T>();
+      for(List<T> keyChildren : asNavigableMap().subMap(fromKey, fromInclusive, toKey, toInclusive).values())
+         rangeChildren.addAll(keyChildren);
+      return rangeChildren;
+   }
+
+   /***
+    * The sorted children of each key, e.g. to find the floor or ceiling key
+    * @return an unmodifiable view of the current index
+    * @throws UnsupportedOperationException if this is not a range index
+    */
+   public NavigableMap<K, List<T>> asNavigableMap()
+   {
+      if(kind != Kind.RANGE)
+         throw new UnsupportedOperationException("Not a range index on " + keyPath);
+      return (NavigableMap<K, List<T>>) children;
+   }
+
+   /***
+    * Builds the index of children without publishing it
+    * @param list the children in list order
+    * @return
+    */
+   Map<K, List<T>> build(List<T> list)
+   {
+      Map<K, List<T>> index = kind == Kind.RANGE ? new TreeMap<K, List<T>>() : new HashMap<K, List<T>>(list.size() * 4 / 3 + 1);
+      for(T child : list)
+      {
+         if(child.getConfig() == null)
+            continue;
+         String value = child.getConfig().getString(keyPath, null);
+         K key;
+         try
+         {
+            key = ValueConverters.convert(converter, value);
+         }
+         catch(Exception e)
+         {
+            throw new ConfigException("Invalid index key " + keyPath + "=" + value, e);
+         }
+         if(key == null)
+            continue;
+         List<T> keyChildren = index.get(key);
+         if(keyChildren == null)
+            index.put(key, keyChildren = new ArrayList<T>(1));
+         else if(kind == Kind.UNIQUE)
+            throw new ConfigException("Duplicate index key " + keyPath + "=" + value);
+         keyChildren.add(child);
+      }
+      for(Map.Entry<K, List<T>> entry : index.entrySet())
+         entry.setValue(Collections.unmodifiableList(entry.getValue()));
+      if(kind == Kind.RANGE)
+         return Collections.unmodifiableNavigableMap((NavigableMap<K, List<T>>) index);
+      return Collections.unmodifiableMap(index);
+   }
+
+   /***
+    * Replaces the index with one returned by {@link #build(List)}
+    * @param index
+    */
+   void publish(Map<K, List<T>> index)
+   {
+      this.children = index;
+   }
+}
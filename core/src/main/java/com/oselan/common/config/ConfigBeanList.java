@@ -0,0 +1,397 @@
+package com.oselan.common.config;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+
+import org.apache.commons.configuration.HierarchicalConfiguration;
+
+import com.oselan.common.util.ReflectionUtil;
+ 
+/***
+ * An abstract class provides common implementation of the IConfig interface for an list of similar
+ * configurations. 
+ * e.g. 
+ * <DBConfigs rtrt >
+ * <dbConfig ...  />
+ * <dbConfig ...  />
+ * <dbConfig ...  /> 
+ * </DBConfigs>
+ * @author Ahmad hamid
+ */
+public  abstract class ConfigBeanList<T extends ConfigBean> extends ConfigBean implements  List<T>
+{ 
+    
+   private final List<T> childConfigs = new ArrayList<T>();
+   /***
+    * Fingerprints of the configuration each child was bound from
+    */
+   private Map<T, Long> childFingerprints = new IdentityHashMap<T, Long>();
+   private List<T> addedChildren = Collections.emptyList();
+   private List<T> changedChildren = Collections.emptyList();
+   private List<T> removedChildren = Collections.emptyList();
+   private String elementPath;
+   private final List<ConfigBeanIndex<?, T>> indexes = new ArrayList<ConfigBeanIndex<?, T>>();
+     
+   
+   @Override
+   public void readConfiguration()
+   { 
+      super.readConfiguration(); 
+      readConfigurationstoList();
+   }
+  
+   /***
+    * Attaches the children in order to the configurations of the section
+    */
+   @Override
+   void attachConfiguration(HierarchicalConfiguration config)
+   {
+      super.attachConfiguration(config);
+      try
+      {
+         @SuppressWarnings("unchecked")
+         List<HierarchicalConfiguration> configs = config.configurationsAt(getElementPath());
+         if(configs.size() != childConfigs.size())
+         {
+            //the children were changed through the list, read them again
+            readConfigurationstoList();
+            return;
+         }
+         for(int i = 0; i < configs.size(); i++)
+            childConfigs.get(i).attachConfiguration(configs.get(i));
+      }
+      catch(ConfigException e)
+      {
+         throw e;
+      }
+      catch(Exception e)
+      {
+         throw new ConfigException(e);
+      }
+   }
+
+   /***
+    * Returns the class of the subtype 
+    * Note that it has to be accessible e.g. public inner class 
+    * @return
+    */
+   protected abstract Class<T> getElementClass();
+   
+   /***
+    * Returns the path of the key identifying a child in its configuration e.g. "[@id]", used to match
+    * the children of a reload with the current children. Children are matched by position if null.
+    * Override to declare the key of the children.
+    * @return
+    */
+   protected String getKeyPath()
+   {
+      return null;
+   }
+    
+   /***
+    * Reads a configurations list and merges it into the current children.
+    * A child whose configuration did not change is kept as it is, a changed child is rebound in place and
+    * new children are created, so references held on children stay valid across reloads.
+    * The sets of changes are available from {@link #getAddedChildren()}, {@link #getChangedChildren()} and {@link #getRemovedChildren()}.
+    * Unchanged children and their nested beans are attached to the new configuration without being read.
+    */
+   protected  void readConfigurationstoList( )  
+   {  //unfortunately we can not get T.class to class has be passed as variable 
+      try
+      {
+         @SuppressWarnings("unchecked")
+         List<HierarchicalConfiguration> configs = getConfig().configurationsAt(getElementPath());
+         String keyPath = getKeyPath();
+         Map<Object, Deque<T>> previous = new HashMap<Object, Deque<T>>();
+         int position = 0;
+         for(T child : childConfigs)
+         {
+            if(child.getConfig() != null && childFingerprints.containsKey(child))
+               put(previous, keyPath == null ? position++ : child.getConfig().getString(keyPath, null), child);
+         }
+         List<T> children = new ArrayList<T>(configs.size());
+         Map<T, Long> fingerprints = new IdentityHashMap<T, Long>(configs.size());
+         List<T> added = new ArrayList<T>();
+         List<T> changed = new ArrayList<T>();
+         position = 0;
+         for(HierarchicalConfiguration hConfig : configs)
+         {
+            long fingerprint = ConfigTreeHash.hash(hConfig.getRootNode());
+            Deque<T> matches = previous.get(keyPath == null ? position++ : hConfig.getString(keyPath, null));
+            T child = matches == null ? null : matches.poll();
+            if(child == null)
+            {
+               child = ReflectionUtil.createInstance(this, getElementClass());
+               child.loadConfiguration(hConfig);
+               added.add(child);
+            }
+            else if(childFingerprints.get(child) != fingerprint)
+            {
+               child.loadConfiguration(hConfig);
+               changed.add(child);
+            }
+            else
+               child.attachConfiguration(hConfig);
+            children.add(child);
+            fingerprints.put(child, fingerprint);
+         }
+         List<T> removed = new ArrayList<T>();
+         for(T child : childConfigs)
+         {
+            if(!fingerprints.containsKey(child))
+               removed.add(child);
+         }
+         List<Map<?, List<T>>> builtIndexes = new ArrayList<Map<?, List<T>>>(indexes.size());
+         for(ConfigBeanIndex<?, T> index : indexes)
+            builtIndexes.add(index.build(children));
+         childConfigs.clear();
+         childConfigs.addAll(children);
+         for(int i = 0; i < indexes.size(); i++)
+            publish(indexes.get(i), builtIndexes.get(i));
+         childFingerprints = fingerprints;
+         addedChildren = Collections.unmodifiableList(added);
+         changedChildren = Collections.unmodifiableList(changed);
+         removedChildren = Collections.unmodifiableList(removed);
+      }
+      catch(ConfigException e)
+      {
+         throw e;
+      }
+      catch(Exception e)
+      {
+         throw new ConfigException(e);
+      }
+   }
+
+   private static <T> void put(Map<Object, Deque<T>> children, Object key, T child)
+   {
+      Deque<T> sameKey = children.get(key);
+      if(sameKey == null)
+         children.put(key, sameKey = new ArrayDeque<T>(1));
+      sameKey.add(child);
+   }
+
+   @SuppressWarnings("unchecked")
+   private static <K, T extends ConfigBean> void publish(ConfigBeanIndex<K, T> index, Map<?, List<T>> built)
+   {
+      index.publish((Map<K, List<T>>) built);
+   }
+
+   /***
+    * Declares an index of the children, built on each read of the list.
+    * All the indexes are built before any is replaced, a duplicate unique key fails the read before the
+    * children of the list and its indexes are replaced.
+    * @param index
+    * @return index
+    */
+   protected final <K> ConfigBeanIndex<K, T> addIndex(ConfigBeanIndex<K, T> index)
+   {
+      if(getConfig() != null)
+         index.publish(index.build(childConfigs));
+      indexes.add(index);
+      return index;
+   }
+
+   /***
+    * The path of the children, from the mapping of the element class or from an instance if it is not annotated
+    * @return
+    * @throws Exception
+    */
+   private String getElementPath() throws Exception
+   {
+      if(elementPath == null)
+         elementPath = getElementPath(getElementClass());
+      return elementPath;
+   }
+
+   /***
+    * The path of a bean class, from its mapping or from an instance if it is not annotated
+    * @param elementClass
+    * @return
+    * @throws Exception
+    */
+   static String getElementPath(Class<? extends ConfigBean> elementClass) throws Exception
+   {
+      ConfigBeanMapping mapping = elementClass.getAnnotation(ConfigBeanMapping.class);
+      return mapping != null ? mapping.value() : ReflectionUtil.createInstance(elementClass).getPath();
+   }
+
+   /***
+    * Children created by the last read of the configuration
+    * @return
+    */
+   public List<T> getAddedChildren()
+   {
+      return addedChildren;
+   }
+
+   /***
+    * Children rebound by the last read of the configuration because their configuration changed
+    * @return
+    */
+   public List<T> getChangedChildren()
+   {
+      return changedChildren;
+   }
+
+   /***
+    * Children dropped by the last read of the configuration
+    * @return
+    */
+   public List<T> getRemovedChildren()
+   {
+      return removedChildren;
+   }
+   
+   
+
+   @Override
+   public String toString()
+   {
+      StringBuilder builder = new StringBuilder();
+      builder.append("ConfigBeanList [childConfigs=");
+      builder.append(childConfigs);
+      builder.append("]");
+      return builder.toString();
+   }
+
+   @Override
+   public Iterator<T> iterator()
+   { 
+      return childConfigs.iterator();
+   }
+    
+   public int size()
+   { 
+      return childConfigs.size();
+   }
+ 
+   public boolean isEmpty()
+   { 
+      return childConfigs.isEmpty();
+   }
+ 
+   public boolean contains(Object o)
+   { 
+      return childConfigs.contains(o);
+   }
+ 
+   public int indexOf(Object o)
+   { 
+      return childConfigs.indexOf(o);
+   }
+ 
+   public int lastIndexOf(Object o)
+   { 
+      return childConfigs.lastIndexOf(o);
+   }
+ 
+    
+   public Object[] toArray()
+   { 
+      return childConfigs.toArray();
+   }
+ 
+   
+ 
+   public T get(int index)
+   { 
+      return childConfigs.get(index);
+   }
+ 
+   public T set(int index, T element)
+   { 
+      return childConfigs.set(index, element);
+   }
+ 
+   public boolean add(T e)
+   { 
+      return childConfigs.add(e);
+   }
+ 
+   public void add(int index, T element)
+   { 
+      childConfigs.add(index, element);
+   }
+ 
+   public T remove(int index)
+   { 
+      return childConfigs.remove(index);
+   }
+ 
+   public boolean remove(Object o)
+   { 
+      return childConfigs.remove(o);
+   }
+ 
+   public void clear()
+   { 
+      childConfigs.clear();
+   }
+ 
+   public boolean addAll(Collection<? extends T> c)
+   { 
+      return childConfigs.addAll(c);
+   }
+ 
+   public boolean addAll(int index, Collection<? extends T> c)
+   { 
+      return childConfigs.addAll(index, c);
+   }
+
+   @Override
+   public <X> X[] toArray(X[] a)
+   {
+      return childConfigs.toArray(a);
+   }
+
+   @Override
+   public boolean containsAll(Collection<?> c)
+   { 
+      return childConfigs.containsAll(c);
+   }
+
+   @Override
+   public boolean removeAll(Collection<?> c)
+   { 
+      return childConfigs.removeAll(c);
+   }
+
+   @Override
+   public boolean retainAll(Collection<?> c)
+   {
+    
+      return childConfigs.retainAll(c);
+   }
+
+   @Override
+   public ListIterator<T> listIterator()
+   { 
+      return childConfigs.listIterator();
+   }
+
+   @Override
+   public ListIterator<T> listIterator(int index)
+   { 
+      return childConfigs.listIterator(index);
+   }
+
+   @Override
+   public List<T> subList(int fromIndex, int toIndex)
+   {
+      
+      return childConfigs.subList(fromIndex, toIndex);
+   }
+   
+   
+   
+}
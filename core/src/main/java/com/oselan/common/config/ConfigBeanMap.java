@@ -0,0 +1,65 @@
+package com.oselan.common.config;
+
+import java.util.Collections;
+import java.util.Set;
+
+/***
+ * A list of configurations keyed by a unique key of each child e.g.
+ * <Tenants>
+ * <Tenant id="a" ... />
+ * <Tenant id="b" ... />
+ * </Tenants>
+ * The key path also matches the children on reload, see {@link ConfigBeanList#getKeyPath()}.
+ * Lookups by key use a hash index rebuilt on each read, see {@link ConfigBeanIndex}.
+ * @author Ahmad Hamid
+ * @param <K> the key type
+ * @param <T> the child type
+ */
+public abstract class ConfigBeanMap<K, T extends ConfigBean> extends ConfigBeanList<T>
+{
+   private ConfigBeanIndex<K, T> keyIndex;
+
+   @Override
+   public void readConfiguration()
+   {
+      if(keyIndex == null)
+         keyIndex = addIndex(ConfigBeanIndex.<K, T>unique(getKeyPath(), getKeyType()));
+      super.readConfiguration();
+   }
+
+   /***
+    * Returns the path of the unique key of a child in its configuration e.g. "[@id]"
+    */
+   @Override
+   protected abstract String getKeyPath();
+
+   /***
+    * Returns the class of the key, converted with the registered converter of the type
+    * @return
+    */
+   protected abstract Class<K> getKeyType();
+
+   /***
+    * Returns the child with key
+    * @param key
+    * @return null if there is no child with the key
+    */
+   public T getByKey(K key)
+   {
+      return keyIndex == null ? null : keyIndex.get(key);
+   }
+
+   public boolean containsKey(K key)
+   {
+      return keyIndex != null && keyIndex.containsKey(key);
+   }
+
+   /***
+    * The keys of the children
+    * @return
+    */
+   public Set<K> keySet()
+   {
+      return keyIndex == null ? Collections.<K>emptySet() : keyIndex.keySet();
+   }
+}
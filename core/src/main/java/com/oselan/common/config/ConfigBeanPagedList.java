@@ -0,0 +1,665 @@
+package com.oselan.common.config;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.configuration.HierarchicalConfiguration;
+import org.apache.commons.configuration.tree.ConfigurationNode;
+
+import com.oselan.common.util.ReflectionUtil;
+
+/***
+ * A read only list of configurations whose children are kept serialized in a local store file instead of the heap.
+ * Children are written to the store on each read of the list with an index of their offsets, and hydrated into
+ * new beans on demand through an LRU cache of {@link #getCacheSize()} children, so the heap used by the beans is bounded
+ * by the cache size rather than the section size. Hits and misses of the cache are counted.
+ * e.g.
+ * <CustomerOverrides>
+ * <Override customer="c1" ... />
+ * ...
+ * </CustomerOverrides>
+ * Loaded by the provider the section is still part of the configuration tree, use {@link #load(ConfigStreamReader)}
+ * to fill the store from the source without ever loading the section.
+ * Hydrated children are detached copies, writing their properties does not update the configuration.
+ * The store is replaced at once on reload, store files are deleted when replaced and on {@link #close()}.
+ * @author Ahmad Hamid
+ */
+public abstract class ConfigBeanPagedList<T extends ConfigBean> extends ConfigBean implements List<T>, Closeable
+{
+   public static final int DEFAULT_CACHE_SIZE = 1024;
+   private static final Charset UTF8 = Charset.forName("UTF-8");
+
+   private volatile Store store = Store.EMPTY;
+   private Map<Integer, T> cache;
+   private final AtomicLong cacheHits = new AtomicLong();
+   private final AtomicLong cacheMisses = new AtomicLong();
+   private final List<T> children = new AbstractList<T>()
+   {
+      @Override
+      public T get(int index)
+      {
+         return hydrate(index);
+      }
+
+      @Override
+      public int size()
+      {
+         return store.size();
+      }
+   };
+
+   @Override
+   public void readConfiguration()
+   {
+      super.readConfiguration();
+      try
+      {
+         StoreWriter writer = new StoreWriter();
+         try
+         {
+            @SuppressWarnings("unchecked")
+            List<HierarchicalConfiguration> configs = getConfig().configurationsAt(ConfigBeanList.getElementPath(getElementClass()));
+            for(HierarchicalConfiguration config : configs)
+               writer.add(config);
+         }
+         catch(Exception e)
+         {
+            writer.discard();
+            throw e;
+         }
+         replaceStore(writer.finish());
+      }
+      catch(ConfigException e)
+      {
+         throw e;
+      }
+      catch(Exception e)
+      {
+         throw new ConfigException(e);
+      }
+   }
+
+   /***
+    * Fills the store with the children of the section of this list streamed from the source of reader,
+    * without loading the section. The fields of the list itself are not read.
+    * @param reader
+    * @return this list
+    */
+   public ConfigBeanPagedList<T> load(ConfigStreamReader reader)
+   {
+      try
+      {
+         final StoreWriter writer = new StoreWriter();
+         try
+         {
+            reader.forEachConfiguration(getPath() + "." + ConfigBeanList.getElementPath(getElementClass()), new ConfigVisitor<HierarchicalConfiguration>()
+            {
+               @Override
+               public boolean visit(HierarchicalConfiguration child) throws IOException
+               {
+                  writer.add(child);
+                  return true;
+               }
+            });
+         }
+         catch(Exception e)
+         {
+            writer.discard();
+            throw e;
+         }
+         replaceStore(writer.finish());
+         return this;
+      }
+      catch(ConfigException e)
+      {
+         throw e;
+      }
+      catch(Exception e)
+      {
+         throw new ConfigException(e);
+      }
+   }
+
+   /***
+    * Returns the class of the subtype
+    * Note that it has to be accessible e.g. public inner class
+    * @return
+    */
+   protected abstract Class<T> getElementClass();
+
+   /***
+    * Returns the path of the key of a child in its configuration e.g. "[@id]" for {@link #getByKey(String)}, null if the children have no key.
+    * Keys of all the children are held in memory.
+    * @return
+    */
+   protected String getKeyPath()
+   {
+      return null;
+   }
+
+   /***
+    * Maximum number of hydrated children held by the cache
+    * @return
+    */
+   protected int getCacheSize()
+   {
+      return DEFAULT_CACHE_SIZE;
+   }
+
+   /***
+    * Directory of the store file
+    * @return null for the temporary directory
+    */
+   protected File getStoreDirectory()
+   {
+      return null;
+   }
+
+   /***
+    * Returns the child with key, see {@link #getKeyPath()}
+    * @param key
+    * @return null if there is no child with the key
+    */
+   public T getByKey(String key)
+   {
+      Integer index = store.keys.get(key);
+      return index == null ? null : hydrate(index);
+   }
+
+   public long getCacheHits()
+   {
+      return cacheHits.get();
+   }
+
+   public long getCacheMisses()
+   {
+      return cacheMisses.get();
+   }
+
+   /***
+    * Size of the store file in bytes
+    * @return
+    */
+   public long getStoreSize()
+   {
+      return store.length;
+   }
+
+   /***
+    * Deletes the store, the list is empty until it is read again
+    */
+   @Override
+   public void close()
+   {
+      replaceStore(Store.EMPTY);
+   }
+
+   private void replaceStore(Store newStore)
+   {
+      Store previous;
+      synchronized(this)
+      {
+         previous = store;
+         store = newStore;
+         cache = null;
+      }
+      previous.delete();
+   }
+
+   /***
+    * Returns the cached child or reads it from the store
+    */
+   private T hydrate(int index)
+   {
+      while(true)
+      {
+         Store current = store;
+         if(index < 0 || index >= current.size())
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + current.size());
+         synchronized(this)
+         {
+            T child = current == store && cache != null ? cache.get(index) : null;
+            if(child != null)
+            {
+               cacheHits.incrementAndGet();
+               return child;
+            }
+         }
+         cacheMisses.incrementAndGet();
+         T child;
+         try
+         {
+            child = ReflectionUtil.createInstance(this, getElementClass());
+            child.loadConfiguration(current.read(index));
+         }
+         catch(ClosedChannelException e)
+         {
+            //the store was replaced by a reload, read from the new one
+            if(current != store)
+               continue;
+            throw new ConfigException(e);
+         }
+         catch(ConfigException e)
+         {
+            throw e;
+         }
+         catch(Exception e)
+         {
+            throw new ConfigException(e);
+         }
+         synchronized(this)
+         {
+            if(current == store)
+            {
+               if(cache == null)
+                  cache = newCache(getCacheSize());
+               cache.put(index, child);
+            }
+         }
+         return child;
+      }
+   }
+
+   private static <T> Map<Integer, T> newCache(final int maxSize)
+   {
+      return new LinkedHashMap<Integer, T>(Math.min(maxSize, 1024) * 4 / 3 + 1, 0.75f, true)
+      {
+         private static final long serialVersionUID = 1L;
+
+         @Override
+         protected boolean removeEldestEntry(Map.Entry<Integer, T> eldest)
+         {
+            return size() > maxSize;
+         }
+      };
+   }
+
+   /***
+    * Writes the children to a new store file
+    */
+   private final class StoreWriter
+   {
+      private final File file;
+      private final OutputStream out;
+      private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+      private final DataOutputStream recordOut = new DataOutputStream(record);
+      private final String keyPath = getKeyPath();
+      private final Map<String, Integer> keys = new HashMap<String, Integer>();
+      private long[] offsets = new long[64];
+      private int count;
+      private long length;
+
+      StoreWriter() throws IOException
+      {
+         File directory = getStoreDirectory();
+         file = File.createTempFile("configlist", ".store", directory);
+         out = new BufferedOutputStream(new FileOutputStream(file), 65536);
+      }
+
+      void add(HierarchicalConfiguration config) throws IOException
+      {
+         record.reset();
+         writeNode(recordOut, config.getRootNode());
+         if(count + 1 >= offsets.length)
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+         offsets[count] = length;
+         record.writeTo(out);
+         length += record.size();
+         offsets[count + 1] = length;
+         if(keyPath != null)
+         {
+            String key = config.getString(keyPath, null);
+            if(key != null && !keys.containsKey(key))
+               keys.put(key, count);
+         }
+         count++;
+      }
+
+      Store finish() throws IOException
+      {
+         out.close();
+         return new Store(file, Arrays.copyOf(offsets, count + 1), count, length, keys);
+      }
+
+      void discard()
+      {
+         try
+         {
+            out.close();
+         }
+         catch(IOException e)
+         {
+            ConfigProvider.log.warn("Failed to close configuration store " + file, e);
+         }
+         file.delete();
+      }
+   }
+
+   private static void writeNode(DataOutputStream out, ConfigurationNode node) throws IOException
+   {
+      writeString(out, node.getName());
+      writeString(out, node.getValue() == null ? null : node.getValue().toString());
+      List<?> attributes = node.getAttributes();
+      out.writeInt(attributes.size());
+      for(Object attribute : attributes)
+      {
+         ConfigurationNode attributeNode = (ConfigurationNode) attribute;
+         writeString(out, attributeNode.getName());
+         writeString(out, attributeNode.getValue() == null ? null : attributeNode.getValue().toString());
+      }
+      List<?> nodeChildren = node.getChildren();
+      out.writeInt(nodeChildren.size());
+      for(Object child : nodeChildren)
+         writeNode(out, (ConfigurationNode) child);
+   }
+
+   private static HierarchicalConfiguration.Node readNode(DataInputStream in) throws IOException
+   {
+      HierarchicalConfiguration.Node node = new HierarchicalConfiguration.Node(readString(in));
+      node.setValue(readString(in));
+      int attributeCount = in.readInt();
+      for(int i = 0; i < attributeCount; i++)
+      {
+         HierarchicalConfiguration.Node attribute = new HierarchicalConfiguration.Node(readString(in));
+         attribute.setValue(readString(in));
+         node.addAttribute(attribute);
+      }
+      int childCount = in.readInt();
+      for(int i = 0; i < childCount; i++)
+         node.addChild(readNode(in));
+      return node;
+   }
+
+   /***
+    * Strings are written as a byte length, -1 for null, and UTF-8 bytes, without the 64KB limit of writeUTF
+    */
+   private static void writeString(DataOutputStream out, String value) throws IOException
+   {
+      if(value == null)
+      {
+         out.writeInt(-1);
+         return;
+      }
+      byte[] bytes = value.getBytes(UTF8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+   }
+
+   private static String readString(DataInputStream in) throws IOException
+   {
+      int length = in.readInt();
+      if(length < 0)
+         return null;
+      byte[] bytes = new byte[length];
+      in.readFully(bytes);
+      return new String(bytes, UTF8);
+   }
+
+   /***
+    * A store file and the offsets of its children, immutable once written
+    */
+   private static final class Store
+   {
+      static final Store EMPTY = new Store(null, new long[1], 0, 0, Collections.<String, Integer>emptyMap());
+
+      private final File file;
+      private final long[] offsets;
+      private final int count;
+      private final long length;
+      private final Map<String, Integer> keys;
+      private volatile FileChannel channel;
+      private boolean deleted;
+
+      Store(File file, long[] offsets, int count, long length, Map<String, Integer> keys)
+      {
+         this.file = file;
+         this.offsets = offsets;
+         this.count = count;
+         this.length = length;
+         this.keys = keys;
+         try
+         {
+            this.channel = file == null ? null : open();
+         }
+         catch(IOException e)
+         {
+            file.delete();
+            throw new ConfigException("Failed to open configuration store " + file, e);
+         }
+      }
+
+      private FileChannel open() throws IOException
+      {
+         return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+      }
+
+      int size()
+      {
+         return count;
+      }
+
+      /***
+       * Reads the configuration of child index with a positional read, safe for concurrent readers.
+       * The channel is closed when a reader is interrupted, it is reopened for the other readers unless the store is deleted
+       */
+      HierarchicalConfiguration read(int index) throws IOException
+      {
+         int recordLength = (int) (offsets[index + 1] - offsets[index]);
+         ByteBuffer buffer = ByteBuffer.allocate(recordLength);
+         long position = offsets[index];
+         FileChannel current = channel;
+         while(buffer.hasRemaining())
+         {
+            try
+            {
+               if(current.read(buffer, position + buffer.position()) < 0)
+                  throw new IOException("Truncated configuration store " + file);
+            }
+            catch(ClosedByInterruptException e)
+            {
+               throw e;
+            }
+            catch(ClosedChannelException e)
+            {
+               current = reopen(current, e);
+            }
+         }
+         HierarchicalConfiguration config = new HierarchicalConfiguration();
+         config.setRootNode(readNode(new DataInputStream(new ByteArrayInputStream(buffer.array()))));
+         config.setThrowExceptionOnMissing(true);
+         config.setDelimiterParsingDisabled(true);
+         return config;
+      }
+
+      private synchronized FileChannel reopen(FileChannel closed, ClosedChannelException e) throws IOException
+      {
+         if(deleted)
+            throw e;
+         if(channel == closed)
+            channel = open();
+         return channel;
+      }
+
+      void delete()
+      {
+         if(file == null)
+            return;
+         synchronized(this)
+         {
+            deleted = true;
+            try
+            {
+               channel.close();
+            }
+            catch(IOException e)
+            {
+               ConfigProvider.log.warn("Failed to close configuration store " + file, e);
+            }
+         }
+         file.delete();
+      }
+   }
+
+   @Override
+   public Iterator<T> iterator()
+   {
+      return children.iterator();
+   }
+
+   @Override
+   public int size()
+   {
+      return children.size();
+   }
+
+   @Override
+   public boolean isEmpty()
+   {
+      return children.isEmpty();
+   }
+
+   @Override
+   public boolean contains(Object o)
+   {
+      return children.contains(o);
+   }
+
+   @Override
+   public int indexOf(Object o)
+   {
+      return children.indexOf(o);
+   }
+
+   @Override
+   public int lastIndexOf(Object o)
+   {
+      return children.lastIndexOf(o);
+   }
+
+   @Override
+   public Object[] toArray()
+   {
+      return children.toArray();
+   }
+
+   @Override
+   public <X> X[] toArray(X[] a)
+   {
+      return children.toArray(a);
+   }
+
+   @Override
+   public T get(int index)
+   {
+      return children.get(index);
+   }
+
+   @Override
+   public T set(int index, T element)
+   {
+      return children.set(index, element);
+   }
+
+   @Override
+   public boolean add(T e)
+   {
+      return children.add(e);
+   }
+
+   @Override
+   public void add(int index, T element)
+   {
+      children.add(index, element);
+   }
+
+   @Override
+   public T remove(int index)
+   {
+      return children.remove(index);
+   }
+
+   @Override
+   public boolean remove(Object o)
+   {
+      return children.remove(o);
+   }
+
+   @Override
+   public void clear()
+   {
+      children.clear();
+   }
+
+   @Override
+   public boolean addAll(Collection<? extends T> c)
+   {
+      return children.addAll(c);
+   }
+
+   @Override
+   public boolean addAll(int index, Collection<? extends T> c)
+   {
+      return children.addAll(index, c);
+   }
+
+   @Override
+   public boolean containsAll(Collection<?> c)
+   {
+      return children.containsAll(c);
+   }
+
+   @Override
+   public boolean removeAll(Collection<?> c)
+   {
+      return children.removeAll(c);
+   }
+
+   @Override
+   public boolean retainAll(Collection<?> c)
+   {
+      return children.retainAll(c);
+   }
+
+   @Override
+   public ListIterator<T> listIterator()
+   {
+      return children.listIterator();
+   }
+
+   @Override
+   public ListIterator<T> listIterator(int index)
+   {
+      return children.listIterator(index);
+   }
+
+   @Override
+   public List<T> subList(int fromIndex, int toIndex)
+   {
+      return children.subList(fromIndex, toIndex);
+   }
+}
@@ -0,0 +1,286 @@
+package com.oselan.common.config;
+
+import java.text.ParseException;
+import java.time.ZoneId;
+import java.util.Date;
+
+import org.apache.commons.configuration.HierarchicalConfiguration;
+
+import com.oselan.common.util.ReflectionUtil;
+import com.oselan.common.util.ValueConverter;
+import com.oselan.common.util.ValueConverters;
+
+/***
+ * Fills the fields of a ConfigBean class from the bean configuration.
+ * Binders are generated at compile time by the config binder annotation processor
+ * as a class named {@code <BeanClass>_ConfigBinder} in the package of the bean, nested class names joined by '_'.
+ * When no generated binder exists for a bean class, the reflection based {@link ConfigBindingPlan} is used.
+ * The helper methods are used by generated binders to read values the same way the reflection binding does.
+ * @author Ahmad Hamid
+ * @param <T> the bean class
+ */
+public abstract class ConfigBinder<T extends ConfigBean>
+{
+   /***
+    * Suffix of the generated binder class names
+    */
+   public static final String BINDER_SUFFIX = "_ConfigBinder";
+
+   private static final ClassValue<ConfigBinder<ConfigBean>> BINDERS = new ClassValue<ConfigBinder<ConfigBean>>()
+   {
+      @Override
+      protected ConfigBinder<ConfigBean> computeValue(Class<?> beanClass)
+      {
+         ConfigBinder<ConfigBean> binder = loadGeneratedBinder(beanClass);
+         return binder != null ? binder : ConfigBindingPlan.forClass(beanClass);
+      }
+   };
+
+   /***
+    * Returns the binder of the bean class, the generated one if available otherwise the reflection binding plan.
+    * @param beanClass
+    * @return
+    */
+   static ConfigBinder<ConfigBean> forClass(Class<?> beanClass)
+   {
+      return BINDERS.get(beanClass);
+   }
+
+   /***
+    * Returns the name of the generated binder class of a bean class
+    * @param beanClass
+    * @return
+    */
+   static String getBinderClassName(Class<?> beanClass)
+   {
+      String className = beanClass.getName();
+      int packageEnd = className.lastIndexOf('.');
+      String packagePrefix = packageEnd < 0 ? "" : className.substring(0, packageEnd + 1);
+      return packagePrefix + className.substring(packageEnd + 1).replace('$', '_') + BINDER_SUFFIX;
+   }
+
+   @SuppressWarnings("unchecked")
+   private static ConfigBinder<ConfigBean> loadGeneratedBinder(Class<?> beanClass)
+   {
+      ClassLoader classLoader = beanClass.getClassLoader();
+      if(classLoader == null || beanClass.isAnonymousClass() || beanClass.isLocalClass())
+         return null;
+      Class<?> binderClass;
+      try
+      {
+         binderClass = Class.forName(getBinderClassName(beanClass), true, classLoader);
+      }
+      catch(ClassNotFoundException e)
+      {
+         return null;
+      }
+      if(!ConfigBinder.class.isAssignableFrom(binderClass))
+         return null;
+      try
+      {
+         return (ConfigBinder<ConfigBean>) binderClass.getDeclaredConstructor().newInstance();
+      }
+      catch(Exception e)
+      {
+         throw new ConfigException("Failed to instantiate config binder " + binderClass.getName(), e);
+      }
+   }
+
+   /***
+    * Fills all the mapped fields of the bean from its configuration.
+    * @param bean
+    */
+   public abstract void bind(T bean);
+
+   /***
+    * Loads a subconfiguration bean held by a field of the parent bean.
+    * If path is set the subconfiguration is only loaded if it exists and its path is set to path,
+    * otherwise the path of the bean is used.
+    * @param parent bean holding the field
+    * @param fieldBean current value of the field, a new bean is created if it is null
+    * @param fieldType the declared type of the field
+    * @param path path of the field mapping or null if the field is not annotated
+    * @param required if the subconfiguration must exist
+    * @return the bean to set in the field
+    */
+   @SuppressWarnings("unchecked")
+   protected static <S extends IConfig> S bindSubconfig(ConfigBean parent, S fieldBean, Class<S> fieldType, String path, boolean required)
+   {
+      return (S) bindSubconfigField(parent, fieldBean, fieldType, null, path, required);
+   }
+
+   /***
+    * Loads a lazy subconfiguration held by a field of the parent bean, the bean itself is filled on first access. 
+    * see {@link #bindSubconfig(ConfigBean, ConfigBean, Class, String, boolean)}
+    * @param parent bean holding the field
+    * @param fieldBean current value of the field, a new holder is created if it is null
+    * @param beanClass the class of the lazy bean
+    * @param path path of the field mapping or null if the field is not annotated
+    * @param required if the subconfiguration must exist
+    * @return the holder to set in the field
+    */
+   @SuppressWarnings("unchecked")
+   protected static <S extends ConfigBean> LazyConfig<S> bindLazySubconfig(ConfigBean parent, LazyConfig<S> fieldBean, Class<S> beanClass, String path, boolean required)
+   {
+      return (LazyConfig<S>) bindSubconfigField(parent, fieldBean, LazyConfig.class, beanClass, path, required);
+   }
+
+   /***
+    * Loads a subconfiguration held by a field of the parent bean
+    * @param lazyBeanClass the bean class if the field is a LazyConfig otherwise null
+    */
+   @SuppressWarnings({ "unchecked", "rawtypes" })
+   static IConfig bindSubconfigField(ConfigBean parent, IConfig fieldBean, Class<?> fieldType, Class<?> lazyBeanClass, String path, boolean required)
+   {
+      if(path != null && !ConfigPathIndex.exists(parent.getConfig(), path))
+      {
+         if(required)
+            throw new ConfigException("Missing required configuration key : " + path);
+         return fieldBean;
+      }
+      if(fieldBean == null && lazyBeanClass != null)
+         fieldBean = new LazyConfig(lazyBeanClass);
+      else if(fieldBean == null)
+      {
+         try
+         {
+            fieldBean = (IConfig) ReflectionUtil.createInstance(parent, fieldType);
+         }
+         catch(Exception e)
+         {
+            throw new ConfigException("Failed initialize field of type " + fieldType.getName(), e);
+         }
+      }
+      if(path != null && fieldBean instanceof ConfigBean)
+         ((ConfigBean) fieldBean).setPath(path);
+      else if(path != null && fieldBean instanceof LazyConfig)
+         ((LazyConfig<?>) fieldBean).setPath(path);
+      //lazy beans of inner classes are created in the parent like eager ones
+      if(fieldBean instanceof LazyConfig)
+         ((LazyConfig<?>) fieldBean).setEnclosingInstance(parent);
+      parent.readSubconfigBean(fieldBean);
+      return fieldBean;
+   }
+
+   /***
+    * Returns true if value was already parsed into the field of a memoized parser method on the last load of the bean.
+    * see {@link ConfigFieldMapping#memoizeParser()}
+    * @param bean
+    * @param field name of the field
+    * @param value
+    * @return
+    */
+   protected static boolean isParsed(ConfigBean bean, String field, String value)
+   {
+      return bean.isParsed(field, value);
+   }
+
+   /***
+    * Records the value parsed into the field of a memoized parser method after the parser succeeded
+    * @param bean
+    * @param field name of the field
+    * @param value
+    */
+   protected static void setParsed(ConfigBean bean, String field, String value)
+   {
+      bean.setParsed(field, value);
+   }
+
+   /***
+    * Reads the value at path converted by converter
+    * @param config
+    * @param path
+    * @param converter
+    * @param defaultValue converted if the value is missing and not required
+    * @param required
+    * @return
+    */
+   protected static <V> V readValue(HierarchicalConfiguration config, String path, ValueConverter<V> converter, String defaultValue, boolean required)
+   {
+      return convert(converter, required ? config.getString(path) : config.getString(path, defaultValue), path);
+   }
+
+   /***
+    * Converts the value read from path with converter
+    * @param converter
+    * @param value
+    * @param path used in the error message
+    * @return
+    */
+   static <V> V convert(ValueConverter<V> converter, String value, String path)
+   {
+      try
+      {
+         return ValueConverters.convert(converter, value);
+      }
+      catch(Exception e)
+      {
+         throw new ConfigException("Failed to convert value " + value + " of " + path, e);
+      }
+   }
+
+   /***
+    * Reads the first character of the value at path
+    * @param config
+    * @param path
+    * @param defaultValue used if the value is missing and not required
+    * @param required
+    * @return
+    */
+   protected static Character readCharacter(HierarchicalConfiguration config, String path, Character defaultValue, boolean required)
+   {
+      String value = required ? config.getString(path) : config.getString(path, null);
+      return value == null ? defaultValue : value.charAt(0);
+   }
+
+   /***
+    * Reads the enum constant named by the value at path
+    * @param config
+    * @param path
+    * @param enumType
+    * @param defaultValue used if the value is missing and not required
+    * @param required
+    * @return
+    */
+   protected static <E extends Enum<E>> E readEnum(HierarchicalConfiguration config, String path, Class<E> enumType, E defaultValue, boolean required)
+   {
+      String value = required ? config.getString(path) : config.getString(path, null);
+      return value == null ? defaultValue : convert(ValueConverters.forType(enumType), value, path);
+   }
+
+   /***
+    * Reads a date in {@link ReflectionUtil#DEFAULT_DATE_FORMAT} from path.
+    * The time of the returned date is set to the current time of day.
+    * @param config
+    * @param path
+    * @param defaultValue used if the value is missing and not required, see {@link #parseDefaultDate(String)}
+    * @param required
+    * @return
+    */
+   protected static Date readDate(HierarchicalConfiguration config, String path, Date defaultValue, boolean required)
+   {
+      String value = required ? config.getString(path) : config.getString(path, null);
+      if(value == null)
+         return defaultValue == null ? null : ValueConverters.atCurrentTime(defaultValue.toInstant().atZone(ZoneId.systemDefault()).toLocalDate());
+      return convert(ValueConverters.forType(Date.class), value, path);
+   }
+
+   /***
+    * Parses a default date value in {@link ReflectionUtil#DEFAULT_DATE_FORMAT}
+    * @param defaultValue
+    * @return
+    */
+   protected static Date parseDefaultDate(String defaultValue)
+   {
+      if(defaultValue == null)
+         return null;
+      try
+      {
+         return Date.from(ValueConverters.parseDefaultDate(defaultValue).atStartOfDay(ZoneId.systemDefault()).toInstant());
+      }
+      catch(ParseException e)
+      {
+         throw new ConfigException("Failed to parse date" + defaultValue, e);
+      }
+   }
+}
@@ -0,0 +1,565 @@
+package com.oselan.common.config;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.configuration.ConversionException;
+import org.apache.commons.configuration.HierarchicalConfiguration;
+import org.apache.commons.configuration.PropertyConverter;
+
+import com.oselan.common.util.ValueConverter;
+import com.oselan.common.util.ValueConverters;
+
+/***
+ * Immutable description of how the fields of a ConfigBean class are filled from configuration.
+ * A plan is built once per bean class, the first time a bean of that class is read, and is cached in a ClassValue.
+ * Building the plan does all the reflection work: scanning declared fields, parsing the annotations,
+ * resolving fields and parser methods to MethodHandles and parsing default values to the field type.
+ * Binding a bean afterwards only reads values from configuration and invokes the handles.
+ * The field keys are compiled when the plan is built, see {@link ConfigPathIndex}.
+ * Used for bean classes that have no generated {@link ConfigBinder}.
+ * @author Ahmad Hamid
+ */
+final class ConfigBindingPlan extends ConfigBinder<ConfigBean>
+{
+   private static final ClassValue<ConfigBindingPlan> PLANS = new ClassValue<ConfigBindingPlan>()
+   {
+      @Override
+      protected ConfigBindingPlan computeValue(Class<?> beanClass)
+      {
+         return new ConfigBindingPlan(beanClass);
+      }
+   };
+
+   private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+   private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+   private static final MethodType PARSER_TYPE = MethodType.methodType(void.class, Object.class, String.class);
+
+   /***
+    * Returns the cached plan of the bean class, building it on first use.
+    * @param beanClass
+    * @return
+    */
+   static ConfigBindingPlan forClass(Class<?> beanClass)
+   {
+      return PLANS.get(beanClass);
+   }
+
+   private final FieldBinding[] bindings;
+
+   private ConfigBindingPlan(Class<?> beanClass)
+   {
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      List<FieldBinding> fieldBindings = new ArrayList<FieldBinding>();
+      for(Field field : beanClass.getDeclaredFields())
+      {
+         if(field.isSynthetic() || Modifier.isStatic(field.getModifiers()))
+            continue;
+         ConfigFieldMapping mapping = field.getAnnotation(ConfigFieldMapping.class);
+         if(IConfig.class.isAssignableFrom(field.getType()))
+            fieldBindings.add(new SubconfigBinding(lookup, field, mapping));
+         else if(mapping != null)
+         {
+            String parserMethod = mapping.parserMethod().equals(ConfigFieldMapping.UNDEFINED_VALUE) ? null : mapping.parserMethod().trim();
+            if(parserMethod != null && !parserMethod.isEmpty())
+               fieldBindings.add(new ParserBinding(lookup, field, mapping, parserMethod));
+            else
+               fieldBindings.add(new ValueBinding(lookup, field, mapping));
+         }
+      }
+      bindings = fieldBindings.toArray(new FieldBinding[fieldBindings.size()]);
+   }
+
+   /***
+    * Fills all the mapped fields of the bean from its configuration.
+    * @param bean
+    */
+   @Override
+   public void bind(ConfigBean bean)
+   {
+      for(FieldBinding binding : bindings)
+         binding.bind(bean);
+   }
+
+   /***
+    * A mapped field is required if it has no default value
+    * @param mapping
+    * @return
+    */
+   private static boolean isRequired(ConfigFieldMapping mapping)
+   {
+      return mapping.defaultValue().equals(ConfigFieldMapping.UNDEFINED_VALUE);
+   }
+
+   /***
+    * Returns the default value text of the mapping or null if it is "null" or undefined.
+    * @param mapping
+    * @return
+    */
+   private static String getDefaultValue(ConfigFieldMapping mapping)
+   {
+      String defaultValue = mapping.defaultValue();
+      return defaultValue.equals(ConfigFieldMapping.NULL_VALUE) || defaultValue.equals(ConfigFieldMapping.UNDEFINED_VALUE) ? null : defaultValue;
+   }
+
+   private static MethodHandle setterOf(MethodHandles.Lookup lookup, Field field)
+   {
+      try
+      {
+         field.setAccessible(true);
+         return lookup.unreflectSetter(field).asType(SETTER_TYPE);
+      }
+      catch(Exception e)
+      {
+         throw new ConfigException("Failed to access field " + field, e);
+      }
+   }
+
+   /***
+    * Binding of a single field.
+    */
+   private abstract static class FieldBinding
+   {
+      protected final Field field;
+      protected final MethodHandle setter;
+
+      FieldBinding(MethodHandles.Lookup lookup, Field field)
+      {
+         this.field = field;
+         this.setter = setterOf(lookup, field);
+      }
+
+      abstract void bind(ConfigBean bean);
+
+      protected void set(ConfigBean bean, Object value)
+      {
+         try
+         {
+            setter.invokeExact((Object) bean, value);
+         }
+         catch(Throwable e)
+         {
+            throw new ConfigException("Failed to set value of config to field: " + field, e);
+         }
+      }
+   }
+
+   /***
+    * Field of a type implementing IConfig representing a subconfiguration.
+    * The bean in the field is created if null and loaded from the path of the annotation or of the bean itself.
+    * LazyConfig fields are created with the bean class of their type argument.
+    */
+   private static final class SubconfigBinding extends FieldBinding
+   {
+      private final MethodHandle getter;
+      private final Class<?> lazyBeanClass;
+      private final String path;
+      private final boolean required;
+
+      SubconfigBinding(MethodHandles.Lookup lookup, Field field, ConfigFieldMapping mapping)
+      {
+         super(lookup, field);
+         this.lazyBeanClass = LazyConfig.class.equals(field.getType()) ? getLazyBeanClass(field) : null;
+         try
+         {
+            this.getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+         }
+         catch(IllegalAccessException e)
+         {
+            throw new ConfigException("Failed to access field " + field, e);
+         }
+         this.path = mapping == null ? null : mapping.value();
+         this.required = mapping != null && isRequired(mapping);
+      }
+
+      @Override
+      void bind(ConfigBean bean)
+      {
+         try
+         {
+            IConfig fieldBean = (IConfig) (Object) getter.invokeExact((Object) bean);
+            IConfig boundBean = bindSubconfigField(bean, fieldBean, field.getType(), lazyBeanClass, path, required);
+            if(boundBean != fieldBean)
+               setter.invokeExact((Object) bean, (Object) boundBean);
+         }
+         catch(ConfigException e)
+         {
+            throw e;
+         }
+         catch(Throwable e)
+         {
+            throw new ConfigException("Failed initialize or set field " + field, e);
+         }
+      }
+   }
+
+   /***
+    * Returns the bean class declared as type argument of a LazyConfig field
+    * @param field
+    * @return
+    */
+   private static Class<?> getLazyBeanClass(Field field)
+   {
+      Type type = field.getGenericType();
+      if(type instanceof ParameterizedType)
+      {
+         Type beanType = ((ParameterizedType) type).getActualTypeArguments()[0];
+         if(beanType instanceof Class)
+            return (Class<?>) beanType;
+      }
+      throw new ConfigException("LazyConfig field must declare its bean class: " + field);
+   }
+
+   /***
+    * Field filled by a parser method accepting the string value.
+    */
+   private static final class ParserBinding extends FieldBinding
+   {
+      private final MethodHandle parser;
+      private final String parserMethod;
+      private final ConfigPathIndex.Key key;
+      private final String defaultValue;
+      private final boolean required;
+      private final boolean memoized;
+
+      ParserBinding(MethodHandles.Lookup lookup, Field field, ConfigFieldMapping mapping, String parserMethod)
+      {
+         super(lookup, field);
+         this.parserMethod = parserMethod;
+         this.key = ConfigPathIndex.compile(mapping.value());
+         this.defaultValue = getDefaultValue(mapping);
+         this.required = isRequired(mapping);
+         this.memoized = mapping.memoizeParser();
+         try
+         {
+            Method method = field.getDeclaringClass().getMethod(parserMethod, String.class);
+            method.setAccessible(true);
+            this.parser = lookup.unreflect(method).asType(PARSER_TYPE);
+         }
+         catch(Exception e)
+         {
+            throw new ConfigException("Parser method " + parserMethod + " not found on " + field.getDeclaringClass(), e);
+         }
+      }
+
+      @Override
+      void bind(ConfigBean bean)
+      {
+         HierarchicalConfiguration config = bean.getConfig();
+         String value = ConfigPathIndex.getString(config, key, defaultValue, required);
+         if(memoized && bean.isParsed(field.getName(), value))
+            return;
+         try
+         {
+            parser.invokeExact((Object) bean, value);
+         }
+         catch(ConfigException e)
+         {
+            throw e;
+         }
+         catch(Throwable e)
+         {
+            throw new ConfigException("Parser method " + parserMethod + " failed on " + field.getDeclaringClass(), e);
+         }
+         if(memoized)
+            bean.setParsed(field.getName(), value);
+      }
+   }
+
+   /***
+    * Field of a basic type read and converted from the configuration value.
+    * Types the configuration converts itself are read like its typed getters with the compiled key, other types are converted
+    * by the converter of the mapping or the one registered for the type, resolved once per field.
+    */
+   private static final class ValueBinding extends FieldBinding
+   {
+      private final ValueType valueType;
+      private final ValueConverter<?> converter;
+      private final ConfigPathIndex.Key key;
+      private final Object defaultValue;
+      private final boolean required;
+
+      ValueBinding(MethodHandles.Lookup lookup, Field field, ConfigFieldMapping mapping)
+      {
+         super(lookup, field);
+         this.converter = getConverter(field, mapping);
+         this.valueType = converter == null ? ValueType.of(field.getType()) : null;
+         this.key = ConfigPathIndex.compile(mapping.value());
+         this.required = isRequired(mapping);
+         try
+         {
+            if(converter != null)
+            {
+               //converted on every read e.g. dates take the current time, validated once here
+               this.defaultValue = required ? null : getDefaultValue(mapping);
+               ValueConverters.convert(converter, (String) defaultValue);
+            }
+            else
+               this.defaultValue = required ? null : valueType.parseDefault(field.getType(), getDefaultValue(mapping));
+         }
+         catch(Exception e)
+         {
+            throw new ConfigException("Invalid default value " + mapping.defaultValue() + " for field " + field, e);
+         }
+      }
+
+      @Override
+      void bind(ConfigBean bean)
+      {
+         if(converter != null)
+            set(bean, convert(converter, ConfigPathIndex.getString(bean.getConfig(), key, (String) defaultValue, required), key.getText()));
+         else
+            set(bean, valueType.read(bean.getConfig(), key, defaultValue, required));
+      }
+   }
+
+   /***
+    * Returns the converter of the mapping or the registered converter of a type the configuration does not convert,
+    * null if the field is read with a typed getter
+    * @param field
+    * @param mapping
+    * @return
+    */
+   private static ValueConverter<?> getConverter(Field field, ConfigFieldMapping mapping)
+   {
+      if(mapping.converter() != ValueConverter.class)
+      {
+         try
+         {
+            Constructor<?> constructor = mapping.converter().getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return (ValueConverter<?>) constructor.newInstance();
+         }
+         catch(Exception e)
+         {
+            throw new ConfigException("Failed to create converter " + mapping.converter().getName() + " of field " + field, e);
+         }
+      }
+      if(ValueType.of(field.getType()) != ValueType.STRING || field.getType().isAssignableFrom(String.class))
+         return null;
+      return ValueConverters.forType(field.getType());
+   }
+
+   /***
+    * Field types the configuration converts itself, read like its typed getters and resolved once per field.
+    * Each type knows how to parse its default value and read itself from the configuration.
+    */
+   private enum ValueType
+   {
+      LIST
+      {
+         @Override
+         Object parseDefault(Class<?> type, String defaultValue)
+         {
+            return defaultValue == null ? null : Arrays.asList(defaultValue.split(","));
+         }
+
+         @Override
+         Object read(HierarchicalConfiguration config, ConfigPathIndex.Key key, Object defaultValue, boolean required)
+         {
+            //all the values of key, not only the first one
+            return ConfigPathIndex.getList(config, key, (List<?>) defaultValue, required);
+         }
+
+         @Override
+         Object readRequired(HierarchicalConfiguration config, String path)
+         {
+            return config.getList(path);
+         }
+
+         @Override
+         Object convert(String value)
+         {
+            return Collections.singletonList(value);
+         }
+      },
+      BOOLEAN
+      {
+         @Override
+         Object parseDefault(Class<?> type, String defaultValue)
+         {
+            return Boolean.valueOf(defaultValue);
+         }
+
+         @Override
+         Object readRequired(HierarchicalConfiguration config, String path)
+         {
+            return config.getBoolean(path);
+         }
+
+         @Override
+         Object convert(String value)
+         {
+            return PropertyConverter.toBoolean(value);
+         }
+      },
+      INTEGER
+      {
+         @Override
+         Object parseDefault(Class<?> type, String defaultValue)
+         {
+            return defaultValue == null ? null : Integer.valueOf(defaultValue);
+         }
+
+         @Override
+         Object readRequired(HierarchicalConfiguration config, String path)
+         {
+            return config.getInt(path);
+         }
+
+         @Override
+         Object convert(String value)
+         {
+            return PropertyConverter.toInteger(value);
+         }
+      },
+      LONG
+      {
+         @Override
+         Object parseDefault(Class<?> type, String defaultValue)
+         {
+            return defaultValue == null ? null : Long.valueOf(defaultValue);
+         }
+
+         @Override
+         Object readRequired(HierarchicalConfiguration config, String path)
+         {
+            return config.getLong(path);
+         }
+
+         @Override
+         Object convert(String value)
+         {
+            return PropertyConverter.toLong(value);
+         }
+      },
+      FLOAT
+      {
+         @Override
+         Object parseDefault(Class<?> type, String defaultValue)
+         {
+            return defaultValue == null ? null : Float.valueOf(defaultValue);
+         }
+
+         @Override
+         Object readRequired(HierarchicalConfiguration config, String path)
+         {
+            return config.getFloat(path);
+         }
+
+         @Override
+         Object convert(String value)
+         {
+            return PropertyConverter.toFloat(value);
+         }
+      },
+      DOUBLE
+      {
+         @Override
+         Object parseDefault(Class<?> type, String defaultValue)
+         {
+            return defaultValue == null ? null : Double.valueOf(defaultValue);
+         }
+
+         @Override
+         Object readRequired(HierarchicalConfiguration config, String path)
+         {
+            return config.getDouble(path);
+         }
+
+         @Override
+         Object convert(String value)
+         {
+            return PropertyConverter.toDouble(value);
+         }
+      },
+      STRING
+      {
+         @Override
+         Object parseDefault(Class<?> type, String defaultValue)
+         {
+            return defaultValue;
+         }
+
+         @Override
+         Object readRequired(HierarchicalConfiguration config, String path)
+         {
+            return config.getString(path);
+         }
+
+         @Override
+         Object convert(String value)
+         {
+            return value;
+         }
+      };
+
+      abstract Object parseDefault(Class<?> type, String defaultValue) throws Exception;
+
+      /***
+       * Reads the value of key like the typed getter of the configuration, with the compiled key
+       * @param config
+       * @param key
+       * @param defaultValue returned if the value is missing and not required
+       * @param required if a missing value is read with the typed getter, which fails for a missing value
+       * @return
+       */
+      Object read(HierarchicalConfiguration config, ConfigPathIndex.Key key, Object defaultValue, boolean required)
+      {
+         String value = ConfigPathIndex.getString(config, key, null, false);
+         if(value == null)
+            return required ? readRequired(config, key.getText()) : defaultValue;
+         try
+         {
+            return convert(value);
+         }
+         catch(ConversionException e)
+         {
+            throw new ConversionException('\'' + key.getText() + "' doesn't map to a " + name().charAt(0) + name().substring(1).toLowerCase() + " object", e);
+         }
+      }
+
+      /***
+       * Reads a required value with the typed getter of the configuration
+       */
+      abstract Object readRequired(HierarchicalConfiguration config, String path);
+
+      /***
+       * Converts a string value like the typed getter of the configuration
+       */
+      abstract Object convert(String value);
+
+      /***
+       * Resolves the value type of a field type, any other type is read as a string unless a converter is registered for it.
+       * @param fieldType
+       * @return
+       */
+      static ValueType of(Class<?> fieldType)
+      {
+         if(List.class.isAssignableFrom(fieldType))
+            return LIST;
+         if(fieldType.equals(Boolean.class) || fieldType.equals(boolean.class))
+            return BOOLEAN;
+         if(Integer.class.isAssignableFrom(fieldType) || fieldType.equals(int.class))
+            return INTEGER;
+         if(Long.class.isAssignableFrom(fieldType) || fieldType.equals(long.class))
+            return LONG;
+         if(Float.class.isAssignableFrom(fieldType) || fieldType.equals(float.class))
+            return FLOAT;
+         if(Double.class.isAssignableFrom(fieldType) || fieldType.equals(double.class))
+            return DOUBLE;
+         return STRING;
+      }
+   }
+}
@@ -0,0 +1,270 @@
+package com.oselan.common.config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.configuration.ConfigurationException;
+import org.apache.commons.configuration.HierarchicalConfiguration;
+import org.apache.commons.configuration.XMLConfiguration;
+import org.apache.commons.configuration.tree.ConfigurationNode;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.oselan.common.file.FileUtil;
+
+/***
+ * Keeps the parsed node tree of configuration files in binary cache files so the xml is not parsed again
+ * while the file content does not change.
+ * A cache file is named after the path of the configuration file and holds the SHA-256 digest of the content
+ * it was parsed from, followed by a string table of the node names and values and the nodes in pre-order.
+ * A missing, outdated or unreadable cache file falls back to parsing the xml and rewriting the cache file.
+ * @author Ahmad Hamid
+ */
+final class ConfigCache
+{
+   private static final Logger log = LogManager.getLogger(ConfigCache.class);
+   private static final int MAGIC = 0x58434647;
+   private static final int VERSION = 1;
+   private static final int NULL_INDEX = -1;
+   private static final String CACHE_EXTENSION = ".cfgcache";
+   private static final Charset UTF8 = Charset.forName("UTF-8");
+
+   private final File directory;
+
+   /***
+    * @param directory directory of the cache files, created if missing
+    */
+   ConfigCache(File directory)
+   {
+      this.directory = directory;
+   }
+
+   /***
+    * Loads the configuration file from its cache file if the content did not change, otherwise parses it
+    * and writes the cache file.
+    * @param path path of the configuration file
+    * @return
+    * @throws ConfigurationException if the file can not be read or parsed
+    */
+   XMLConfiguration load(String path) throws ConfigurationException
+   {
+      byte[] content;
+      try
+      {
+         content = Files.readAllBytes(new File(path).toPath());
+      }
+      catch(IOException e)
+      {
+         throw new ConfigurationException("Failed to read configuration file " + path, e);
+      }
+      byte[] digest = digest(content);
+      File cacheFile = getCacheFile(path);
+      XMLConfiguration config = read(cacheFile, path, digest);
+      if(config != null)
+      {
+         log.debug("Configuration loaded from cache " + cacheFile);
+         return config;
+      }
+      config = new XMLConfiguration();
+      config.load(new ByteArrayInputStream(content));
+      write(cacheFile, path, digest, config);
+      return config;
+   }
+
+   /***
+    * The cache file of a configuration file
+    * @param path
+    * @return
+    */
+   File getCacheFile(String path)
+   {
+      String absolutePath = new File(path).getAbsolutePath();
+      byte[] pathDigest = digest(absolutePath.getBytes(UTF8));
+      StringBuilder name = new StringBuilder(new File(path).getName()).append('_');
+      for(int i = 0; i < 8; i++)
+         name.append(String.format("%02x", pathDigest[i]));
+      return new File(directory, name.append(CACHE_EXTENSION).toString());
+   }
+
+   /***
+    * Reads the cached configuration if the cache file exists and was written for the same path and content
+    * @return the configuration or null
+    */
+   private XMLConfiguration read(File cacheFile, String path, byte[] digest)
+   {
+      if(!cacheFile.isFile())
+         return null;
+      try
+      {
+         ByteBuffer buffer;
+         FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ);
+         try
+         {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+         }
+         finally
+         {
+            channel.close();
+         }
+         if(buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+            return null;
+         if(!new File(path).getAbsolutePath().equals(readString(buffer)))
+            return null;
+         byte[] cachedDigest = new byte[buffer.getInt()];
+         buffer.get(cachedDigest);
+         if(!Arrays.equals(digest, cachedDigest))
+            return null;
+         String[] strings = new String[buffer.getInt()];
+         for(int i = 0; i < strings.length; i++)
+            strings[i] = readString(buffer);
+         HierarchicalConfiguration.Node root = readNode(buffer, strings);
+         XMLConfiguration config = new XMLConfiguration();
+         config.setRootElementName(root.getName());
+         config.setRootNode(root);
+         return config;
+      }
+      catch(IOException e)
+      {
+         log.warn("Failed to read configuration cache " + cacheFile, e);
+      }
+      catch(RuntimeException e)
+      {
+         //truncated or corrupted cache file
+         log.warn("Invalid configuration cache " + cacheFile, e);
+      }
+      return null;
+   }
+
+   private static HierarchicalConfiguration.Node readNode(ByteBuffer buffer, String[] strings)
+   {
+      HierarchicalConfiguration.Node node = new HierarchicalConfiguration.Node(string(buffer, strings), string(buffer, strings));
+      int attributeCount = buffer.getInt();
+      for(int i = 0; i < attributeCount; i++)
+      {
+         HierarchicalConfiguration.Node attribute = new HierarchicalConfiguration.Node(string(buffer, strings), string(buffer, strings));
+         attribute.setAttribute(true);
+         node.addAttribute(attribute);
+      }
+      int childCount = buffer.getInt();
+      for(int i = 0; i < childCount; i++)
+         node.addChild(readNode(buffer, strings));
+      return node;
+   }
+
+   private static String string(ByteBuffer buffer, String[] strings)
+   {
+      int index = buffer.getInt();
+      return index == NULL_INDEX ? null : strings[index];
+   }
+
+   private static String readString(ByteBuffer buffer)
+   {
+      int length = buffer.getInt();
+      if(length > buffer.remaining())
+         throw new BufferUnderflowException();
+      byte[] bytes = new byte[length];
+      buffer.get(bytes);
+      return new String(bytes, UTF8);
+   }
+
+   /***
+    * Writes the cache file, failures are logged as the cache is optional
+    */
+   private void write(File cacheFile, String path, byte[] digest, XMLConfiguration config)
+   {
+      try
+      {
+         Map<String, Integer> stringIndexes = new HashMap<String, Integer>();
+         ByteArrayOutputStream nodeBytes = new ByteArrayOutputStream();
+         DataOutputStream nodes = new DataOutputStream(nodeBytes);
+         writeNode(nodes, config.getRootNode(), stringIndexes);
+         nodes.flush();
+
+         String[] strings = new String[stringIndexes.size()];
+         for(Map.Entry<String, Integer> entry : stringIndexes.entrySet())
+            strings[entry.getValue()] = entry.getKey();
+         ByteArrayOutputStream bytes = new ByteArrayOutputStream(nodeBytes.size() * 2);
+         DataOutputStream out = new DataOutputStream(bytes);
+         out.writeInt(MAGIC);
+         out.writeInt(VERSION);
+         writeString(out, new File(path).getAbsolutePath());
+         out.writeInt(digest.length);
+         out.write(digest);
+         out.writeInt(strings.length);
+         for(String string : strings)
+            writeString(out, string);
+         nodeBytes.writeTo(out);
+         out.flush();
+
+         directory.mkdirs();
+         FileUtil.writeAtomically(cacheFile, bytes.toByteArray());
+      }
+      catch(IOException e)
+      {
+         log.warn("Failed to write configuration cache " + cacheFile, e);
+      }
+   }
+
+   private static void writeNode(DataOutputStream out, ConfigurationNode node, Map<String, Integer> stringIndexes) throws IOException
+   {
+      out.writeInt(index(node.getName(), stringIndexes));
+      out.writeInt(index(node.getValue(), stringIndexes));
+      List<?> attributes = node.getAttributes();
+      out.writeInt(attributes.size());
+      for(Object attribute : attributes)
+      {
+         ConfigurationNode attributeNode = (ConfigurationNode) attribute;
+         out.writeInt(index(attributeNode.getName(), stringIndexes));
+         out.writeInt(index(attributeNode.getValue(), stringIndexes));
+      }
+      List<?> children = node.getChildren();
+      out.writeInt(children.size());
+      for(Object child : children)
+         writeNode(out, (ConfigurationNode) child, stringIndexes);
+   }
+
+   private static int index(Object value, Map<String, Integer> stringIndexes)
+   {
+      if(value == null)
+         return NULL_INDEX;
+      String string = value.toString();
+      Integer index = stringIndexes.get(string);
+      if(index == null)
+         stringIndexes.put(string, index = stringIndexes.size());
+      return index;
+   }
+
+   private static void writeString(DataOutputStream out, String string) throws IOException
+   {
+      byte[] bytes = string.getBytes(UTF8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+   }
+
+   private static byte[] digest(byte[] content)
+   {
+      try
+      {
+         return MessageDigest.getInstance("SHA-256").digest(content);
+      }
+      catch(NoSuchAlgorithmException e)
+      {
+         throw new IllegalStateException("SHA-256 is not supported", e);
+      }
+   }
+}
@@ -5,12 +5,16 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import com.oselan.common.util.ValueConverter;
+
 /***
  * Anotation used to define the path of a field used to fill a property on that class
  * path is required and is the path to read config values from. 
  * parserMethod a method that accepts a string parameter
  *  called to set parse the value from string otherwise field will be set based on its type.
  * defaultValue if available the value will be used if property is missing. 
+ * memoizeParser skips the parserMethod on reload if the value did not change.
+ * converter a converter class used instead of the converter registered for the field type see {@link com.oselan.common.util.ValueConverters}.
  * @author Ahmad 
  */
 @Target({ElementType.FIELD}) 
@@ -28,11 +32,24 @@ public @interface ConfigFieldMapping {
     * @return
     */
    String parserMethod() default UNDEFINED_VALUE; 
+   /***
+    * If the parserMethod is only called when the value changed since the bean was last loaded, for parsers that are
+    * expensive e.g. compile patterns or read certificates. The parser must only depend on the value.
+    * A new bean instance, e.g. a bean of a new snapshot, is always parsed.
+    * @return
+    */
+   boolean memoizeParser() default false;
    /***
     * String, "null" is === null  , otherwise must be a string value, e.g. boolean "true" or "false"
     * @return
     */
    String defaultValue()  default UNDEFINED_VALUE;
+   /***
+    * Converter of the value with a no argument constructor, e.g. {@link com.oselan.common.util.ByteSizeConverter}
+    * @return
+    */
+   @SuppressWarnings("rawtypes")
+   Class<? extends ValueConverter> converter() default ValueConverter.class;
    
    
 }
@@ -0,0 +1,257 @@
+package com.oselan.common.config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.ScheduledFuture;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/***
+ * Watches a configuration file for changes using the events of its directory, dispatched by a {@link ConfigReloadScheduler}.
+ * Events are debounced, a change is reported once no more events arrive for the debounce delay.
+ * The file is compared by its real path, file key, size and modification time so that replacing the file by
+ * an atomic rename or swapping a symlink (e.g. kubernetes ConfigMap volumes) is detected, the directory of the
+ * symlink target is watched as well.
+ * The file is also polled in case the file system does not report events (e.g. NFS), the poll delay doubles
+ * after every check that finds no change up to the maximum and is randomized so that processes sharing a file
+ * do not check it at the same time.
+ * @author Ahmad Hamid
+ */
+final class ConfigFileWatcher
+{
+   private static final Logger log = LogManager.getLogger(ConfigFileWatcher.class);
+
+   private final ConfigReloadScheduler scheduler;
+   private final Path file;
+   private final long debounceMillis;
+   private final long minPollMillis;
+   private final long maxPollMillis;
+   private final Runnable onChange;
+   private final Runnable check = new Runnable()
+   {
+      @Override
+      public void run()
+      {
+         checkForChange();
+      }
+   };
+   private volatile FileState state;
+   private volatile boolean active;
+   /***
+    * Current poll delay, guarded by this
+    */
+   private long pollMillis;
+   private ScheduledFuture<?> nextCheck;
+   /***
+    * Watched directory of the symlink target, guarded by this
+    */
+   private Path targetDirectory;
+
+   /***
+    * @param scheduler scheduler running the checks
+    * @param fileName file to watch
+    * @param debounceMillis quiet time after the last event before the file is checked
+    * @param minPollMillis delay between checks after a change
+    * @param maxPollMillis maximum delay between checks
+    * @param onChange called on a scheduler thread when the file changed
+    */
+   ConfigFileWatcher(ConfigReloadScheduler scheduler, String fileName, long debounceMillis, long minPollMillis, long maxPollMillis, Runnable onChange)
+   {
+      this.scheduler = scheduler;
+      this.file = Paths.get(fileName).toAbsolutePath();
+      this.debounceMillis = debounceMillis;
+      this.minPollMillis = minPollMillis;
+      this.maxPollMillis = Math.max(minPollMillis, maxPollMillis);
+      this.onChange = onChange;
+      this.state = FileState.of(file);
+   }
+
+   /***
+    * The watched file
+    * @return
+    */
+   Path getFile()
+   {
+      return file;
+   }
+
+   /***
+    * Current delay between checks
+    * @return
+    */
+   synchronized long getPollMillis()
+   {
+      return pollMillis;
+   }
+
+   /***
+    * Takes the current state of the file as unchanged, e.g. after the file was saved by the provider.
+    */
+   void markCurrent()
+   {
+      state = FileState.of(file);
+   }
+
+   /***
+    * Starts watching the file
+    */
+   synchronized void start()
+   {
+      active = true;
+      pollMillis = minPollMillis;
+      registerDirectories();
+      scheduleCheck(ConfigReloadScheduler.jitter(pollMillis));
+   }
+
+   /***
+    * If the file is watched
+    * @return
+    */
+   boolean isActive()
+   {
+      return active;
+   }
+
+   /***
+    * Stops watching the file
+    */
+   synchronized void shutdown()
+   {
+      active = false;
+      if(nextCheck != null)
+         nextCheck.cancel(false);
+      scheduler.unwatch(this);
+      targetDirectory = null;
+      log.debug("Stopped watching configuration " + file);
+   }
+
+   /***
+    * Called on an event in a watched directory, delays the check until the events stop
+    */
+   synchronized void onEvent()
+   {
+      if(!active)
+         return;
+      pollMillis = minPollMillis;
+      scheduleCheck(debounceMillis);
+   }
+
+   private void scheduleCheck(long delayMillis)
+   {
+      if(nextCheck != null)
+         nextCheck.cancel(false);
+      nextCheck = scheduler.schedule(check, delayMillis);
+   }
+
+   /***
+    * Reports a change if the file exists and differs from the last known state and schedules the next check
+    */
+   private void checkForChange()
+   {
+      synchronized(this)
+      {
+         if(!active)
+            return;
+         registerDirectories();
+         FileState current = FileState.of(file);
+         boolean changed = current != null && !current.equals(state);
+         if(changed)
+            state = current;
+         //back off while the file does not change
+         pollMillis = changed ? minPollMillis : Math.min(pollMillis * 2, maxPollMillis);
+         scheduleCheck(ConfigReloadScheduler.jitter(pollMillis));
+         if(!changed)
+            return;
+      }
+      log.info("Configuration Source Changed  ... reloading configuration!");
+      try
+      {
+         onChange.run();
+      }
+      catch(RuntimeException e)
+      {
+         log.error("Failed to reload configuration", e);
+      }
+   }
+
+   /***
+    * Watches the directory of the file and the directory of its symlink target,
+    * the directory of the previous target is no longer watched once the symlink is swapped
+    */
+   private void registerDirectories()
+   {
+      Path directory = file.getParent();
+      if(directory != null)
+         scheduler.watchDirectory(this, directory);
+      Path target;
+      try
+      {
+         target = file.toRealPath().getParent();
+      }
+      catch(IOException e)
+      {
+         //file is missing during a swap
+         return;
+      }
+      if(targetDirectory != null && !targetDirectory.equals(target) && !targetDirectory.equals(directory))
+         scheduler.unwatchDirectory(this, targetDirectory);
+      targetDirectory = target;
+      if(target != null)
+         scheduler.watchDirectory(this, target);
+   }
+
+   /***
+    * Identity and version of the file content
+    */
+   private static final class FileState
+   {
+      private final Path realPath;
+      private final Object fileKey;
+      private final long size;
+      private final long lastModified;
+
+      private FileState(Path realPath, BasicFileAttributes attributes)
+      {
+         this.realPath = realPath;
+         this.fileKey = attributes.fileKey();
+         this.size = attributes.size();
+         this.lastModified = attributes.lastModifiedTime().toMillis();
+      }
+
+      /***
+       * Returns the state of the file or null if it does not exist
+       */
+      static FileState of(Path file)
+      {
+         try
+         {
+            Path realPath = file.toRealPath();
+            return new FileState(realPath, Files.readAttributes(realPath, BasicFileAttributes.class));
+         }
+         catch(IOException e)
+         {
+            return null;
+         }
+      }
+
+      @Override
+      public boolean equals(Object obj)
+      {
+         if(!(obj instanceof FileState))
+            return false;
+         FileState other = (FileState) obj;
+         return realPath.equals(other.realPath) && (fileKey == null ? other.fileKey == null : fileKey.equals(other.fileKey))
+            && size == other.size && lastModified == other.lastModified;
+      }
+
+      @Override
+      public int hashCode()
+      {
+         return realPath.hashCode();
+      }
+   }
+}
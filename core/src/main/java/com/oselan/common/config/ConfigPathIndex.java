@@ -0,0 +1,400 @@
+package com.oselan.common.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.configuration.HierarchicalConfiguration;
+import org.apache.commons.configuration.PropertyConverter;
+import org.apache.commons.configuration.event.ConfigurationEvent;
+import org.apache.commons.configuration.event.ConfigurationListener;
+import org.apache.commons.configuration.tree.ConfigurationNode;
+import org.apache.commons.configuration.tree.DefaultConfigurationKey;
+import org.apache.commons.configuration.tree.DefaultExpressionEngine;
+import org.apache.commons.configuration.tree.ExpressionEngine;
+import org.apache.commons.configuration.tree.NodeAddData;
+
+/***
+ * Expression engine answering key queries from an index of the loaded configuration tree.
+ * The index maps a node and child name to the children of that name, the children of a node are indexed the first
+ * time a key is resolved through it so only the sections read by the beans are indexed, e.g. a tree of the flat parser
+ * is not copied into node objects. Keys are compiled once into their parts and cached, so resolving a key costs one
+ * map lookup per key part instead of parsing the key and searching the children of every node on the way.
+ * The index is installed on the loaded configuration and inherited by the subconfigurations of the beans,
+ * see {@link #install(HierarchicalConfiguration)}. Queries return the same nodes in the same order as the
+ * default expression engine. Once the tree is modified, e.g. by a writable bean, the index is dropped and
+ * queries are answered by the default engine until the next load.
+ * @author Ahmad Hamid
+ */
+final class ConfigPathIndex implements ExpressionEngine, ConfigurationListener
+{
+   /***
+    * Maximum number of cached compiled keys, keys built at runtime e.g. with indexes are compiled on every use beyond it
+    */
+   private static final int MAX_CACHED_KEYS = 4096;
+   private static final Map<String, Key> KEYS = new ConcurrentHashMap<String, Key>();
+
+   private final DefaultExpressionEngine engine;
+   private final ConfigurationNode root;
+   private final ConcurrentMap<ConfigurationNode, NodeChildren> children = new ConcurrentHashMap<ConfigurationNode, NodeChildren>();
+   private volatile boolean valid = true;
+
+   private ConfigPathIndex(DefaultExpressionEngine engine, ConfigurationNode root)
+   {
+      this.engine = engine;
+      this.root = root;
+   }
+
+   /***
+    * Indexes the tree of config and sets the index as its expression engine unless it is already indexed.
+    * Configurations using another expression engine than the default one are not indexed.
+    * @param config
+    * @return the index or null if the configuration is not indexed
+    */
+   static ConfigPathIndex install(HierarchicalConfiguration config)
+   {
+      ExpressionEngine current = config.getExpressionEngine();
+      if(current instanceof ConfigPathIndex)
+      {
+         ConfigPathIndex index = (ConfigPathIndex) current;
+         if(index.valid && index.root == config.getRootNode())
+            return index;
+         current = index.engine;
+      }
+      if(!hasDefaultSyntax(current))
+         return null;
+      ConfigPathIndex index = new ConfigPathIndex((DefaultExpressionEngine) current, config.getRootNode());
+      config.setExpressionEngine(index);
+      config.addConfigurationListener(index);
+      return index;
+   }
+
+   /***
+    * Compiled keys are parsed with the default key syntax, only engines using it can be indexed
+    */
+   private static boolean hasDefaultSyntax(ExpressionEngine engine)
+   {
+      if(engine.getClass() != DefaultExpressionEngine.class)
+         return false;
+      DefaultExpressionEngine syntax = (DefaultExpressionEngine) engine;
+      DefaultExpressionEngine defaults = new DefaultExpressionEngine();
+      return syntax.getPropertyDelimiter().equals(defaults.getPropertyDelimiter()) && syntax.getEscapedDelimiter().equals(defaults.getEscapedDelimiter())
+         && syntax.getAttributeStart().equals(defaults.getAttributeStart()) && syntax.getAttributeEnd().equals(defaults.getAttributeEnd())
+         && syntax.getIndexStart().equals(defaults.getIndexStart()) && syntax.getIndexEnd().equals(defaults.getIndexEnd());
+   }
+
+   /***
+    * Returns true if key selects at least one node of config, without creating a subconfiguration per node
+    * @param config
+    * @param key
+    * @return
+    */
+   static boolean exists(HierarchicalConfiguration config, String key)
+   {
+      ExpressionEngine engine = config.getExpressionEngine();
+      if(engine instanceof ConfigPathIndex && ((ConfigPathIndex) engine).valid)
+         return ((ConfigPathIndex) engine).exists(config.getRootNode(), compile(key), 0);
+      return !engine.query(config.getRootNode(), key).isEmpty();
+   }
+
+   /***
+    * Returns the values of the nodes key selects in config, the values {@link HierarchicalConfiguration#getProperty(String)}
+    * returns for the key text, found with the compiled key without looking it up again
+    * @param config
+    * @param key
+    * @return the values not interpolated or null if the configuration is not indexed and must be read with the key text
+    */
+   static List<Object> getValues(HierarchicalConfiguration config, Key key)
+   {
+      ExpressionEngine engine = config.getExpressionEngine();
+      if(!(engine instanceof ConfigPathIndex) || !((ConfigPathIndex) engine).valid)
+         return null;
+      List<ConfigurationNode> nodes = new ArrayList<ConfigurationNode>(1);
+      ((ConfigPathIndex) engine).find(config.getRootNode(), key, 0, nodes);
+      List<Object> values = new ArrayList<Object>(nodes.size());
+      for(ConfigurationNode node : nodes)
+      {
+         if(node.getValue() != null)
+            values.add(node.getValue());
+      }
+      return values;
+   }
+
+   /***
+    * Reads the value of key like {@link HierarchicalConfiguration#getString(String, String)} with the compiled key
+    * @param config
+    * @param key
+    * @param defaultValue returned if the value is missing and not required
+    * @param required if a missing value is read like {@link HierarchicalConfiguration#getString(String)}
+    * @return
+    */
+   static String getString(HierarchicalConfiguration config, Key key, String defaultValue, boolean required)
+   {
+      List<Object> values = getValues(config, key);
+      if(values == null || (values.isEmpty() && required))
+         return required ? config.getString(key.getText()) : config.getString(key.getText(), defaultValue);
+      Object value = values.isEmpty() ? defaultValue : values.get(0);
+      if(value != null && !(value instanceof String))
+         return config.getString(key.getText(), defaultValue);
+      return (String) interpolate(config, value);
+   }
+
+   /***
+    * Reads the values of key like {@link HierarchicalConfiguration#getList(String, List)} with the compiled key
+    * @param config
+    * @param key
+    * @param defaultValue returned if the value is missing and not required
+    * @param required if a missing value is read like {@link HierarchicalConfiguration#getList(String)}
+    * @return
+    */
+   static List<?> getList(HierarchicalConfiguration config, Key key, List<?> defaultValue, boolean required)
+   {
+      List<Object> values = getValues(config, key);
+      if(values == null || (values.isEmpty() && required))
+         return required ? config.getList(key.getText()) : config.getList(key.getText(), defaultValue);
+      if(values.isEmpty())
+         return defaultValue;
+      for(int i = 0; i < values.size(); i++)
+         values.set(i, interpolate(config, values.get(i)));
+      return values;
+   }
+
+   /***
+    * Interpolates value with the variables of the whole tree like the configuration and its subconfigurations do
+    */
+   private static Object interpolate(HierarchicalConfiguration config, Object value)
+   {
+      return value == null ? null : PropertyConverter.interpolate(value, ConfigBean.getRootConfiguration(config));
+   }
+
+   /***
+    * Returns the compiled form of key, cached by the key text
+    * @param key
+    * @return
+    */
+   static Key compile(String key)
+   {
+      String text = key == null ? "" : key;
+      Key compiled = KEYS.get(text);
+      if(compiled == null)
+      {
+         compiled = new Key(text);
+         if(KEYS.size() < MAX_CACHED_KEYS)
+            KEYS.put(text, compiled);
+      }
+      return compiled;
+   }
+
+   /***
+    * If the index is used, false once the tree was modified
+    * @return
+    */
+   boolean isValid()
+   {
+      return valid;
+   }
+
+   /***
+    * Number of nodes whose children are indexed
+    * @return
+    */
+   int getIndexedNodeCount()
+   {
+      return children.size();
+   }
+
+   private List<ConfigurationNode> getChildren(ConfigurationNode node, Part part, boolean attribute)
+   {
+      NodeChildren nodeChildren = children.get(node);
+      if(nodeChildren == null)
+      {
+         nodeChildren = new NodeChildren(node);
+         NodeChildren indexed = children.putIfAbsent(node, nodeChildren);
+         if(indexed != null)
+            nodeChildren = indexed;
+      }
+      List<ConfigurationNode> nodes = (attribute ? nodeChildren.attributes : nodeChildren.children).get(part.name);
+      return nodes == null ? Collections.<ConfigurationNode>emptyList() : nodes;
+   }
+
+   @Override
+   public List<ConfigurationNode> query(ConfigurationNode node, String key)
+   {
+      if(!valid)
+         return castNodes(engine.query(node, key));
+      List<ConfigurationNode> nodes = new ArrayList<ConfigurationNode>();
+      find(node, compile(key), 0, nodes);
+      return nodes;
+   }
+
+   /***
+    * Collects the nodes selected by the key parts from index on, in the order of the default expression engine
+    */
+   private void find(ConfigurationNode node, Key key, int index, List<ConfigurationNode> nodes)
+   {
+      if(index == key.parts.length)
+      {
+         nodes.add(node);
+         return;
+      }
+      Part part = key.parts[index];
+      if(part.property)
+         findIn(getChildren(node, part, false), key, index, nodes);
+      if(part.attribute)
+         findIn(getChildren(node, part, true), key, index, nodes);
+   }
+
+   private void findIn(List<ConfigurationNode> subNodes, Key key, int index, List<ConfigurationNode> nodes)
+   {
+      Part part = key.parts[index];
+      if(part.indexed)
+      {
+         if(part.index >= 0 && part.index < subNodes.size())
+            find(subNodes.get(part.index), key, index + 1, nodes);
+      }
+      else
+      {
+         for(ConfigurationNode subNode : subNodes)
+            find(subNode, key, index + 1, nodes);
+      }
+   }
+
+   private boolean exists(ConfigurationNode node, Key key, int index)
+   {
+      if(index == key.parts.length)
+         return true;
+      Part part = key.parts[index];
+      return (part.property && existsIn(getChildren(node, part, false), key, index))
+         || (part.attribute && existsIn(getChildren(node, part, true), key, index));
+   }
+
+   private boolean existsIn(List<ConfigurationNode> subNodes, Key key, int index)
+   {
+      Part part = key.parts[index];
+      if(part.indexed)
+         return part.index >= 0 && part.index < subNodes.size() && exists(subNodes.get(part.index), key, index + 1);
+      for(ConfigurationNode subNode : subNodes)
+      {
+         if(exists(subNode, key, index + 1))
+            return true;
+      }
+      return false;
+   }
+
+   @Override
+   public String nodeKey(ConfigurationNode node, String parentKey)
+   {
+      return engine.nodeKey(node, parentKey);
+   }
+
+   @Override
+   public NodeAddData prepareAdd(ConfigurationNode node, String key)
+   {
+      //nodes are about to be added
+      valid = false;
+      return engine.prepareAdd(node, key);
+   }
+
+   @Override
+   public void configurationChanged(ConfigurationEvent event)
+   {
+      if(!event.isBeforeUpdate())
+         valid = false;
+   }
+
+   @SuppressWarnings("unchecked")
+   private static List<ConfigurationNode> castNodes(List<?> nodes)
+   {
+      return (List<ConfigurationNode>) nodes;
+   }
+
+   /***
+    * A key parsed into its parts with the syntax of the default expression engine
+    */
+   static final class Key
+   {
+      private final String text;
+      private final Part[] parts;
+
+      private Key(String text)
+      {
+         this.text = text;
+         List<Part> keyParts = new ArrayList<Part>();
+         DefaultConfigurationKey.KeyIterator iterator = new DefaultConfigurationKey(new DefaultExpressionEngine(), text).iterator();
+         while(iterator.hasNext())
+         {
+            String name = iterator.nextKey(false);
+            keyParts.add(new Part(name, iterator.isPropertyKey(), iterator.isAttribute(), iterator.hasIndex(), iterator.getIndex()));
+         }
+         this.parts = keyParts.toArray(new Part[keyParts.size()]);
+      }
+
+      /***
+       * The key as passed to {@link #compile(String)}, looking it up again is a cache hit
+       * @return
+       */
+      String getText()
+      {
+         return text;
+      }
+
+      @Override
+      public String toString()
+      {
+         return text;
+      }
+   }
+
+   private static final class Part
+   {
+      private final String name;
+      private final boolean property;
+      private final boolean attribute;
+      private final boolean indexed;
+      private final int index;
+
+      Part(String name, boolean property, boolean attribute, boolean indexed, int index)
+      {
+         this.name = name;
+         this.property = property;
+         this.attribute = attribute;
+         this.indexed = indexed;
+         this.index = index;
+      }
+   }
+
+   /***
+    * The children and attributes of a node by name
+    */
+   private static final class NodeChildren
+   {
+      private final Map<String, List<ConfigurationNode>> children;
+      private final Map<String, List<ConfigurationNode>> attributes;
+
+      NodeChildren(ConfigurationNode node)
+      {
+         children = byName(node.getChildren());
+         attributes = byName(node.getAttributes());
+      }
+
+      private static Map<String, List<ConfigurationNode>> byName(List<?> nodes)
+      {
+         if(nodes.isEmpty())
+            return Collections.emptyMap();
+         Map<String, List<ConfigurationNode>> byName = new HashMap<String, List<ConfigurationNode>>();
+         for(Object node : nodes)
+         {
+            ConfigurationNode childNode = (ConfigurationNode) node;
+            List<ConfigurationNode> named = byName.get(childNode.getName());
+            if(named == null)
+               byName.put(childNode.getName(), named = new ArrayList<ConfigurationNode>(1));
+            named.add(childNode);
+         }
+         return byName;
+      }
+   }
+}
@@ -0,0 +1,1670 @@
+package com.oselan.common.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.commons.configuration.ConfigurationException;
+import org.apache.commons.configuration.HierarchicalConfiguration;
+import org.apache.commons.configuration.XMLConfiguration;
+import org.apache.commons.configuration.event.ConfigurationEvent;
+import org.apache.commons.configuration.event.ConfigurationListener;
+import org.apache.commons.configuration.tree.OverrideCombiner;
+import org.apache.commons.configuration.tree.ConfigurationNode;
+import org.apache.commons.lang.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.oselan.common.file.FileUtil;
+import com.oselan.common.util.ReflectionUtil;
+
+/**
+ * Class that handles loading xml configuration from either file or xml string  
+ * initializing implementations of AbstractConfiguration subclasses of configuration property beans 
+ * and provides save feature if a property has been changed
+ * Example usage:  
+       ConfigCommon common = new  ConfigCommon();
+       new ConfigProvider().withConfigSection(common).loadConfiguration("Config.xml"); 
+ * @author Ahmad Hamid
+ * 
+ * TODO supply writer implementation to be used on save xml to implement save to external configuration source.
+ *  
+ */
+public class ConfigProvider implements  ConfigurationListener, Closeable
+{ 
+
+   protected static final  Logger log = LogManager.getLogger(ConfigProvider.class);
+   /***
+    * Delay to check the file for changes when the file system does not report them,
+    * doubled after every check that finds no change up to MAX_REFRESH_DELAY
+    */
+   public static final int REFRESH_DELAY = 10000;
+   /***
+    * Maximum delay to check the file for changes when the file system does not report them
+    */
+   public static final int MAX_REFRESH_DELAY = 60000;
+   /***
+    * Default quiet time after the last file event before the file is reloaded
+    */
+   public static final long DEFAULT_RELOAD_DEBOUNCE = 200;
+   /***
+    * Root xml configuration
+    */
+   private XMLConfiguration xmlConfig;
+   
+   /**
+    * ConfigBeans register to trigger their reloading on file changes
+    */
+   private List<IConfig> configBeansList; 
+   /***
+    * Beans that have to be loaded before a bean
+    */
+   private final Map<IConfig, List<IConfig>> beanDependencies = new IdentityHashMap<IConfig, List<IConfig>>();
+   /***
+    * Executor used to load beans in parallel, beans are loaded sequentially if null
+    */
+   private Executor bindingExecutor;
+   /***
+    * Fingerprint of the configuration section each bean was last loaded from, see {@link ConfigTreeHash}
+    */
+   private final Map<IConfig, Long> beanFingerprints = Collections.synchronizedMap(new IdentityHashMap<IConfig, Long>());
+   /***
+    * If reloads build new beans published as a new snapshot instead of filling the registered beans
+    */
+   private boolean snapshots;
+   /***
+    * Last published snapshot, null until loaded or if snapshots are disabled
+    */
+   private volatile ConfigSnapshot snapshot;
+   /***
+    * Number of loads and reloads
+    */
+   private volatile long generation;
+   public ConfigProvider()
+   {
+      configBeansList= new ArrayList<IConfig>(4);
+   }
+   
+   /***
+   * loads configuration from a file 
+   * File can be relative or absolute path file or inside jar
+   * set reloadable to monitor file for changes and trigger config reload
+   * set writable to monitor config for changes and write back to file.
+   * @param config configuration file path or configuration xml.  
+   */
+   public synchronized ConfigProvider loadConfiguration(String fileName, boolean reloadable, boolean writable)
+   {
+       //writable configurations are parsed into modifiable nodes
+       this.isWritable = writable;
+       loadConfiguration(fileName);
+       
+       setFileConfigOptions(reloadable, writable);
+       return this;
+   }
+   
+   /***
+    * Loads configuration from a source, see {@link #loadConfiguration(String, boolean, boolean)}
+    * only file sources can be watched and written, reloadable sources reporting a version are polled for a new version.
+    * @param source
+    * @param reloadable
+    * @param writable
+    * @return
+    */
+   public synchronized ConfigProvider loadConfiguration(ConfigSource source, boolean reloadable, boolean writable)
+   {
+       this.isWritable = writable;
+       loadConfiguration(source);
+       
+       setFileConfigOptions(reloadable, writable);
+       return this;
+   }
+   
+   /**
+    * Loads xml from file or xml string. 
+    * constructs base beans 
+    * @param fileNameorXML xml if it starts with '<' otherwise a file path, see {@link ConfigSources#detect(String)}
+    * @return
+    */
+   public synchronized ConfigProvider  loadConfiguration(String fileNameorXML)
+   {
+      if (StringUtils.isBlank(fileNameorXML))
+         return loadConfiguration((ConfigSource) null);
+      return loadConfiguration(ConfigSources.detect(fileNameorXML));
+   }
+   
+   
+   public synchronized ConfigProvider  loadConfiguration(InputStream xmlStream)
+   {
+      return loadConfiguration(xmlStream == null ? null : ConfigSources.stream(xmlStream));
+   }
+   
+   /***
+    * Loads xml from a source and constructs base beans.
+    * File sources are parsed with the parser options of the provider, other sources are re-read on reload 
+    * if they report a new version, see {@link ConfigSource#getVersion()}.
+    * @param source
+    * @return
+    */
+   public synchronized ConfigProvider  loadConfiguration(ConfigSource source)
+   {
+      log.debug("Initiates loading configuration");
+      if (xmlConfig != null)
+         xmlConfig.removeConfigurationListener(this);
+      xmlConfig =new XMLConfiguration() ;
+      clearConfigFiles();
+      this.configFile = null;
+      this.configSource = null;
+      if (source != null)
+      {   
+         try{
+            long start = System.nanoTime();
+            if (source.getFile() != null)
+            {
+               String path = FileUtil.getFilePath(source.getFile().getPath());
+               //set the file path 
+               this.configFile = path;
+               xmlConfig = parseConfigFile(path);  
+            }
+            else
+            {
+               this.configSource = source;
+               this.sourceVersion = source.getVersion();
+               xmlConfig = parseSource(source);
+            }
+            initConfiguration(xmlConfig);
+            stats.recordParse(System.nanoTime() - start);
+            readConfigurations();
+            stats.recordSuccess(false);
+         }
+         catch(ConfigurationException e)
+         {
+            log.fatal("Error loading configuration", e);
+            throw loadFailure(new ConfigException("Failed to load configuration", e));
+         }
+      } 
+      log.debug("Configuration loaded");
+      return this;
+   }
+   
+   /***
+    * Parses the xml of a source that is not a file
+    * @param source
+    * @return
+    * @throws ConfigurationException
+    */
+   private static XMLConfiguration parseSource(ConfigSource source) throws ConfigurationException
+   {
+      XMLConfiguration config = new XMLConfiguration();
+      if (source instanceof ConfigSources.StringSource)
+      {
+         config.load(new StringReader(((ConfigSources.StringSource) source).getXml()));
+         return config;
+      }
+      try
+      {
+         InputStream in = source.openStream();
+         try
+         {
+            config.load(in);
+         }
+         finally
+         {
+            in.close();
+         }
+      }
+      catch(IOException e)
+      {
+         throw new ConfigurationException("Failed to read configuration source " + source, e);
+      }
+      return config;
+   }
+   
+   /***
+    * Loads a configuration composed of several files merged into one tree, files are parsed in parallel.
+    * Files are in order of precedence, a value or attribute in a file overrides the same one in the files after it
+    * and sections found only in later files are added, see {@link OverrideCombiner}.
+    * set reloadable to watch each file, a change reparses only the changed file and reloads the beans whose section changed.
+    * Composed configurations are not writable.
+    * @param fileNames configuration file paths, the first one has the highest precedence
+    * @param reloadable
+    * @return
+    */
+   public synchronized ConfigProvider loadConfiguration(List<String> fileNames, boolean reloadable)
+   {
+      if (fileNames == null || fileNames.isEmpty())
+         throw new ConfigException("No configuration files to load");
+      log.debug("Initiates loading configuration from " + fileNames.size() + " files");
+      List<String> paths = new ArrayList<String>(fileNames.size());
+      for (String fileName: fileNames)
+         paths.add(FileUtil.getFilePath(fileName));
+      long start = System.nanoTime();
+      try
+      {
+         fileRoots = parseConfigFiles(paths);
+      }
+      catch(ConfigurationException e)
+      {
+         log.fatal("Error loading configuration", e);
+         throw loadFailure(new ConfigException("Failed to load configuration", e));
+      }
+      this.configFile = null;
+      this.configSource = null;
+      this.configBundle = null;
+      this.configFiles = Collections.unmodifiableList(paths);
+      this.isWritable = false;
+      xmlConfig = combineConfigFiles(fileRoots);
+      stats.recordParse(System.nanoTime() - start);
+      readConfigurations();
+      stats.recordSuccess(false);
+      setFileConfigOptions(reloadable, false);
+      log.debug("Configuration loaded");
+      return this;
+   }
+   
+   /***
+    * Loads a configuration composed of entries of a zip archive, read from the archive without extracting it.
+    * Entries are in order of precedence like files in {@link #loadConfiguration(List, boolean)}.
+    * set reloadable to watch the archive, a change reparses only the entries whose CRC changed.
+    * Configurations loaded from an archive are not writable.
+    * @param zipFile path of the zip archive
+    * @param entryNames entries of the archive, the first one has the highest precedence
+    * @param reloadable
+    * @return
+    */
+   public synchronized ConfigProvider loadZipConfiguration(String zipFile, List<String> entryNames, boolean reloadable)
+   {
+      if (entryNames == null || entryNames.isEmpty())
+         throw new ConfigException("No configuration entries to load");
+      log.debug("Initiates loading configuration from " + entryNames.size() + " entries of " + zipFile);
+      ZipConfigBundle bundle = new ZipConfigBundle(new File(FileUtil.getFilePath(zipFile)), entryNames);
+      long start = System.nanoTime();
+      try
+      {
+         bundle.read(flatParser);
+      }
+      catch(ConfigurationException e)
+      {
+         log.fatal("Error loading configuration", e);
+         throw loadFailure(new ConfigException("Failed to load configuration", e));
+      }
+      clearConfigFiles();
+      this.configFile = null;
+      this.configSource = null;
+      this.configBundle = bundle;
+      this.isWritable = false;
+      xmlConfig = combineConfigFiles(bundle.getRoots());
+      stats.recordParse(System.nanoTime() - start);
+      readConfigurations();
+      stats.recordSuccess(false);
+      setFileConfigOptions(reloadable, false);
+      log.debug("Configuration loaded");
+      return this;
+   }
+   
+   /***
+    * Records a failed load or reload
+    * @param e
+    * @return e
+    */
+   private ConfigException loadFailure(ConfigException e)
+   {
+      stats.recordFailure(e);
+      return e;
+   }
+   
+   private void clearConfigFiles()
+   {
+      configFiles = null;
+      fileRoots = null;
+      configBundle = null;
+   }
+   
+   /***
+    * Parses the configuration files in parallel on the binding executor or the common ForkJoinPool
+    * @param paths
+    * @return the root nodes of the files in the order of paths
+    * @throws ConfigurationException if any of the files can not be parsed
+    */
+   private ConfigurationNode[] parseConfigFiles(List<String> paths) throws ConfigurationException
+   {
+      Executor executor = bindingExecutor != null ? bindingExecutor : ForkJoinPool.commonPool();
+      List<CompletableFuture<ConfigurationNode>> parses = new ArrayList<CompletableFuture<ConfigurationNode>>(paths.size());
+      for (final String path: paths)
+      {
+         parses.add(CompletableFuture.supplyAsync(new Supplier<ConfigurationNode>()
+         {
+            @Override
+            public ConfigurationNode get()
+            {
+               try
+               {
+                  return parseConfigFile(path).getRootNode();
+               }
+               catch(ConfigurationException e)
+               {
+                  throw new CompletionException(e);
+               }
+            }
+         }, executor));
+      }
+      ConfigurationNode[] roots = new ConfigurationNode[paths.size()];
+      for (int i = 0; i < roots.length; i++)
+      {
+         try
+         {
+            roots[i] = parses.get(i).join();
+         }
+         catch(CompletionException e)
+         {
+            if (e.getCause() instanceof ConfigurationException)
+               throw (ConfigurationException) e.getCause();
+            throw new ConfigurationException("Failed to parse configuration file " + paths.get(i), e.getCause());
+         }
+      }
+      return roots;
+   }
+   
+   /***
+    * Merges the root nodes of the configuration files, earlier files override later ones.
+    * The merged tree is a view over the parsed nodes so the files are not copied.
+    * @param roots
+    * @return
+    */
+   private XMLConfiguration combineConfigFiles(ConfigurationNode[] roots)
+   {
+      OverrideCombiner combiner = new OverrideCombiner();
+      ConfigurationNode root = roots[0];
+      for (int i = 1; i < roots.length; i++)
+         root = combiner.combine(root, roots[i]);
+      XMLConfiguration config = new XMLConfiguration();
+      config.setRootElementName(roots[0].getName());
+      config.setRootNode(root);
+      initConfiguration(config);
+      return config;
+   }
+   
+   /***
+    * Parses the configuration file or loads it from the compiled cache if enabled,
+    * writable configurations are always parsed by the xml parser to save them with their declaration, comments and formatting
+    * @param path
+    * @return
+    * @throws ConfigurationException
+    */
+   private XMLConfiguration parseConfigFile(String path) throws ConfigurationException
+   {
+      if (configCache != null && !isWritable)
+         return configCache.load(path);
+      XMLConfiguration config = new XMLConfiguration();
+      if (flatParser && !isWritable)
+      {
+         FlatConfigTree tree;
+         try
+         {
+            tree = FlatConfigTree.parse(new File(path));
+         }
+         catch(IOException e)
+         {
+            throw new ConfigurationException("Failed to read configuration file " + path, e);
+         }
+         ConfigurationNode root = tree.getRootNode();
+         config.setRootElementName(root.getName());
+         config.setRootNode(root);
+         return config;
+      }
+      config.load(path);
+      return config;
+   }
+   
+   /***
+    * Parses configuration files with the memory mapped flat parser, see {@link FlatConfigTree}, 
+    * which keeps the configuration in a few arrays instead of a node object per element.
+    * The configuration is read only, writable configurations and the compiled cache still use the xml parser. 
+    * Must be set before loading the configuration.
+    * @return
+    */
+   public ConfigProvider withFlatParser()
+   {
+      this.flatParser = true;
+      return this;
+   }
+   
+   /***
+    * Keeps the parsed configuration files in a binary cache in directory and loads them from the cache 
+    * while their content does not change, which avoids parsing large files on startup. 
+    * Writable configurations are not cached as the cache does not keep the xml declaration, comments and formatting to save. 
+    * Must be set before loading the configuration.
+    * @param directory
+    * @return
+    */
+   public ConfigProvider withCompiledCache(File directory)
+   {
+      this.configCache = new ConfigCache(directory);
+      return this;
+   }
+   
+   /***
+    * Sets the options of a loaded xml configuration
+    * @param config
+    */
+   private void initConfiguration(XMLConfiguration config)
+   {
+      config.setThrowExceptionOnMissing(true); 
+      //disable list of values until properly supported. can use parserMethod when needed
+      config.setDelimiterParsingDisabled(true);
+   }
+   
+   /***
+    * Re-reads the configuration file and reloads only the beans whose configuration section changed.
+    * Configuration loaded from an xml string or stream is not re-read, other sources are re-read if their version changed. 
+    */
+   public synchronized void reload()
+   {
+      refresh(null);
+   }
+   
+   /***
+    * Re-reads the configuration file, reloads the beans whose configuration section changed
+    * and the beans at, above or below path even if their section did not change.  
+    * Allows external triggers to force reloading part of the configuration.
+    * @param path configuration path to reload or null to only reload changed beans
+    */
+   public synchronized void refresh(String path)
+   {
+      if (xmlConfig == null)
+         return;
+      long start = System.nanoTime();
+      if (configFile != null)
+      {
+         XMLConfiguration reloadedConfig;
+         try
+         {
+            reloadedConfig = parseConfigFile(configFile);
+         }
+         catch(ConfigurationException e)
+         {
+            log.error("Error reloading configuration, keeping the current configuration", e);
+            throw loadFailure(new ConfigException("Failed to reload configuration", e));
+         }
+         initConfiguration(reloadedConfig);
+         replaceConfiguration(reloadedConfig);
+      }
+      else if (configFiles != null)
+      {
+         try
+         {
+            fileRoots = parseConfigFiles(configFiles);
+         }
+         catch(ConfigurationException e)
+         {
+            log.error("Error reloading configuration, keeping the current configuration", e);
+            throw loadFailure(new ConfigException("Failed to reload configuration", e));
+         }
+         xmlConfig = combineConfigFiles(fileRoots);
+      }
+      else if (configBundle != null)
+      {
+         int parsed;
+         try
+         {
+            parsed = configBundle.read(flatParser);
+         }
+         catch(ConfigurationException e)
+         {
+            log.error("Error reloading configuration, keeping the current configuration", e);
+            throw loadFailure(new ConfigException("Failed to reload configuration", e));
+         }
+         if (parsed > 0)
+         {
+            log.info("Reparsed " + parsed + " of " + configBundle.getEntryNames().size() + " configuration entries");
+            xmlConfig = combineConfigFiles(configBundle.getRoots());
+         }
+      }
+      else if (configSource != null)
+      {
+         Object version = configSource.getVersion();
+         if (version != null && !version.equals(sourceVersion))
+         {
+            XMLConfiguration reloadedConfig;
+            try
+            {
+               reloadedConfig = parseSource(configSource);
+            }
+            catch(ConfigurationException e)
+            {
+               log.error("Error reloading configuration, keeping the current configuration", e);
+               throw loadFailure(new ConfigException("Failed to reload configuration", e));
+            }
+            initConfiguration(reloadedConfig);
+            replaceConfiguration(reloadedConfig);
+            sourceVersion = version;
+         }
+      }
+      reloadChangedBeans(path, start);
+   }
+   
+   /***
+    * Replaces the loaded configuration with a reloaded one, changes of the reloaded configuration are saved if writable
+    * @param reloadedConfig
+    */
+   private void replaceConfiguration(XMLConfiguration reloadedConfig)
+   {
+      if (xmlConfig != null)
+         xmlConfig.removeConfigurationListener(this);
+      if (isWritable)
+         reloadedConfig.addConfigurationListener(this);
+      xmlConfig = reloadedConfig;
+   }
+   
+   /***
+    * Reparses one file of a composed configuration and reloads the beans whose section changed, 
+    * the other files are merged from their last parsed tree.
+    * @param file path of the changed file
+    */
+   private synchronized void reloadConfigFile(String file)
+   {
+      int index = configFiles == null ? -1 : configFiles.indexOf(file);
+      if (index < 0)
+         return;
+      long start = System.nanoTime();
+      ConfigurationNode[] roots = fileRoots.clone();
+      try
+      {
+         roots[index] = parseConfigFile(file).getRootNode();
+      }
+      catch(ConfigurationException e)
+      {
+         log.error("Error reloading configuration file " + file + ", keeping the current configuration", e);
+         throw loadFailure(new ConfigException("Failed to reload configuration", e));
+      }
+      fileRoots = roots;
+      xmlConfig = combineConfigFiles(roots);
+      reloadChangedBeans(null, start);
+   }
+   
+   /***
+    * Reloads the beans whose configuration section changed and the beans related to path
+    * @param path configuration path to reload or null
+    * @param start start time of the reload
+    */
+   private void reloadChangedBeans(String path, long start)
+   {
+      stats.recordParse(System.nanoTime() - start);
+      //unchanged beans take their configuration from the indexed tree
+      ConfigPathIndex.install(xmlConfig);
+      List<IConfig> changedBeans = new ArrayList<IConfig>();
+      ConfigSnapshot current = snapshot;
+      for (IConfig bean: configBeansList)
+      {
+         Long fingerprint = beanFingerprints.get(bean);
+         HierarchicalConfiguration config = getBeanConfiguration(bean);
+         if ((path != null && isRelatedPath(bean.getPath(), path)) || fingerprint == null
+            || fingerprint.longValue() != ConfigTreeHash.hash(config.getRootNode()))
+            changedBeans.add(bean);
+         else
+         {
+            //unchanged beans are moved to the reloaded tree so their writes are saved
+            IConfig loadedBean = current != null && current.get(bean) != null ? current.get(bean) : bean;
+            if (loadedBean instanceof ConfigBean)
+               ((ConfigBean) loadedBean).attachConfiguration(config);
+            else if (loadedBean instanceof LazyConfig)
+               ((LazyConfig<?>) loadedBean).attachConfiguration(config);
+         }
+      }
+      log.info("Reloading " + changedBeans.size() + " of " + configBeansList.size() + " configuration beans");
+      readConfigurations(changedBeans);
+      stats.recordSuccess(true);
+   }
+   
+   /***
+    * If one path is the same as or contains the other
+    */
+   private static boolean isRelatedPath(String beanPath, String path)
+   {
+      return beanPath != null && (startsWithPath(beanPath, path) || startsWithPath(path, beanPath));
+   }
+   
+   private static boolean startsWithPath(String path, String prefix)
+   {
+      return path.startsWith(prefix) && (path.length() == prefix.length() || ".[(".indexOf(path.charAt(prefix.length())) >= 0);
+   }
+   
+ /***
+  * Sets whether the file configurations are reloadable and writables 
+  * if Reloadable then a daemon will watch the file for changes, see {@link ConfigFileWatcher}, 
+  * or poll the version of a source that is not a file, see {@link ConfigSource#getVersion()}.
+  * if Writable then listener will be added to detect config changes and call save method.
+  * @param configFile
+  * @param reloadable
+  * @param writable
+  * @return
+  */
+   protected void setFileConfigOptions(boolean reloadable, boolean writable)
+   {
+      this.isReloadable = reloadable;
+      this.isWritable = writable;
+      if(reloadable && !getConfigFiles().isEmpty())
+      {
+         watchConfigFiles();
+      } 
+      else if(reloadable && configSource != null && sourceVersion != null)
+      {
+         stopWatching();
+         pollSource(configSource, minRefreshDelay);
+      }
+      else 
+      {
+         if(reloadable)
+            log.warn("Configuration is not loaded from a file and is not watched for changes");
+         stopWatching();
+      }
+      if(writable)
+      {
+         xmlConfig.addConfigurationListener(this);
+      }
+
+   }
+   
+   /***
+    * Starts watching each configuration file unless they are already watched
+    */
+   private void watchConfigFiles()
+   {
+      List<String> files = getConfigFiles();
+      if(isWatching(files))
+         return;
+      stopWatching();
+      List<ConfigFileWatcher> watchers = new ArrayList<ConfigFileWatcher>(files.size());
+      for (final String file: files)
+      {
+         watchers.add(new ConfigFileWatcher(ConfigReloadScheduler.getShared(), file, reloadDebounce, minRefreshDelay, maxRefreshDelay, new Runnable()
+         {
+            @Override
+            public void run()
+            {
+               onConfigFileChanged(file);
+            }
+         }));
+      }
+      for (ConfigFileWatcher watcher: watchers)
+         watcher.start();
+      fileWatchers = Collections.unmodifiableList(watchers);
+   }
+   
+   private boolean isWatching(List<String> files)
+   {
+      List<ConfigFileWatcher> watchers = fileWatchers;
+      if(watchers.size() != files.size())
+         return false;
+      for (int i = 0; i < files.size(); i++)
+      {
+         if(!watchers.get(i).isActive() || !watchers.get(i).getFile().equals(Paths.get(files.get(i)).toAbsolutePath()))
+            return false;
+      }
+      return true;
+   }
+   
+   /***
+    * Reloads the configuration file or only the changed file of a composed configuration
+    * @param file
+    */
+   private void onConfigFileChanged(String file)
+   {
+      if(configFiles != null)
+         reloadConfigFile(file);
+      else
+         reload();
+   }
+   
+   private void stopWatching()
+   {
+      List<ConfigFileWatcher> watchers = fileWatchers;
+      fileWatchers = Collections.emptyList();
+      for (ConfigFileWatcher watcher: watchers)
+         watcher.shutdown();
+      ScheduledFuture<?> poll = sourcePoll;
+      sourcePoll = null;
+      if (poll != null)
+         poll.cancel(false);
+   }
+   
+   /***
+    * Schedules checking the version of source on the shared scheduler after the delay
+    * @param source
+    * @param delayMillis
+    */
+   private synchronized void pollSource(final ConfigSource source, final long delayMillis)
+   {
+      sourcePoll = ConfigReloadScheduler.getShared().schedule(new Runnable()
+      {
+         @Override
+         public void run()
+         {
+            checkSource(source, delayMillis);
+         }
+      }, ConfigReloadScheduler.jitter(delayMillis));
+   }
+   
+   /***
+    * Reloads the configuration if source reports a new version and schedules the next check, 
+    * the delay doubles while the version does not change up to the maximum refresh delay like watched files
+    * @param source
+    * @param delayMillis delay of the check
+    */
+   private void checkSource(ConfigSource source, long delayMillis)
+   {
+      boolean changed = false;
+      try
+      {
+         Object version = source.getVersion();
+         changed = version != null && !version.equals(sourceVersion);
+         if (changed)
+            reload();
+      }
+      catch(RuntimeException e)
+      {
+         log.error("Error reloading configuration source", e);
+      }
+      synchronized(this)
+      {
+         //stopped or replaced while checking
+         if (sourcePoll == null || configSource != source)
+            return;
+         pollSource(source, changed ? minRefreshDelay : Math.min(delayMillis * 2, maxRefreshDelay));
+      }
+   }
+   
+   /***
+    * Sets the delays between checks of watched files for changes the file system did not report, 
+    * the delay starts at minMillis and doubles while the file does not change up to maxMillis.
+    * Applies to files watched and sources polled after this call.
+    * @param minMillis
+    * @param maxMillis
+    * @return
+    */
+   public ConfigProvider withRefreshDelay(long minMillis, long maxMillis)
+   {
+      this.minRefreshDelay = minMillis;
+      this.maxRefreshDelay = maxMillis;
+      return this;
+   }
+   
+   /***
+    * Registers the MXBean of the provider with the platform MBean server as 
+    * com.oselan.common.config:type=ConfigProvider,name=&lt;name&gt; until the provider is closed, see {@link ConfigProviderMXBean}.
+    * @param name name of the provider, unique in the process
+    * @return
+    */
+   public synchronized ConfigProvider withManagement(String name)
+   {
+      unregisterManagement();
+      try
+      {
+         ObjectName objectName = new ObjectName("com.oselan.common.config:type=ConfigProvider,name=" + ObjectName.quote(name));
+         ManagementFactory.getPlatformMBeanServer().registerMBean(stats, objectName);
+         managementName = objectName;
+      }
+      catch(JMException e)
+      {
+         throw new ConfigException("Failed to register configuration MBean " + name, e);
+      }
+      return this;
+   }
+   
+   private void unregisterManagement()
+   {
+      if (managementName == null)
+         return;
+      try
+      {
+         ManagementFactory.getPlatformMBeanServer().unregisterMBean(managementName);
+      }
+      catch(InstanceNotFoundException e)
+      {
+         //unregistered externally
+      }
+      catch(JMException e)
+      {
+         log.warn("Failed to unregister configuration MBean " + managementName, e);
+      }
+      managementName = null;
+   }
+   
+   /***
+    * Load statistics of the provider, also available over JMX see {@link #withManagement(String)}
+    * @return
+    */
+   public ConfigProviderMXBean getStats()
+   {
+      return stats;
+   }
+   
+   /***
+    * Stops watching the configuration files or polling the source, unregisters the MXBean and saves the changes not yet saved by write behind.
+    * Closes the loaded beans implementing Closeable, e.g. {@link ConfigBeanPagedList} deletes its store.
+    * Watching threads are shared by all providers and are not stopped. 
+    * The provider can be loaded again after it is closed. 
+    */
+   @Override
+   public synchronized void close()
+   {
+      stopWatching();
+      unregisterManagement();
+      ScheduledExecutorService executor = writeBehindExecutor;
+      if (executor != null)
+      {
+         //later changes are saved immediately
+         writeBehindExecutor = null;
+         executor.shutdownNow();
+         flush();
+      }
+      ConfigSnapshot current = snapshot;
+      Set<Closeable> closeables = Collections.newSetFromMap(new IdentityHashMap<Closeable, Boolean>());
+      for (IConfig bean: configBeansList)
+         addCloseableBeans(current != null && current.get(bean) != null ? current.get(bean) : bean, closeables);
+      closeBeans(closeables);
+   }
+   
+   /***
+    * Sets the quiet time after the last change event on the configuration file before it is reloaded,
+    * editors and deployments usually write a file in several steps. Applies to files watched after this call.
+    * @param debounceMillis
+    * @return
+    */
+   public ConfigProvider withReloadDebounce(long debounceMillis)
+   {
+      this.reloadDebounce = debounceMillis;
+      return this;
+   }
+
+   /***
+    * Adds a config Bean to the list to be provided with configuration on load 
+    * To be monitored for changes and reloaded if a file was changed
+    * @param configBean
+    * @return
+    */
+      public <T extends IConfig>  ConfigProvider withConfigBean(T configBean)
+      {  
+         configBeansList.add(configBean);
+         //read the configuration if the file is already loaded
+         if ( xmlConfig!=null)
+            readConfigurations(Collections.<IConfig>singletonList(configBean));
+         return this; 
+      }
+      
+      /***
+       * Adds a config Bean that is loaded only after the beans it depends on, sequentially or in parallel
+       * see {@link #withParallelBinding(Executor)}. The bean is only added if it is not already registered.
+       * @param configBean
+       * @param dependsOn registered beans to load before configBean
+       * @return
+       */
+      @SafeVarargs
+      public final <T extends IConfig, D extends IConfig> ConfigProvider withConfigBean(T configBean, D... dependsOn)
+      {
+         synchronized(beanDependencies)
+         {
+            List<IConfig> dependencies = beanDependencies.get(configBean);
+            if(dependencies == null)
+               beanDependencies.put(configBean, dependencies = new ArrayList<IConfig>(dependsOn.length));
+            for (D dependency: dependsOn)
+               dependencies.add(dependency);
+         }
+         //dependencies can be declared for a bean that is already registered
+         if(configBeansList.contains(configBean))
+            return this;
+         return withConfigBean(configBean);
+      }
+      
+      /***
+       * Loads the registered beans in parallel on the common ForkJoinPool
+       * @return
+       */
+      public ConfigProvider withParallelBinding()
+      {
+         return withParallelBinding(ForkJoinPool.commonPool());
+      }
+      
+      /***
+       * Loads the registered beans in parallel using executor. 
+       * A bean is loaded once all the beans it depends on are loaded, see {@link #withConfigBean(IConfig, IConfig...)}
+       * @param executor executor to load beans with or null to load beans sequentially
+       * @return
+       */
+      public ConfigProvider withParallelBinding(Executor executor)
+      {
+         this.bindingExecutor = executor;
+         return this;
+      }
+      
+      /***
+       * Publishes the loaded beans as immutable snapshots, see {@link ConfigSnapshot}. 
+       * The registered beans are filled by the first load only, every reload fills new instances of the beans
+       * whose configuration changed and publishes them with the unchanged beans of the previous snapshot at once.
+       * Readers have to get the beans from {@link #getSnapshot()} to see reloaded configuration.
+       * Bean classes must be instantiable by {@link ReflectionUtil#createInstance(Class)}, new instances of inner classes are
+       * created in the enclosing instance of the registered bean and get new instances of its injected beans.
+       * Beans implementing Closeable are closed once a published snapshot replaces them.
+       * Must be set before loading the configuration.
+       * @return
+       */
+      public ConfigProvider withSnapshots()
+      {
+         this.snapshots = true;
+         return this;
+      }
+      
+      /***
+       * Returns the latest consistent view of the loaded beans
+       * @return the snapshot or null if snapshots are not enabled or the configuration is not loaded
+       */
+      public ConfigSnapshot getSnapshot()
+      {
+         return snapshot;
+      }
+      
+      /***
+       * Number of loads and reloads of the configuration so far, can be compared to 
+       * {@link ConfigSnapshot#getGeneration()} to check if a snapshot is still the latest.
+       * @return
+       */
+      public long getGeneration()
+      {
+         return generation;
+      }
+ 
+   
+   /***
+    * Loops over the configuration bean implementations to refill the data from the appropriate configuration path.
+    */
+   public void readConfigurations()  
+   { 
+      readConfigurations(configBeansList);
+   }
+   
+   /***
+    * Loads the beans sequentially or in parallel if an executor is set, then publishes the loaded beans 
+    * @param beans
+    */
+   private synchronized void readConfigurations(List<IConfig> beans)
+   {
+      ConfigSnapshot previous = snapshot;
+      Map<IConfig, IConfig> loadedBeans = Collections.synchronizedMap(new IdentityHashMap<IConfig, IConfig>());
+      long start = System.nanoTime();
+      try
+      {
+         //built once per loaded tree, the bean configurations inherit it
+         ConfigPathIndex.install(xmlConfig);
+         if (bindingExecutor != null)
+            readConfigurationsParallel(beans, bindingExecutor, previous, loadedBeans);
+         else
+         {
+            for (IConfig bean: orderByDependencies(beans))
+            {
+               HierarchicalConfiguration config = getBeanConfiguration(bean);
+               if( config!= null)
+                  loadedBeans.put(bean, loadBean(bean, config, previous));
+            }
+         }
+      }
+      catch(RuntimeException e)
+      {
+         stats.recordFailure(e);
+         throw e;
+      }
+      long bound = System.nanoTime();
+      stats.recordBind(bound - start);
+      publish(previous, loadedBeans);
+      stats.recordNotify(System.nanoTime() - bound);
+   }
+   
+   /***
+    * Orders the beans so each bean follows the beans it depends on, otherwise in registration order.
+    * Dependencies that are not in beans are not reloaded and do not have to be ordered.
+    * @param beans
+    * @return
+    */
+   private List<IConfig> orderByDependencies(List<IConfig> beans)
+   {
+      synchronized(beanDependencies)
+      {
+         if (beanDependencies.isEmpty())
+            return beans;
+      }
+      List<IConfig> ordered = new ArrayList<IConfig>(beans.size());
+      Map<IConfig, Boolean> visited = new IdentityHashMap<IConfig, Boolean>();
+      for (IConfig bean: beans)
+         addAfterDependencies(bean, beans, ordered, visited);
+      return ordered;
+   }
+   
+   /***
+    * Adds the dependencies of bean in beans then bean, visited holds false while the dependencies of a bean are added
+    */
+   private void addAfterDependencies(IConfig bean, List<IConfig> beans, List<IConfig> ordered, Map<IConfig, Boolean> visited)
+   {
+      Boolean added = visited.get(bean);
+      if (added != null)
+      {
+         if (!added)
+            throw new ConfigException("Cyclic config bean dependency on " + bean.getClass().getName());
+         return;
+      }
+      visited.put(bean, Boolean.FALSE);
+      List<IConfig> dependencies;
+      synchronized(beanDependencies)
+      {
+         dependencies = beanDependencies.get(bean);
+      }
+      if (dependencies != null)
+      {
+         for (IConfig dependency: dependencies)
+         {
+            if (!configBeansList.contains(dependency))
+               throw new ConfigException("Config bean dependency is not registered:" + dependency.getClass().getName());
+            if (beans.contains(dependency))
+               addAfterDependencies(dependency, beans, ordered, visited);
+         }
+      }
+      visited.put(bean, Boolean.TRUE);
+      ordered.add(bean);
+   }
+   
+   /***
+    * Loads the configuration beans on the executor, each bean waits for the beans it depends on.
+    * The configuration sections are looked up on the calling thread, only the binding is parallel.
+    * @param executor
+    */
+   private void readConfigurationsParallel(List<IConfig> beans, Executor executor, ConfigSnapshot previous, Map<IConfig, IConfig> loadedBeans)
+   {
+      Map<IConfig, CompletableFuture<Void>> loads = new IdentityHashMap<IConfig, CompletableFuture<Void>>();
+      Map<IConfig, Boolean> visiting = new IdentityHashMap<IConfig, Boolean>();
+      //beans that are not loaded are already complete for their dependents
+      for (IConfig bean: configBeansList)
+      {
+         if (!beans.contains(bean))
+            loads.put(bean, CompletableFuture.<Void>completedFuture(null));
+      }
+      for (IConfig bean: beans)
+      {
+         scheduleLoad(bean, executor, loads, visiting, previous, loadedBeans);
+      }
+      try
+      {
+         CompletableFuture.allOf(loads.values().toArray(new CompletableFuture<?>[loads.size()])).join();
+      }
+      catch(CompletionException e)
+      {
+         if(e.getCause() instanceof ConfigException)
+            throw (ConfigException) e.getCause();
+         throw new ConfigException("Failed to load configuration", e.getCause());
+      }
+   }
+   
+   /***
+    * Schedules loading a bean after its dependencies, dependencies are scheduled first. 
+    * @return the future completed once the bean is loaded
+    */
+   private CompletableFuture<Void> scheduleLoad(final IConfig bean, Executor executor, Map<IConfig, CompletableFuture<Void>> loads, Map<IConfig, Boolean> visiting,
+      final ConfigSnapshot previous, final Map<IConfig, IConfig> loadedBeans)
+   {
+      CompletableFuture<Void> load = loads.get(bean);
+      if(load != null)
+         return load;
+      if(visiting.put(bean, Boolean.TRUE) != null)
+         throw new ConfigException("Cyclic config bean dependency on " + bean.getClass().getName());
+      List<IConfig> dependencies;
+      synchronized(beanDependencies)
+      {
+         dependencies = beanDependencies.get(bean);
+      }
+      CompletableFuture<?>[] dependencyLoads = new CompletableFuture<?>[dependencies == null ? 0 : dependencies.size()];
+      for (int i = 0; i < dependencyLoads.length; i++)
+      {
+         IConfig dependency = dependencies.get(i);
+         if(!configBeansList.contains(dependency))
+            throw new ConfigException("Config bean dependency is not registered:" + dependency.getClass().getName());
+         dependencyLoads[i] = scheduleLoad(dependency, executor, loads, visiting, previous, loadedBeans);
+      }
+      final HierarchicalConfiguration config = getBeanConfiguration(bean);
+      load = CompletableFuture.allOf(dependencyLoads).thenRunAsync(new Runnable()
+      {
+         @Override
+         public void run()
+         {
+            if( config!= null)
+               loadedBeans.put(bean, loadBean(bean, config, previous));
+         }
+      }, executor);
+      loads.put(bean, load);
+      return load;
+   }
+   
+   /***
+    * Loads the bean and keeps the fingerprint of the configuration it was loaded from.
+    * A new instance of the bean is loaded instead if the bean is in the previous snapshot. 
+    * @param bean registered bean
+    * @param config
+    * @param previous the published snapshot or null
+    * @return the loaded bean
+    */
+   private IConfig loadBean(IConfig bean, HierarchicalConfiguration config, ConfigSnapshot previous)
+   {
+      IConfig target = previous != null && previous.get(bean) != null ? newBeanInstance(bean) : bean;
+      beanFingerprints.remove(bean);
+      long start = System.nanoTime();
+      target.loadConfiguration(config);
+      stats.recordBeanBind(bean, System.nanoTime() - start);
+      beanFingerprints.put(bean, ConfigTreeHash.hash(config.getRootNode()));
+      return target;
+   }
+   
+   /***
+    * Creates an unloaded bean of the same class and path as bean.
+    * An inner class bean is created in the enclosing instance of bean and the beans injected into bean 
+    * with {@link ConfigBean#withConfigBean(IConfig)} are copied into it, except the ones its constructor injects again.
+    * @param bean
+    * @return
+    */
+   @SuppressWarnings({ "unchecked", "rawtypes" })
+   private static IConfig newBeanInstance(IConfig bean)
+   {
+      if (bean instanceof LazyConfig)
+      {
+         LazyConfig<?> lazyBean = new LazyConfig(((LazyConfig<?>) bean).getBeanClass());
+         lazyBean.setPath(bean.getPath());
+         lazyBean.setEnclosingInstance(((LazyConfig<?>) bean).getEnclosingInstance());
+         return lazyBean;
+      }
+      try
+      {
+         ConfigBean configBean = (ConfigBean) ReflectionUtil.createInstance(ReflectionUtil.getEnclosingInstance(bean), bean.getClass());
+         configBean.setPath(bean.getPath());
+         List<IConfig> injectedBeans = ((ConfigBean) bean).getConfigBeans();
+         for (int i = configBean.getConfigBeans().size(); i < injectedBeans.size(); i++)
+            configBean.withConfigBean(newBeanInstance(injectedBeans.get(i)));
+         return configBean;
+      }
+      catch(ConfigException e)
+      {
+         throw e;
+      }
+      catch(Exception e)
+      {
+         throw new ConfigException("Failed to create config bean " + bean.getClass().getName(), e);
+      }
+   }
+   
+   /***
+    * Counts the load and publishes a snapshot of the loaded beans and the unchanged beans of the previous snapshot
+    * @param previous
+    * @param loadedBeans
+    */
+   private void publish(ConfigSnapshot previous, Map<IConfig, IConfig> loadedBeans)
+   {
+      long nextGeneration = generation + 1;
+      if (snapshots)
+      {
+         Map<IConfig, IConfig> beans = new IdentityHashMap<IConfig, IConfig>();
+         for (IConfig bean: configBeansList)
+         {
+            IConfig loadedBean = loadedBeans.get(bean);
+            if (loadedBean == null && previous != null)
+               loadedBean = previous.get(bean);
+            if (loadedBean != null)
+               beans.put(bean, loadedBean);
+         }
+         snapshot = new ConfigSnapshot(nextGeneration, configBeansList, beans);
+         if (previous != null)
+            closeReplacedBeans(previous, beans);
+      }
+      generation = nextGeneration;
+   }
+   
+   /***
+    * Closes the Closeable beans of the previous snapshot replaced by the published beans, e.g. the stores of {@link ConfigBeanPagedList}
+    * @param previous
+    * @param beans loaded bean of each registered bean in the published snapshot
+    */
+   private void closeReplacedBeans(ConfigSnapshot previous, Map<IConfig, IConfig> beans)
+   {
+      Set<Closeable> replaced = Collections.newSetFromMap(new IdentityHashMap<Closeable, Boolean>());
+      for (IConfig bean: configBeansList)
+      {
+         IConfig previousBean = previous.get(bean);
+         if (previousBean != null && previousBean != beans.get(bean))
+            addCloseableBeans(previousBean, replaced);
+      }
+      if (replaced.isEmpty())
+         return;
+      Set<Closeable> published = Collections.newSetFromMap(new IdentityHashMap<Closeable, Boolean>());
+      for (IConfig bean: beans.values())
+         addCloseableBeans(bean, published);
+      replaced.removeAll(published);
+      closeBeans(replaced);
+   }
+   
+   /***
+    * Adds bean and the subconfiguration beans loaded from it that implement Closeable
+    * @param bean
+    * @param closeables
+    */
+   private static void addCloseableBeans(IConfig bean, Set<Closeable> closeables)
+   {
+      if (bean instanceof Closeable)
+         closeables.add((Closeable) bean);
+      if (bean instanceof ConfigBean)
+      {
+         for (IConfig subconfigBean: ((ConfigBean) bean).getSubconfigBeans())
+            addCloseableBeans(subconfigBean, closeables);
+      }
+      else if (bean instanceof LazyConfig && ((LazyConfig<?>) bean).getBean() != null)
+         addCloseableBeans(((LazyConfig<?>) bean).getBean(), closeables);
+   }
+   
+   private static void closeBeans(Set<Closeable> closeables)
+   {
+      for (Closeable closeable: closeables)
+      {
+         try
+         {
+            closeable.close();
+         }
+         catch(IOException e)
+         {
+            log.warn("Failed to close configuration bean " + closeable.getClass().getName(), e);
+         }
+      }
+   }
+   
+   /***
+    * Returns the configuration section of the bean 
+    * @param bean
+    * @return
+    */
+   private HierarchicalConfiguration getBeanConfiguration(IConfig bean)
+   {
+         if(bean.getPath() == null)
+         {  
+            throw new ConfigException("Config bean missing configuration path:" + bean.getClass().getName());
+         } 
+         return xmlConfig.configurationAt(bean.getPath());//,isWritable);  
+   }
+   
+    
+   
+   
+   /********  configuration file related code ******/
+   private String configFile = null ;
+   /***
+    * Source the configuration was loaded from if it is not a file
+    */
+   private ConfigSource configSource;
+   /***
+    * Version of the source when it was last read
+    */
+   private volatile Object sourceVersion;
+   /***
+    * Next version check of a reloadable source that is not a file, null if the source is not polled
+    */
+   private volatile ScheduledFuture<?> sourcePoll;
+   /***
+    * Files of a composed configuration in order of precedence, null if not composed
+    */
+   private List<String> configFiles;
+   /***
+    * Last parsed root node of each file of a composed configuration
+    */
+   private ConfigurationNode[] fileRoots;
+   /***
+    * Zip archive the configuration was loaded from, null if not loaded from an archive
+    */
+   private ZipConfigBundle configBundle;
+   /**
+    * @return the configFile
+    */
+   public   String getConfigFile()
+   {
+      return configFile;
+   }
+
+
+   /***
+    * The files the configuration was loaded from, several files if it is composed or the archive of a zip configuration
+    * see {@link #loadConfiguration(List, boolean)}
+    * @return the files or an empty list if not loaded from a file
+    */
+   public List<String> getConfigFiles()
+   {
+      if (configFiles != null)
+         return configFiles;
+      if (configBundle != null)
+         return Collections.singletonList(configBundle.getFile().getPath());
+      return configFile != null ? Collections.singletonList(configFile) : Collections.<String>emptyList();
+   }
+   
+   /**
+    * @param configFile the configFile to set causes a reload of the configuration 
+    */
+   public   void setConfigFile(String configFile)
+   { 
+      //reload configuration 
+      loadConfiguration(configFile );
+   }
+
+
+   /***
+    * Saves the current configuration to the file 
+    * could be overriden by subclasses to save to different sources.
+    * The file is replaced atomically so a crash while saving leaves the previous file, 
+    * the previous file is kept as a backup if backups are enabled see {@link #withBackups(int)}.
+    * The configuration is serialized holding its lock so changes made by {@link ConfigBean#writeProperty(String, Object)}
+    * on other threads wait only for the serialization, the lock is taken before the provider lock as by a change saving itself.
+    * The file is written after releasing it, saves write the file in the order the configuration was serialized.
+    * @throws ConfigurationException
+    */
+   public void save()  
+   {
+      while (true)
+      {
+         XMLConfiguration config = xmlConfig;
+         if (config == null)
+            throw new ConfigException("Configuration is not loaded from a file and can not be saved");
+         SavedContent content;
+         synchronized(config)
+         {
+            content = serializeConfiguration(config);
+         }
+         //retry if the configuration was reloaded before the lock was taken
+         if (content != null)
+         {
+            writeConfiguration(content);
+            return;
+         }
+      }
+   }
+
+   /***
+    * Serializes config if it is still the current configuration
+    * @param config
+    * @return the content to write or null if the configuration was replaced
+    */
+   private synchronized SavedContent serializeConfiguration(XMLConfiguration config)
+   {
+         if (config != xmlConfig)
+            return null;
+         log.info("Updating Configuration file");
+         if (configFiles != null)
+            throw new ConfigException("Configuration composed of several files can not be saved");
+         if (configBundle != null)
+            throw new ConfigException("Configuration loaded from a zip archive can not be saved");
+         if (configFile == null)
+            throw new ConfigException("Configuration is not loaded from a file and can not be saved");
+         try
+         { 
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            config.save(content, config.getEncoding() != null ? config.getEncoding() : "UTF-8"); 
+            return new SavedContent(new File(configFile), content.toByteArray(), ++serializedSaves);
+         }
+         catch(ConfigurationException e)
+         {
+            throw new ConfigException("",e);
+         } 
+   }
+
+   /***
+    * Writes serialized content to its file unless content serialized later was already written
+    * @param content
+    */
+   private void writeConfiguration(SavedContent content)
+   {
+      synchronized(saveLock)
+      {
+         if (content.sequence < writtenSaves)
+            return;
+         try
+         {
+            if (backupRetention > 0)
+               FileUtil.backupFile(content.file, backupRetention);
+            FileUtil.writeAtomically(content.file, content.content);
+         }
+         catch(IOException e)
+         {
+            throw new ConfigException("Failed to save configuration file " + content.file, e);
+         } 
+         writtenSaves = content.sequence;
+         //prevent reloading as this is an internal file change
+         for (ConfigFileWatcher watcher: fileWatchers)
+            watcher.markCurrent();
+      }
+   }
+
+   /***
+    * Configuration serialized by a save to write to the file
+    */
+   private static final class SavedContent
+   {
+      private final File file;
+      private final byte[] content;
+      private final long sequence;
+
+      SavedContent(File file, byte[] content, long sequence)
+      {
+         this.file = file;
+         this.content = content;
+         this.sequence = sequence;
+      }
+   }
+   
+   /***
+    * Keeps the previous file as a backup on every save, see {@link FileUtil#backupFile(File, int)}
+    * @param retention number of backups to keep, 0 to disable backups
+    * @return
+    */
+   public ConfigProvider withBackups(int retention)
+   {
+      this.backupRetention = retention;
+      return this;
+   }
+
+   
+   @Override
+   public void configurationChanged(ConfigurationEvent configEvent)
+   {  
+      // save if a configuration property was set or subnot changed
+      if(configEvent.getType() == HierarchicalConfiguration.EVENT_SUBNODE_CHANGED  && !configEvent.isBeforeUpdate()) 
+      {  
+         ScheduledExecutorService executor = writeBehindExecutor;
+         if (executor != null)
+         {
+            scheduleSave(executor);
+            return;
+         }
+         log.info("Configuration Changed  ... saving configuration!");
+         save(); 
+      }
+      
+   } 
+   
+   /***
+    * Saves changes in the background instead of on every change, changes are coalesced and saved 
+    * at most maxDelayMillis after the first unsaved change or as soon as maxBatchSize changes are unsaved.
+    * Call {@link #flush()} to save the unsaved changes, e.g. before shutdown.
+    * @param maxDelayMillis
+    * @param maxBatchSize
+    * @return
+    */
+   public synchronized ConfigProvider withWriteBehind(long maxDelayMillis, int maxBatchSize)
+   {
+      this.writeBehindDelay = maxDelayMillis;
+      this.writeBehindBatchSize = maxBatchSize;
+      if (writeBehindExecutor == null)
+      {
+         ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory()
+         {
+            @Override
+            public Thread newThread(Runnable runnable)
+            {
+               Thread thread = new Thread(runnable, "Configuration_Writer");
+               thread.setDaemon(true);
+               return thread;
+            }
+         });
+         executor.setRemoveOnCancelPolicy(true);
+         writeBehindExecutor = executor;
+      }
+      return this;
+   }
+   
+   /***
+    * Schedules saving the change, the first unsaved change schedules a save after the delay 
+    * and reaching the batch size saves immediately.
+    */
+   private void scheduleSave(ScheduledExecutorService executor)
+   {
+      int pending = pendingChanges.incrementAndGet();
+      try
+      {
+         if (pending == writeBehindBatchSize)
+            executor.execute(flushTask);
+         else if (pending == 1)
+            executor.schedule(flushTask, writeBehindDelay, TimeUnit.MILLISECONDS);
+      }
+      catch(RejectedExecutionException e)
+      {
+         //closed meanwhile, later changes are saved immediately
+         flush();
+      }
+   }
+   
+   /***
+    * Saves the changes not yet saved by write behind, see {@link #withWriteBehind(long, int)}
+    */
+   public void flush()
+   {
+      int pending = pendingChanges.getAndSet(0);
+      if (pending == 0)
+         return;
+      log.info("Configuration Changed  ... saving " + pending + " changes!");
+      try
+      {
+         save();
+      }
+      catch(ConfigException e)
+      {
+         //keep the changes pending to retry on the next flush
+         ScheduledExecutorService executor = writeBehindExecutor;
+         if (pendingChanges.getAndAdd(pending) == 0 && executor != null)
+         {
+            try
+            {
+               executor.schedule(flushTask, writeBehindDelay, TimeUnit.MILLISECONDS);
+            }
+            catch(RejectedExecutionException rejected)
+            {
+               //closed meanwhile, the next change or flush saves them
+            }
+         }
+         throw e;
+      }
+   }
+   
+   /***
+    * Number of changes not yet saved by write behind
+    * @return
+    */
+   public int getPendingChanges()
+   {
+      return pendingChanges.get();
+   }
+   
+   private boolean isWritable;
+   private boolean isReloadable; 
+   /***
+    * if this configuration changes will be written to the file
+    * @return
+    */
+   public boolean isWritable()
+   {
+      return isWritable;
+   }
+
+   /***
+    * if changes on this configuration file will be reloaded  
+    * @return
+    */
+   public boolean isReloadable()
+   {
+      return isReloadable;
+   }
+
+
+   private volatile List<ConfigFileWatcher> fileWatchers = Collections.emptyList();
+   private volatile int backupRetention;
+   private ConfigCache configCache;
+   private boolean flatParser;
+   private long reloadDebounce = DEFAULT_RELOAD_DEBOUNCE;
+   private final ConfigProviderStats stats = new ConfigProviderStats(this);
+   private ObjectName managementName;
+   private long minRefreshDelay = REFRESH_DELAY;
+   private long maxRefreshDelay = MAX_REFRESH_DELAY;
+   
+   private volatile ScheduledExecutorService writeBehindExecutor;
+   private volatile long writeBehindDelay;
+   private volatile int writeBehindBatchSize;
+   private final AtomicInteger pendingChanges = new AtomicInteger();
+   /***
+    * Orders writing the serialized configuration to the file
+    */
+   private final Object saveLock = new Object();
+   /***
+    * Number of saves serialized, guarded by the provider lock
+    */
+   private long serializedSaves;
+   /***
+    * Sequence of the last save written to the file, guarded by saveLock
+    */
+   private long writtenSaves;
+   private final Runnable flushTask = new Runnable()
+   {
+      @Override
+      public void run()
+      {
+         try
+         {
+            flush();
+         }
+         catch(ConfigException e)
+         {
+            log.error("Failed to save configuration", e);
+         }
+      }
+   };
+ 
+}
@@ -0,0 +1,84 @@
+package com.oselan.common.config;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/***
+ * Management interface of a ConfigProvider reporting its load statistics, registered with
+ * {@link ConfigProvider#withManagement(String)} or read from {@link ConfigProvider#getStats()}.
+ * Durations are in microseconds.
+ * @author Ahmad Hamid
+ */
+public interface ConfigProviderMXBean
+{
+   /***
+    * Number of successful loads of the configuration
+    */
+   public long getLoadCount();
+
+   /***
+    * Number of successful reloads of the configuration
+    */
+   public long getReloadCount();
+
+   /***
+    * Number of loads and reloads that failed
+    */
+   public long getFailureCount();
+
+   /***
+    * Time of the last successful load or reload or null
+    */
+   public Date getLastSuccessTime();
+
+   /***
+    * Time of the last failed load or reload or null
+    */
+   public Date getLastFailureTime();
+
+   /***
+    * Message of the last failure or null
+    */
+   public String getLastFailure();
+
+   /***
+    * Time to parse and merge the configuration on the last load or reload
+    */
+   public long getLastParseMicros();
+
+   /***
+    * Time to bind the beans on the last load or reload
+    */
+   public long getLastBindMicros();
+
+   /***
+    * Time to publish the loaded beans on the last load or reload
+    */
+   public long getLastNotifyMicros();
+
+   /***
+    * Time the last bind of each bean took by bean path
+    */
+   public Map<String, Long> getBeanBindMicros();
+
+   /***
+    * See {@link ConfigProvider#getGeneration()}
+    */
+   public long getGeneration();
+
+   /***
+    * See {@link ConfigProvider#getConfigFiles()}
+    */
+   public List<String> getConfigFiles();
+
+   /***
+    * Reloads the configuration, see {@link ConfigProvider#reload()}
+    */
+   public void reload();
+
+   /***
+    * Saves the configuration, see {@link ConfigProvider#save()}
+    */
+   public void save();
+}
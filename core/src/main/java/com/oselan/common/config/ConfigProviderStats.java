@@ -0,0 +1,154 @@
+package com.oselan.common.config;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/***
+ * Load statistics of a ConfigProvider, recorded by the provider and exposed as its MXBean
+ * @author Ahmad Hamid
+ */
+final class ConfigProviderStats implements ConfigProviderMXBean
+{
+   private final ConfigProvider provider;
+   private final AtomicLong loadCount = new AtomicLong();
+   private final AtomicLong reloadCount = new AtomicLong();
+   private final AtomicLong failureCount = new AtomicLong();
+   private volatile long lastSuccessTime;
+   private volatile long lastFailureTime;
+   private volatile String lastFailure;
+   private volatile long lastParseNanos;
+   private volatile long lastBindNanos;
+   private volatile long lastNotifyNanos;
+   private final Map<String, Long> beanBindNanos = new ConcurrentHashMap<String, Long>();
+
+   ConfigProviderStats(ConfigProvider provider)
+   {
+      this.provider = provider;
+   }
+
+   void recordParse(long nanos)
+   {
+      lastParseNanos = nanos;
+   }
+
+   void recordBind(long nanos)
+   {
+      lastBindNanos = nanos;
+   }
+
+   void recordBeanBind(IConfig bean, long nanos)
+   {
+      beanBindNanos.put(bean.getPath(), nanos);
+   }
+
+   void recordNotify(long nanos)
+   {
+      lastNotifyNanos = nanos;
+   }
+
+   void recordSuccess(boolean reload)
+   {
+      (reload ? reloadCount : loadCount).incrementAndGet();
+      lastSuccessTime = System.currentTimeMillis();
+   }
+
+   void recordFailure(Throwable failure)
+   {
+      failureCount.incrementAndGet();
+      lastFailure = failure.getCause() != null ? failure.getMessage() + ": " + failure.getCause() : failure.getMessage();
+      lastFailureTime = System.currentTimeMillis();
+   }
+
+   @Override
+   public long getLoadCount()
+   {
+      return loadCount.get();
+   }
+
+   @Override
+   public long getReloadCount()
+   {
+      return reloadCount.get();
+   }
+
+   @Override
+   public long getFailureCount()
+   {
+      return failureCount.get();
+   }
+
+   @Override
+   public Date getLastSuccessTime()
+   {
+      return lastSuccessTime == 0 ? null : new Date(lastSuccessTime);
+   }
+
+   @Override
+   public Date getLastFailureTime()
+   {
+      return lastFailureTime == 0 ? null : new Date(lastFailureTime);
+   }
+
+   @Override
+   public String getLastFailure()
+   {
+      return lastFailure;
+   }
+
+   @Override
+   public long getLastParseMicros()
+   {
+      return TimeUnit.NANOSECONDS.toMicros(lastParseNanos);
+   }
+
+   @Override
+   public long getLastBindMicros()
+   {
+      return TimeUnit.NANOSECONDS.toMicros(lastBindNanos);
+   }
+
+   @Override
+   public long getLastNotifyMicros()
+   {
+      return TimeUnit.NANOSECONDS.toMicros(lastNotifyNanos);
+   }
+
+   @Override
+   public Map<String, Long> getBeanBindMicros()
+   {
+      Map<String, Long> micros = new TreeMap<String, Long>();
+      for (Map.Entry<String, Long> entry : beanBindNanos.entrySet())
+         micros.put(entry.getKey(), TimeUnit.NANOSECONDS.toMicros(entry.getValue()));
+      return Collections.unmodifiableMap(micros);
+   }
+
+   @Override
+   public long getGeneration()
+   {
+      return provider.getGeneration();
+   }
+
+   @Override
+   public List<String> getConfigFiles()
+   {
+      return provider.getConfigFiles();
+   }
+
+   @Override
+   public void reload()
+   {
+      provider.reload();
+   }
+
+   @Override
+   public void save()
+   {
+      provider.save();
+   }
+}
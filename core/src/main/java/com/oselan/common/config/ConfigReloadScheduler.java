@@ -0,0 +1,235 @@
+package com.oselan.common.config;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/***
+ * Runs the change checks of all watched configuration files, see {@link ConfigFileWatcher},
+ * so the number of threads does not grow with the number of providers.
+ * A single WatchService thread dispatches directory events to the watchers of the directory
+ * and a small scheduled pool runs the debounced and periodic checks.
+ * @author Ahmad Hamid
+ */
+final class ConfigReloadScheduler
+{
+   private static final Logger log = LogManager.getLogger(ConfigReloadScheduler.class);
+   private static final int CHECK_THREADS = 2;
+   /***
+    * Spread of the random jitter added to poll delays as a fraction of the delay
+    */
+   private static final double JITTER = 0.2;
+   private static ConfigReloadScheduler shared;
+
+   private final ScheduledThreadPoolExecutor executor;
+   /***
+    * null if the file system does not support watching, files are then only polled
+    */
+   private final WatchService watchService;
+   private final Map<Path, Set<ConfigFileWatcher>> directoryWatchers = new HashMap<Path, Set<ConfigFileWatcher>>();
+   private final Map<Path, WatchKey> watchKeys = new HashMap<Path, WatchKey>();
+
+   /***
+    * The scheduler shared by all providers, started on first use
+    * @return
+    */
+   static synchronized ConfigReloadScheduler getShared()
+   {
+      if(shared == null)
+         shared = new ConfigReloadScheduler();
+      return shared;
+   }
+
+   ConfigReloadScheduler()
+   {
+      executor = new ScheduledThreadPoolExecutor(CHECK_THREADS, new ThreadFactory()
+      {
+         @Override
+         public Thread newThread(Runnable runnable)
+         {
+            Thread thread = new Thread(runnable, "Configuration_Monitor");
+            thread.setDaemon(true);
+            return thread;
+         }
+      });
+      //debounced checks are rescheduled on every event
+      executor.setRemoveOnCancelPolicy(true);
+      WatchService service = null;
+      try
+      {
+         service = FileSystems.getDefault().newWatchService();
+      }
+      catch(IOException | UnsupportedOperationException e)
+      {
+         log.warn("File system events are not supported, configuration files are polled for changes", e);
+      }
+      watchService = service;
+      if(watchService != null)
+      {
+         Thread watcher = new Thread(new Runnable()
+         {
+            @Override
+            public void run()
+            {
+               dispatchEvents();
+            }
+         }, "Configuration_Watcher");
+         watcher.setDaemon(true);
+         watcher.start();
+      }
+   }
+
+   /***
+    * Runs task after the delay on the check pool
+    * @param task
+    * @param delayMillis
+    * @return
+    */
+   ScheduledFuture<?> schedule(Runnable task, long delayMillis)
+   {
+      return executor.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+   }
+
+   /***
+    * Randomizes a poll delay so that many processes started together do not check shared files at the same time
+    * @param delayMillis
+    * @return the delay plus or minus half the jitter
+    */
+   static long jitter(long delayMillis)
+   {
+      long spread = (long) (delayMillis * JITTER);
+      if(spread <= 0)
+         return delayMillis;
+      return delayMillis - spread / 2 + ThreadLocalRandom.current().nextLong(spread + 1);
+   }
+
+   /***
+    * Delivers the events of directory to watcher, the directory is registered with the watch service if needed
+    * @param watcher
+    * @param directory
+    */
+   synchronized void watchDirectory(ConfigFileWatcher watcher, Path directory)
+   {
+      Set<ConfigFileWatcher> watchers = directoryWatchers.get(directory);
+      if(watchers == null)
+         directoryWatchers.put(directory, watchers = new HashSet<ConfigFileWatcher>());
+      watchers.add(watcher);
+      WatchKey key = watchKeys.get(directory);
+      if(watchService == null || (key != null && key.isValid()) || !Files.isDirectory(directory))
+         return;
+      try
+      {
+         watchKeys.put(directory, directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE));
+      }
+      catch(IOException e)
+      {
+         log.warn("Failed to watch configuration directory " + directory, e);
+      }
+   }
+
+   /***
+    * Stops delivering the events of directory to watcher and stops watching the directory if no other watcher needs it
+    * @param watcher
+    * @param directory
+    */
+   synchronized void unwatchDirectory(ConfigFileWatcher watcher, Path directory)
+   {
+      Set<ConfigFileWatcher> watchers = directoryWatchers.get(directory);
+      if(watchers != null && watchers.remove(watcher) && watchers.isEmpty())
+      {
+         directoryWatchers.remove(directory);
+         WatchKey key = watchKeys.remove(directory);
+         if(key != null)
+            key.cancel();
+      }
+   }
+
+   /***
+    * Stops delivering events to watcher and stops watching the directories no other watcher needs
+    * @param watcher
+    */
+   synchronized void unwatch(ConfigFileWatcher watcher)
+   {
+      Iterator<Map.Entry<Path, Set<ConfigFileWatcher>>> entries = directoryWatchers.entrySet().iterator();
+      while(entries.hasNext())
+      {
+         Map.Entry<Path, Set<ConfigFileWatcher>> entry = entries.next();
+         if(entry.getValue().remove(watcher) && entry.getValue().isEmpty())
+         {
+            entries.remove();
+            WatchKey key = watchKeys.remove(entry.getKey());
+            if(key != null)
+               key.cancel();
+         }
+      }
+   }
+
+   /***
+    * Number of watched directories
+    * @return
+    */
+   synchronized int getWatchedDirectoryCount()
+   {
+      return directoryWatchers.size();
+   }
+
+   private void dispatchEvents()
+   {
+      try
+      {
+         while(true)
+         {
+            WatchKey key = watchService.take();
+            key.pollEvents();
+            Path directory = (Path) key.watchable();
+            List<ConfigFileWatcher> watchers;
+            synchronized(this)
+            {
+               Set<ConfigFileWatcher> directoryWatcher = directoryWatchers.get(directory);
+               watchers = directoryWatcher == null ? Collections.<ConfigFileWatcher>emptyList() : new ArrayList<ConfigFileWatcher>(directoryWatcher);
+               //a deleted directory is registered again by the next check of a watcher that still needs it once it exists
+               if(!key.reset() && watchKeys.get(directory) == key)
+               {
+                  watchKeys.remove(directory);
+                  if(!Files.isDirectory(directory))
+                     directoryWatchers.remove(directory);
+               }
+            }
+            for(ConfigFileWatcher watcher : watchers)
+               watcher.onEvent();
+         }
+      }
+      catch(InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+      }
+      catch(ClosedWatchServiceException e)
+      {
+         //stopped
+      }
+   }
+}
@@ -0,0 +1,88 @@
+package com.oselan.common.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/***
+ * Consistent view of the configuration beans of a ConfigProvider as loaded by one load or reload.
+ * A snapshot is never changed once published, a reload publishes a new snapshot with a higher generation
+ * holding new instances of the beans whose configuration changed and the same instances of the others.
+ * Keep a reference to a snapshot to read the same configuration during a whole request, e.g.
+ * <pre>
+ * ConfigSnapshot snapshot = provider.getSnapshot();
+ * MailConfig mail = snapshot.getBean(MailConfig.class);
+ * </pre>
+ * see {@link ConfigProvider#withSnapshots()}
+ * @author Ahmad Hamid
+ */
+public final class ConfigSnapshot
+{
+   private final long generation;
+   /***
+    * Registered beans in registration order
+    */
+   private final List<IConfig> registeredBeans;
+   /***
+    * Loaded bean of each registered bean
+    */
+   private final Map<IConfig, IConfig> beans;
+
+   /***
+    * @param generation
+    * @param registeredBeans registered beans in registration order
+    * @param beans loaded bean of each registered bean
+    */
+   ConfigSnapshot(long generation, List<IConfig> registeredBeans, Map<IConfig, IConfig> beans)
+   {
+      this.generation = generation;
+      this.registeredBeans = Collections.unmodifiableList(new ArrayList<IConfig>(registeredBeans));
+      this.beans = Collections.unmodifiableMap(new IdentityHashMap<IConfig, IConfig>(beans));
+   }
+
+   /***
+    * The number of the load or reload that published this snapshot, starting at 1
+    * @return
+    */
+   public long getGeneration()
+   {
+      return generation;
+   }
+
+   /***
+    * Returns the loaded bean of the registered bean
+    * @param registeredBean bean registered with {@link ConfigProvider#withConfigBean(IConfig)}
+    * @return the bean of this snapshot or null if the bean was not loaded
+    */
+   @SuppressWarnings("unchecked")
+   public <T extends IConfig> T get(T registeredBean)
+   {
+      return (T) beans.get(registeredBean);
+   }
+
+   /***
+    * Returns the loaded bean of the first registered bean of beanClass
+    * @param beanClass
+    * @return the bean or null if no bean of beanClass was loaded
+    */
+   public <T extends IConfig> T getBean(Class<T> beanClass)
+   {
+      for(IConfig registeredBean : registeredBeans)
+      {
+         IConfig bean = beans.get(registeredBean);
+         if(bean != null && bean.getClass() == beanClass)
+            return beanClass.cast(bean);
+      }
+      return null;
+   }
+
+   @Override
+   public String toString()
+   {
+      StringBuilder builder = new StringBuilder();
+      builder.append("ConfigSnapshot [generation=").append(generation).append(", beans=").append(beans.size()).append("]");
+      return builder.toString();
+   }
+}
@@ -0,0 +1,33 @@
+package com.oselan.common.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/***
+ * A source of xml configuration loaded by a ConfigProvider, see {@link ConfigSources} for the provided sources.
+ * Implement to load configuration from other sources, e.g. a database or a remote service.
+ * @author Ahmad Hamid
+ */
+public interface ConfigSource
+{
+   /***
+    * Opens the xml content of the source, closed by the caller
+    * @return
+    * @throws IOException
+    */
+   public InputStream openStream() throws IOException;
+
+   /***
+    * The file of the source, file sources are parsed with the provider parser options and can be watched and saved
+    * @return the file or null if the source is not a file
+    */
+   public File getFile();
+
+   /***
+    * A token that changes when the content of the source changes, e.g. a modification time or an etag.
+    * The source is re-read on reload only if its version changed.
+    * @return the version or null if changes can not be detected and the source is never re-read
+    */
+   public Object getVersion();
+}
@@ -0,0 +1,276 @@
+package com.oselan.common.config;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.Charset;
+
+import com.oselan.common.file.FileUtil;
+
+/***
+ * Factory of the provided configuration sources
+ * @author Ahmad Hamid
+ */
+public final class ConfigSources
+{
+   private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+   private ConfigSources()
+   {
+   }
+
+   /***
+    * Detects if the value is an xml string or a file path from its first character instead of parsing it,
+    * xml starts with '<' after any white space while a file path does not.
+    * @param fileNameOrXml
+    * @return a string source or a file source
+    */
+   public static ConfigSource detect(String fileNameOrXml)
+   {
+      for (int i = 0; i < fileNameOrXml.length(); i++)
+      {
+         char c = fileNameOrXml.charAt(i);
+         if (c == '<')
+            return string(fileNameOrXml);
+         if (!Character.isWhitespace(c) && c != BYTE_ORDER_MARK)
+            break;
+      }
+      return file(fileNameOrXml);
+   }
+
+   /***
+    * A file relative to the working directory or absolute, see {@link FileUtil#getFilePath(String)}
+    * @param path
+    * @return
+    */
+   public static ConfigSource file(String path)
+   {
+      return new FileSource(new File(FileUtil.getFilePath(path)));
+   }
+
+   /***
+    * A resource on the classpath of the context class loader
+    * @param resource resource name, e.g. config/app.xml
+    * @return
+    */
+   public static ConfigSource classpath(String resource)
+   {
+      ClassLoader loader = Thread.currentThread().getContextClassLoader();
+      return classpath(resource, loader != null ? loader : ConfigSources.class.getClassLoader());
+   }
+
+   /***
+    * A resource on the classpath of loader
+    * @param resource
+    * @param loader
+    * @return
+    */
+   public static ConfigSource classpath(String resource, ClassLoader loader)
+   {
+      return new ClasspathSource(resource, loader);
+   }
+
+   /***
+    * An xml string
+    * @param xml
+    * @return
+    */
+   public static ConfigSource string(String xml)
+   {
+      return new StringSource(xml);
+   }
+
+   /***
+    * An xml stream, read once as changes can not be detected. The stream is not closed.
+    * @param xmlStream
+    * @return
+    */
+   public static ConfigSource stream(InputStream xmlStream)
+   {
+      return new StreamSource(xmlStream);
+   }
+
+   static final class FileSource implements ConfigSource
+   {
+      private final File file;
+
+      FileSource(File file)
+      {
+         this.file = file;
+      }
+
+      @Override
+      public InputStream openStream() throws IOException
+      {
+         return new FileInputStream(file);
+      }
+
+      @Override
+      public File getFile()
+      {
+         return file;
+      }
+
+      @Override
+      public Object getVersion()
+      {
+         return file.lastModified() + ":" + file.length();
+      }
+
+      @Override
+      public String toString()
+      {
+         return file.getPath();
+      }
+   }
+
+   static final class ClasspathSource implements ConfigSource
+   {
+      private final String resource;
+      private final ClassLoader loader;
+
+      ClasspathSource(String resource, ClassLoader loader)
+      {
+         this.resource = resource;
+         this.loader = loader;
+      }
+
+      @Override
+      public InputStream openStream() throws IOException
+      {
+         URLConnection connection = openConnection();
+         //do not keep jar files open after reading
+         connection.setUseCaches(false);
+         return connection.getInputStream();
+      }
+
+      @Override
+      public File getFile()
+      {
+         return null;
+      }
+
+      @Override
+      public Object getVersion()
+      {
+         try
+         {
+            URLConnection connection = openConnection();
+            connection.setUseCaches(false);
+            long modified = connection.getLastModified();
+            //opening a connection to a file opens the file
+            connection.getInputStream().close();
+            return modified == 0 ? null : Long.valueOf(modified);
+         }
+         catch(IOException e)
+         {
+            return null;
+         }
+      }
+
+      private URLConnection openConnection() throws IOException
+      {
+         URL url = loader.getResource(resource);
+         if (url == null)
+            throw new FileNotFoundException("Configuration resource not found on classpath " + resource);
+         return url.openConnection();
+      }
+
+      @Override
+      public String toString()
+      {
+         return "classpath:" + resource;
+      }
+   }
+
+   static final class StringSource implements ConfigSource
+   {
+      private static final Charset UTF8 = Charset.forName("UTF-8");
+      private final String xml;
+
+      StringSource(String xml)
+      {
+         this.xml = xml;
+      }
+
+      /***
+       * The xml string, read by the provider as characters so that an encoding declared in the xml is ignored
+       * @return
+       */
+      String getXml()
+      {
+         return xml;
+      }
+
+      @Override
+      public InputStream openStream()
+      {
+         return new ByteArrayInputStream(xml.getBytes(UTF8));
+      }
+
+      @Override
+      public File getFile()
+      {
+         return null;
+      }
+
+      @Override
+      public Object getVersion()
+      {
+         return null;
+      }
+
+      @Override
+      public String toString()
+      {
+         return "xml string";
+      }
+   }
+
+   static final class StreamSource implements ConfigSource
+   {
+      private final InputStream stream;
+
+      StreamSource(InputStream stream)
+      {
+         this.stream = stream;
+      }
+
+      @Override
+      public InputStream openStream()
+      {
+         //the stream belongs to the caller
+         return new FilterInputStream(stream)
+         {
+            @Override
+            public void close()
+            {
+            }
+         };
+      }
+
+      @Override
+      public File getFile()
+      {
+         return null;
+      }
+
+      @Override
+      public Object getVersion()
+      {
+         return null;
+      }
+
+      @Override
+      public String toString()
+      {
+         return "xml stream";
+      }
+   }
+}
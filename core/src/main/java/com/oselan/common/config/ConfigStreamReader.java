@@ -0,0 +1,469 @@
+package com.oselan.common.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.configuration.HierarchicalConfiguration;
+import org.apache.commons.configuration.PropertyConverter;
+
+import com.oselan.common.util.ReflectionUtil;
+
+/***
+ * Reads the repeated children of a configuration section from the xml source one at a time, without loading the
+ * document or the list. Only the current child is held in memory as its own small configuration, bound to a new bean
+ * and passed to a visitor or a stream, e.g. to build compact structures from sections of hundreds of thousands of elements.
+ * e.g. new ConfigStreamReader(ConfigSources.file("routes.xml")).forEach(routesList, visitor)
+ * Children are parsed into the same nodes as the provider would load: text is trimmed, attribute and element values
+ * are split at unescaped ',' into several nodes, attributes are ordered by name and elements without text, children 
+ * or attributes have an empty value.
+ * Paths are element names from the root separated by '.', e.g. "Routes.Route", attributes and indexes are not supported.
+ * Parallel streams read the source on one thread in batches of {@link #withBatchSize(int)} children and bind the
+ * batches in parallel, memory is bounded by the batches being bound.
+ * @author Ahmad Hamid
+ */
+public final class ConfigStreamReader
+{
+   private static final char LIST_DELIMITER = ',';
+   public static final int DEFAULT_BATCH_SIZE = 256;
+   private static final XMLInputFactory FACTORY = XMLInputFactory.newInstance();
+   static
+   {
+      FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+      FACTORY.setProperty(XMLInputFactory.IS_COALESCING, true);
+   }
+
+   private final ConfigSource source;
+   private int batchSize = DEFAULT_BATCH_SIZE;
+
+   public ConfigStreamReader(ConfigSource source)
+   {
+      if(source == null)
+         throw new IllegalArgumentException("Configuration source is required");
+      this.source = source;
+   }
+
+   /***
+    * A reader of a file path, classpath resource or xml string, see {@link ConfigSources#detect(String)}
+    * @param fileNameOrXml
+    */
+   public ConfigStreamReader(String fileNameOrXml)
+   {
+      this(ConfigSources.detect(fileNameOrXml));
+   }
+
+   /***
+    * Sets the number of children read per batch of a parallel stream
+    * @param batchSize
+    * @return
+    */
+   public ConfigStreamReader withBatchSize(int batchSize)
+   {
+      if(batchSize < 1)
+         throw new IllegalArgumentException("Batch size must be positive");
+      this.batchSize = batchSize;
+      return this;
+   }
+
+   /***
+    * Binds each child of the section of list to a new bean of its element class and passes it to visitor.
+    * The list itself is not loaded.
+    * @param list the list bean mapping the section
+    * @param visitor
+    * @return the number of visited children
+    */
+   public <T extends ConfigBean> long forEach(ConfigBeanList<T> list, ConfigVisitor<? super T> visitor)
+   {
+      return forEach(list.getPath(), list.getElementClass(), visitor);
+   }
+
+   /***
+    * Binds each child of elementClass in the section to a new bean and passes it to visitor
+    * @param sectionPath path of the section e.g. "Routes"
+    * @param elementClass
+    * @param visitor
+    * @return the number of visited children
+    */
+   public <T extends ConfigBean> long forEach(String sectionPath, final Class<T> elementClass, final ConfigVisitor<? super T> visitor)
+   {
+      return forEachConfiguration(childPath(sectionPath, elementClass), new ConfigVisitor<HierarchicalConfiguration>()
+      {
+         @Override
+         public boolean visit(HierarchicalConfiguration child) throws Exception
+         {
+            return visitor.visit(bind(elementClass, child));
+         }
+      });
+   }
+
+   /***
+    * Passes the configuration of each element at path to visitor
+    * @param path path of the elements e.g. "Routes.Route"
+    * @param visitor
+    * @return the number of visited elements
+    */
+   public long forEachConfiguration(String path, ConfigVisitor<? super HierarchicalConfiguration> visitor)
+   {
+      ElementReader reader = new ElementReader(path);
+      try
+      {
+         long count = 0;
+         HierarchicalConfiguration child;
+         while((child = reader.next()) != null)
+         {
+            count++;
+            if(!visitor.visit(child))
+               break;
+         }
+         return count;
+      }
+      catch(ConfigException e)
+      {
+         throw e;
+      }
+      catch(Exception e)
+      {
+         throw new ConfigException("Failed to read " + path + " from " + source, e);
+      }
+      finally
+      {
+         reader.close();
+      }
+   }
+
+   /***
+    * A stream of the children of elementClass in the section bound to new beans, the source is open until the stream is closed
+    * @param sectionPath path of the section e.g. "Routes"
+    * @param elementClass
+    * @param parallel to bind batches of children in parallel
+    * @return
+    */
+   public <T extends ConfigBean> Stream<T> stream(String sectionPath, final Class<T> elementClass, boolean parallel)
+   {
+      return configurations(childPath(sectionPath, elementClass), parallel).map(new Function<HierarchicalConfiguration, T>()
+      {
+         @Override
+         public T apply(HierarchicalConfiguration child)
+         {
+            return bind(elementClass, child);
+         }
+      });
+   }
+
+   /***
+    * A stream of the configurations of the elements at path, the source is open until the stream is closed
+    * @param path path of the elements e.g. "Routes.Route"
+    * @param parallel to split the elements in batches
+    * @return
+    */
+   public Stream<HierarchicalConfiguration> configurations(String path, boolean parallel)
+   {
+      final ElementReader reader = new ElementReader(path);
+      return StreamSupport.stream(new ElementSpliterator(reader, batchSize), parallel).onClose(new Runnable()
+      {
+         @Override
+         public void run()
+         {
+            reader.close();
+         }
+      });
+   }
+
+   private static String childPath(String sectionPath, Class<? extends ConfigBean> elementClass)
+   {
+      try
+      {
+         String elementPath = ConfigBeanList.getElementPath(elementClass);
+         return sectionPath == null || sectionPath.isEmpty() ? elementPath : sectionPath + "." + elementPath;
+      }
+      catch(Exception e)
+      {
+         throw new ConfigException("Config bean missing configuration path:" + elementClass.getName(), e);
+      }
+   }
+
+   private static <T extends ConfigBean> T bind(Class<T> elementClass, HierarchicalConfiguration child)
+   {
+      try
+      {
+         T bean = ReflectionUtil.createInstance(elementClass);
+         bean.loadConfiguration(child);
+         return bean;
+      }
+      catch(ConfigException e)
+      {
+         throw e;
+      }
+      catch(Exception e)
+      {
+         throw new ConfigException(e);
+      }
+   }
+
+   /***
+    * Reads the elements at a path one at a time
+    */
+   private final class ElementReader
+   {
+      private final String[] path;
+      private final Deque<HierarchicalConfiguration> pending = new ArrayDeque<HierarchicalConfiguration>();
+      private InputStream in;
+      private XMLStreamReader reader;
+      /***
+       * Depth of the current element, the root element is at 0
+       */
+      private int depth = -1;
+      /***
+       * Number of levels of the path matched by the current element and its parents
+       */
+      private int matched;
+      private boolean closed;
+
+      ElementReader(String path)
+      {
+         if(path == null || path.isEmpty() || path.indexOf('[') >= 0 || path.indexOf('(') >= 0 || path.contains(".."))
+            throw new IllegalArgumentException("Invalid element path " + path);
+         this.path = path.split("\\.");
+      }
+
+      /***
+       * Returns the configuration of the next element or null at the end of the document
+       */
+      HierarchicalConfiguration next() throws IOException, XMLStreamException
+      {
+         if(!pending.isEmpty())
+            return pending.poll();
+         if(closed)
+            return null;
+         if(reader == null)
+            open();
+         while(reader.hasNext())
+         {
+            int event = reader.next();
+            if(event == XMLStreamConstants.START_ELEMENT)
+            {
+               depth++;
+               if(depth > 0 && matched == depth - 1 && depth <= path.length && path[depth - 1].equals(getName(reader)))
+                  matched = depth;
+               if(matched == path.length && depth == path.length)
+               {
+                  for(HierarchicalConfiguration.Node node : readElement())
+                  {
+                     HierarchicalConfiguration config = new HierarchicalConfiguration();
+                     config.setRootNode(node);
+                     config.setThrowExceptionOnMissing(true);
+                     config.setDelimiterParsingDisabled(true);
+                     pending.add(config);
+                  }
+                  matched--;
+                  depth--;
+                  if(!pending.isEmpty())
+                     return pending.poll();
+               }
+            }
+            else if(event == XMLStreamConstants.END_ELEMENT)
+            {
+               if(matched == depth)
+                  matched--;
+               depth--;
+            }
+         }
+         close();
+         return null;
+      }
+
+      private void open() throws IOException, XMLStreamException
+      {
+         if(source instanceof ConfigSources.StringSource)
+            reader = FACTORY.createXMLStreamReader(new StringReader(((ConfigSources.StringSource) source).getXml()));
+         else
+         {
+            in = source.openStream();
+            reader = FACTORY.createXMLStreamReader(in);
+         }
+      }
+
+      /***
+       * Reads the element at the reader and its children, returns the element followed by the elements of its split values
+       */
+      private List<HierarchicalConfiguration.Node> readElement() throws XMLStreamException
+      {
+         HierarchicalConfiguration.Node node = new HierarchicalConfiguration.Node(getName(reader));
+         readAttributes(node);
+         StringBuilder text = null;
+         while(true)
+         {
+            int event = reader.next();
+            if(event == XMLStreamConstants.START_ELEMENT)
+            {
+               for(HierarchicalConfiguration.Node child : readElement())
+                  node.addChild(child);
+            }
+            else if(event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA || event == XMLStreamConstants.SPACE)
+            {
+               if(text == null)
+                  text = new StringBuilder();
+               text.append(reader.getText());
+            }
+            else if(event == XMLStreamConstants.END_ELEMENT)
+               break;
+         }
+         String value = text == null ? "" : text.toString().trim();
+         if(value.isEmpty())
+         {
+            //like the xml parser only an element without children or attributes has an empty value
+            if(!node.hasChildren() && node.getAttributeCount() == 0)
+               node.setValue(value);
+            return Collections.singletonList(node);
+         }
+         List<?> parts = PropertyConverter.split(value, LIST_DELIMITER);
+         node.setValue(parts.get(0));
+         if(parts.size() == 1)
+            return Collections.singletonList(node);
+         List<HierarchicalConfiguration.Node> nodes = new ArrayList<HierarchicalConfiguration.Node>(parts.size());
+         nodes.add(node);
+         for(int i = 1; i < parts.size(); i++)
+         {
+            HierarchicalConfiguration.Node sibling = new HierarchicalConfiguration.Node(node.getName());
+            sibling.setValue(parts.get(i));
+            nodes.add(sibling);
+         }
+         return nodes;
+      }
+
+      /***
+       * Adds the attributes ordered by name, a value with list delimiters is added as one attribute per value
+       */
+      private void readAttributes(HierarchicalConfiguration.Node node)
+      {
+         int count = reader.getAttributeCount();
+         List<String[]> attributes = new ArrayList<String[]>(count);
+         for(int i = 0; i < count; i++)
+         {
+            String prefix = reader.getAttributePrefix(i);
+            String name = prefix == null || prefix.isEmpty() ? reader.getAttributeLocalName(i) : prefix + ":" + reader.getAttributeLocalName(i);
+            attributes.add(new String[] { name, reader.getAttributeValue(i) });
+         }
+         Collections.sort(attributes, ATTRIBUTE_ORDER);
+         for(String[] attribute : attributes)
+         {
+            for(Object value : PropertyConverter.split(attribute[1], LIST_DELIMITER))
+            {
+               HierarchicalConfiguration.Node attributeNode = new HierarchicalConfiguration.Node(attribute[0]);
+               attributeNode.setValue(value);
+               node.addAttribute(attributeNode);
+            }
+         }
+      }
+
+      void close()
+      {
+         if(closed)
+            return;
+         closed = true;
+         try
+         {
+            if(reader != null)
+               reader.close();
+            if(in != null)
+               in.close();
+         }
+         catch(Exception e)
+         {
+            ConfigProvider.log.warn("Failed to close configuration source " + source, e);
+         }
+      }
+   }
+
+   private static final Comparator<String[]> ATTRIBUTE_ORDER = new Comparator<String[]>()
+   {
+      @Override
+      public int compare(String[] attribute1, String[] attribute2)
+      {
+         return attribute1[0].compareTo(attribute2[0]);
+      }
+   };
+
+   private static String getName(XMLStreamReader reader)
+   {
+      String prefix = reader.getPrefix();
+      return prefix == null || prefix.isEmpty() ? reader.getLocalName() : prefix + ":" + reader.getLocalName();
+   }
+
+   /***
+    * Splits the elements in batches of a fixed size so a parallel stream never reads ahead more than a batch per split
+    */
+   private static final class ElementSpliterator implements Spliterator<HierarchicalConfiguration>
+   {
+      private final ElementReader reader;
+      private final int batchSize;
+
+      ElementSpliterator(ElementReader reader, int batchSize)
+      {
+         this.reader = reader;
+         this.batchSize = batchSize;
+      }
+
+      @Override
+      public boolean tryAdvance(Consumer<? super HierarchicalConfiguration> action)
+      {
+         HierarchicalConfiguration child = read();
+         if(child == null)
+            return false;
+         action.accept(child);
+         return true;
+      }
+
+      @Override
+      public Spliterator<HierarchicalConfiguration> trySplit()
+      {
+         List<HierarchicalConfiguration> batch = new ArrayList<HierarchicalConfiguration>(batchSize);
+         HierarchicalConfiguration child;
+         while(batch.size() < batchSize && (child = read()) != null)
+            batch.add(child);
+         return batch.isEmpty() ? null : Spliterators.spliterator(batch, characteristics());
+      }
+
+      private HierarchicalConfiguration read()
+      {
+         try
+         {
+            return reader.next();
+         }
+         catch(Exception e)
+         {
+            reader.close();
+            throw new ConfigException("Failed to read configuration source", e);
+         }
+      }
+
+      @Override
+      public long estimateSize()
+      {
+         return Long.MAX_VALUE;
+      }
+
+      @Override
+      public int characteristics()
+      {
+         return ORDERED | NONNULL;
+      }
+   }
+}
@@ -0,0 +1,78 @@
+package com.oselan.common.config;
+
+import java.util.List;
+
+import org.apache.commons.configuration.tree.ConfigurationNode;
+
+/***
+ * Computes 64 bit fingerprints of configuration subtrees.
+ * The fingerprint of a node combines its name, value, attributes and the fingerprints of its children in order,
+ * so two subtrees with the same fingerprint hold the same configuration and a change anywhere in a subtree
+ * changes the fingerprint of every node above it.
+ * @author Ahmad Hamid
+ */
+final class ConfigTreeHash
+{
+   private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+   private static final long FNV_PRIME = 0x100000001b3L;
+   private static final long NULL_MARKER = 0x9e3779b97f4a7c15L;
+
+   private ConfigTreeHash()
+   {
+   }
+
+   /***
+    * Returns the fingerprint of the subtree of node
+    * @param node
+    * @return
+    */
+   static long hash(ConfigurationNode node)
+   {
+      long hash = FNV_OFFSET;
+      hash = hashString(hash, node.getName());
+      hash = hashValue(hash, node.getValue());
+      List<?> attributes = node.getAttributes();
+      hash = mix(hash, attributes.size());
+      for(Object attribute : attributes)
+      {
+         ConfigurationNode attributeNode = (ConfigurationNode) attribute;
+         hash = hashString(hash, attributeNode.getName());
+         hash = hashValue(hash, attributeNode.getValue());
+      }
+      List<?> children = node.getChildren();
+      hash = mix(hash, children.size());
+      for(Object child : children)
+      {
+         hash = mix(hash, hash((ConfigurationNode) child));
+      }
+      return hash;
+   }
+
+   private static long hashValue(long hash, Object value)
+   {
+      if(value == null)
+         return mix(hash, NULL_MARKER);
+      return hashString(hash, value.toString());
+   }
+
+   private static long hashString(long hash, String value)
+   {
+      if(value == null)
+         return mix(hash, NULL_MARKER);
+      for(int i = 0; i < value.length(); i++)
+      {
+         hash ^= value.charAt(i);
+         hash *= FNV_PRIME;
+      }
+      return mix(hash, value.length());
+   }
+
+   /***
+    * Mixes a 64 bit value into the hash
+    */
+   private static long mix(long hash, long value)
+   {
+      long mixed = (hash ^ value) * 0xff51afd7ed558ccdL;
+      return mixed ^ (mixed >>> 33);
+   }
+}
@@ -0,0 +1,17 @@
+package com.oselan.common.config;
+
+/***
+ * Receives the children of a configuration section one at a time, see {@link ConfigStreamReader}
+ * @author Ahmad Hamid
+ * @param <T> the child type, a bean or a HierarchicalConfiguration
+ */
+public interface ConfigVisitor<T>
+{
+   /***
+    * Visits a child, the child is not kept by the reader
+    * @param child
+    * @return false to stop reading the section
+    * @throws Exception fails the read, wrapped in a ConfigException
+    */
+   public boolean visit(T child) throws Exception;
+}
@@ -0,0 +1,309 @@
+package com.oselan.common.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.configuration.tree.ConfigurationNode;
+import org.apache.commons.configuration.tree.ConfigurationNodeVisitor;
+
+/***
+ * Read only ConfigurationNode view of an element or attribute of a {@link FlatConfigTree}.
+ * Views are created on access and hold no state besides their index, two views of the same node are equal.
+ * @author Ahmad Hamid
+ */
+final class FlatConfigNode implements ConfigurationNode
+{
+   private final FlatConfigTree tree;
+   private final int index;
+   /***
+    * Element holding the attribute or NONE if this is an element
+    */
+   private final int owner;
+
+   /***
+    * @param tree
+    * @param index index of the element or attribute
+    * @param owner element of the attribute or {@link FlatConfigTree#NONE} for elements
+    */
+   FlatConfigNode(FlatConfigTree tree, int index, int owner)
+   {
+      this.tree = tree;
+      this.index = index;
+      this.owner = owner;
+   }
+
+   @Override
+   public String getName()
+   {
+      return isAttribute() ? tree.getAttributeName(index) : tree.getName(index);
+   }
+
+   @Override
+   public Object getValue()
+   {
+      return isAttribute() ? tree.getAttributeValue(index) : tree.getValue(index);
+   }
+
+   @Override
+   public Object getReference()
+   {
+      return null;
+   }
+
+   @Override
+   public ConfigurationNode getParentNode()
+   {
+      if(isAttribute())
+         return new FlatConfigNode(tree, owner, FlatConfigTree.NONE);
+      int parent = tree.getParent(index);
+      return parent == FlatConfigTree.NONE ? null : new FlatConfigNode(tree, parent, FlatConfigTree.NONE);
+   }
+
+   @Override
+   public List<ConfigurationNode> getChildren()
+   {
+      return getChildren(null);
+   }
+
+   @Override
+   public int getChildrenCount()
+   {
+      return getChildrenCount(null);
+   }
+
+   @Override
+   public List<ConfigurationNode> getChildren(String name)
+   {
+      if(isAttribute())
+         return Collections.emptyList();
+      List<ConfigurationNode> children = new ArrayList<ConfigurationNode>();
+      for(int child = tree.getFirstChild(index); child != FlatConfigTree.NONE; child = tree.getNextSibling(child))
+      {
+         if(name == null || name.equals(tree.getName(child)))
+            children.add(new FlatConfigNode(tree, child, FlatConfigTree.NONE));
+      }
+      return children;
+   }
+
+   @Override
+   public int getChildrenCount(String name)
+   {
+      if(isAttribute())
+         return 0;
+      int count = 0;
+      for(int child = tree.getFirstChild(index); child != FlatConfigTree.NONE; child = tree.getNextSibling(child))
+      {
+         if(name == null || name.equals(tree.getName(child)))
+            count++;
+      }
+      return count;
+   }
+
+   @Override
+   public ConfigurationNode getChild(int position)
+   {
+      int child = isAttribute() ? FlatConfigTree.NONE : tree.getFirstChild(index);
+      for(int i = 0; i < position && child != FlatConfigTree.NONE; i++)
+         child = tree.getNextSibling(child);
+      if(position < 0 || child == FlatConfigTree.NONE)
+         throw new IndexOutOfBoundsException("No child at " + position);
+      return new FlatConfigNode(tree, child, FlatConfigTree.NONE);
+   }
+
+   @Override
+   public boolean isAttribute()
+   {
+      return owner != FlatConfigTree.NONE;
+   }
+
+   @Override
+   public List<ConfigurationNode> getAttributes()
+   {
+      return getAttributes(null);
+   }
+
+   @Override
+   public int getAttributeCount()
+   {
+      return isAttribute() ? 0 : tree.getAttributeCount(index);
+   }
+
+   @Override
+   public List<ConfigurationNode> getAttributes(String name)
+   {
+      if(isAttribute())
+         return Collections.emptyList();
+      int start = tree.getAttributeStart(index);
+      int end = start + tree.getAttributeCount(index);
+      List<ConfigurationNode> attributes = new ArrayList<ConfigurationNode>(end - start);
+      for(int attribute = start; attribute < end; attribute++)
+      {
+         if(name == null || name.equals(tree.getAttributeName(attribute)))
+            attributes.add(new FlatConfigNode(tree, attribute, index));
+      }
+      return attributes;
+   }
+
+   @Override
+   public int getAttributeCount(String name)
+   {
+      return getAttributes(name).size();
+   }
+
+   @Override
+   public ConfigurationNode getAttribute(int position)
+   {
+      if(position < 0 || position >= getAttributeCount())
+         throw new IndexOutOfBoundsException("No attribute at " + position);
+      return new FlatConfigNode(tree, tree.getAttributeStart(index) + position, index);
+   }
+
+   @Override
+   public boolean isDefined()
+   {
+      return getValue() != null || getChildrenCount() > 0 || getAttributeCount() > 0;
+   }
+
+   @Override
+   public void visit(ConfigurationNodeVisitor visitor)
+   {
+      if(visitor == null)
+         throw new IllegalArgumentException("Visitor must not be null!");
+      if(visitor.terminate())
+         return;
+      visitor.visitBeforeChildren(this);
+      for(ConfigurationNode child : getChildren())
+      {
+         if(visitor.terminate())
+            break;
+         child.visit(visitor);
+      }
+      for(ConfigurationNode attribute : getAttributes())
+      {
+         if(visitor.terminate())
+            break;
+         attribute.visit(visitor);
+      }
+      visitor.visitAfterChildren(this);
+   }
+
+   /***
+    * Views are immutable so the node itself is returned
+    */
+   @Override
+   public Object clone()
+   {
+      return this;
+   }
+
+   @Override
+   public void setName(String name)
+   {
+      throw readOnly();
+   }
+
+   @Override
+   public void setValue(Object value)
+   {
+      throw readOnly();
+   }
+
+   @Override
+   public void setReference(Object reference)
+   {
+      throw readOnly();
+   }
+
+   /***
+    * Ignored as views always return their parsed parent, allows adding views to the view nodes
+    * of combined configurations which restore the parent of the added node, see {@link org.apache.commons.configuration.tree.ViewNode}
+    */
+   @Override
+   public void setParentNode(ConfigurationNode parent)
+   {
+   }
+
+   @Override
+   public void addChild(ConfigurationNode node)
+   {
+      throw readOnly();
+   }
+
+   @Override
+   public boolean removeChild(ConfigurationNode node)
+   {
+      throw readOnly();
+   }
+
+   @Override
+   public boolean removeChild(String name)
+   {
+      throw readOnly();
+   }
+
+   @Override
+   public void removeChildren()
+   {
+      throw readOnly();
+   }
+
+   @Override
+   public void setAttribute(boolean attribute)
+   {
+      if(attribute != isAttribute())
+         throw readOnly();
+   }
+
+   @Override
+   public boolean removeAttribute(ConfigurationNode node)
+   {
+      throw readOnly();
+   }
+
+   @Override
+   public boolean removeAttribute(String name)
+   {
+      throw readOnly();
+   }
+
+   @Override
+   public void removeAttributes()
+   {
+      throw readOnly();
+   }
+
+   @Override
+   public void addAttribute(ConfigurationNode attribute)
+   {
+      throw readOnly();
+   }
+
+   private static UnsupportedOperationException readOnly()
+   {
+      return new UnsupportedOperationException("Configuration parsed by the flat parser is read only");
+   }
+
+   @Override
+   public boolean equals(Object obj)
+   {
+      if(!(obj instanceof FlatConfigNode))
+         return false;
+      FlatConfigNode other = (FlatConfigNode) obj;
+      return tree == other.tree && index == other.index && owner == other.owner;
+   }
+
+   @Override
+   public int hashCode()
+   {
+      return index * 31 + owner;
+   }
+
+   @Override
+   public String toString()
+   {
+      StringBuilder builder = new StringBuilder();
+      builder.append("FlatConfigNode [name=").append(getName()).append(", value=").append(getValue()).append("]");
+      return builder.toString();
+   }
+}
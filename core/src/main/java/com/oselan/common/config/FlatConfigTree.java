@@ -0,0 +1,901 @@
+package com.oselan.common.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.configuration.PropertyConverter;
+import org.apache.commons.configuration.tree.ConfigurationNode;
+
+/***
+ * Read only configuration tree parsed from memory mapped xml, held in parallel int arrays instead of a node object
+ * per element. Nodes and attributes are indexes into the arrays, names and values are indexes into a pool of
+ * deduplicated strings. {@link FlatConfigNode} exposes the tree as ConfigurationNodes so a HierarchicalConfiguration
+ * can be queried and beans can be bound on it.
+ * The tree holds the same nodes as XMLConfiguration would parse: text is trimmed, attribute and element values are
+ * split at unescaped ',' into several nodes, attributes are ordered by name, comments and processing instructions
+ * are skipped. Unlike XMLConfiguration an element whose value is split keeps its children.
+ * Entities are limited to the predefined, character and internal DTD entities, documents must be encoded in UTF-8 or
+ * a single byte charset.
+ * @author Ahmad Hamid
+ */
+final class FlatConfigTree
+{
+   static final int NONE = -1;
+   private static final char LIST_DELIMITER = ',';
+   private static final Charset UTF8 = Charset.forName("UTF-8");
+
+   private int nodeCount;
+   private int[] parents = new int[64];
+   private int[] firstChildren = new int[64];
+   private int[] nextSiblings = new int[64];
+   private int[] names = new int[64];
+   private int[] values = new int[64];
+   private int[] attributeStarts = new int[64];
+   private int[] attributeCounts = new int[64];
+
+   private int attributeCount;
+   private int[] attributeNames = new int[16];
+   private int[] attributeValues = new int[16];
+
+   private int stringCount;
+   private String[] strings = new String[64];
+
+   private FlatConfigTree()
+   {
+   }
+
+   /***
+    * Parses the xml file from a memory mapping of the file
+    * @param file
+    * @return
+    * @throws IOException if the file can not be read
+    * @throws ConfigException if the xml is invalid or not supported
+    */
+   static FlatConfigTree parse(File file) throws IOException
+   {
+      FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+      try
+      {
+         long size = channel.size();
+         if(size > Integer.MAX_VALUE)
+            throw new ConfigException("Configuration file is too large " + file);
+         return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+      }
+      finally
+      {
+         channel.close();
+      }
+   }
+
+   /***
+    * Parses the xml in the remaining bytes of buffer
+    * @param buffer
+    * @return
+    * @throws ConfigException if the xml is invalid or not supported
+    */
+   static FlatConfigTree parse(ByteBuffer buffer)
+   {
+      return new Parser(buffer).parse();
+   }
+
+   /***
+    * The document element
+    * @return
+    */
+   ConfigurationNode getRootNode()
+   {
+      return new FlatConfigNode(this, 0, NONE);
+   }
+
+   int getNodeCount()
+   {
+      return nodeCount;
+   }
+
+   int getStringCount()
+   {
+      return stringCount;
+   }
+
+   String getName(int node)
+   {
+      return strings[names[node]];
+   }
+
+   String getValue(int node)
+   {
+      return values[node] == NONE ? null : strings[values[node]];
+   }
+
+   int getParent(int node)
+   {
+      return parents[node];
+   }
+
+   int getFirstChild(int node)
+   {
+      return firstChildren[node];
+   }
+
+   int getNextSibling(int node)
+   {
+      return nextSiblings[node];
+   }
+
+   int getAttributeStart(int node)
+   {
+      return attributeStarts[node];
+   }
+
+   int getAttributeCount(int node)
+   {
+      return attributeCounts[node];
+   }
+
+   String getAttributeName(int attribute)
+   {
+      return strings[attributeNames[attribute]];
+   }
+
+   String getAttributeValue(int attribute)
+   {
+      return strings[attributeValues[attribute]];
+   }
+
+   private int addNode(int name, int parent)
+   {
+      if(nodeCount == parents.length)
+      {
+         int capacity = nodeCount * 2;
+         parents = Arrays.copyOf(parents, capacity);
+         firstChildren = Arrays.copyOf(firstChildren, capacity);
+         nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+         names = Arrays.copyOf(names, capacity);
+         values = Arrays.copyOf(values, capacity);
+         attributeStarts = Arrays.copyOf(attributeStarts, capacity);
+         attributeCounts = Arrays.copyOf(attributeCounts, capacity);
+      }
+      int node = nodeCount++;
+      parents[node] = parent;
+      firstChildren[node] = NONE;
+      nextSiblings[node] = NONE;
+      names[node] = name;
+      values[node] = NONE;
+      attributeStarts[node] = attributeCount;
+      attributeCounts[node] = 0;
+      return node;
+   }
+
+   private void addAttribute(int node, int name, int value)
+   {
+      if(attributeCount == attributeNames.length)
+      {
+         attributeNames = Arrays.copyOf(attributeNames, attributeCount * 2);
+         attributeValues = Arrays.copyOf(attributeValues, attributeCount * 2);
+      }
+      attributeNames[attributeCount] = name;
+      attributeValues[attributeCount] = value;
+      attributeCount++;
+      attributeCounts[node]++;
+   }
+
+   private int addString(String string)
+   {
+      if(stringCount == strings.length)
+         strings = Arrays.copyOf(strings, stringCount * 2);
+      strings[stringCount] = string;
+      return stringCount++;
+   }
+
+   /***
+    * Tokenizes the xml bytes into the tree, names and plain values are pooled by their bytes
+    * without creating a string for repeated occurrences.
+    */
+   private static final class Parser
+   {
+      private final ByteBuffer in;
+      private final int limit;
+      private int pos;
+      private Charset charset = UTF8;
+      private final FlatConfigTree tree = new FlatConfigTree();
+      private final Map<String, String> entities = new HashMap<String, String>();
+
+      //pool lookup, by bytes for strings read as is and by value for decoded strings
+      private int[] rawTable = newTable(1024);
+      private int rawCount;
+      private int[] rawOffsets = new int[64];
+      private int[] rawLengths = new int[64];
+      private int[] rawHashes = new int[64];
+      private final Map<String, Integer> decodedStrings = new HashMap<String, Integer>();
+      private byte[] scratch = new byte[256];
+
+      //open elements
+      private int depth;
+      private int[] openNodes = new int[16];
+      private int[] lastChildren = new int[16];
+      private Text[] texts = new Text[16];
+
+      Parser(ByteBuffer buffer)
+      {
+         this.in = buffer;
+         this.pos = buffer.position();
+         this.limit = buffer.limit();
+      }
+
+      FlatConfigTree parse()
+      {
+         skipByteOrderMark();
+         boolean rootParsed = false;
+         while(pos < limit)
+         {
+            byte b = in.get(pos);
+            if(b == '<')
+            {
+               if(startsWith("<?"))
+                  parseProcessingInstruction();
+               else if(startsWith("<!--"))
+                  skipPast("-->");
+               else if(startsWith("<![CDATA["))
+                  parseCData();
+               else if(startsWith("<!DOCTYPE"))
+                  parseDoctype();
+               else if(startsWith("</"))
+                  parseEndTag();
+               else if(depth == 0 && rootParsed)
+                  throw error("Multiple document elements");
+               else
+               {
+                  parseStartTag();
+                  rootParsed = true;
+               }
+            }
+            else if(depth > 0)
+               parseText();
+            else if(isWhitespace(b))
+               pos++;
+            else
+               throw error("Text outside of the document element");
+         }
+         if(depth > 0)
+            throw error("Unclosed element " + tree.getName(openNodes[depth - 1]));
+         if(!rootParsed)
+            throw error("Missing document element");
+         return tree;
+      }
+
+      private void skipByteOrderMark()
+      {
+         if(limit - pos >= 2 && ((in.get(pos) == (byte) 0xFE && in.get(pos + 1) == (byte) 0xFF) || (in.get(pos) == (byte) 0xFF && in.get(pos + 1) == (byte) 0xFE)))
+            throw new ConfigException("UTF-16 encoded configuration is not supported by the flat parser");
+         if(limit - pos >= 3 && in.get(pos) == (byte) 0xEF && in.get(pos + 1) == (byte) 0xBB && in.get(pos + 2) == (byte) 0xBF)
+            pos += 3;
+      }
+
+      /***
+       * Skips processing instructions, reading the encoding of the xml declaration
+       */
+      private void parseProcessingInstruction()
+      {
+         int start = pos;
+         skipPast("?>");
+         if(!startsWithAt(start, "<?xml") || !isWhitespace(in.get(start + 5)))
+            return;
+         String declaration = decode(start, pos);
+         int encodingIndex = declaration.indexOf("encoding");
+         if(encodingIndex < 0)
+            return;
+         int quote = encodingIndex + 8;
+         while(quote < declaration.length() && declaration.charAt(quote) != '"' && declaration.charAt(quote) != '\'')
+            quote++;
+         int end = quote + 1 < declaration.length() ? declaration.indexOf(declaration.charAt(quote), quote + 1) : -1;
+         if(end < 0)
+            throw error("Invalid xml declaration");
+         Charset declared = Charset.forName(declaration.substring(quote + 1, end));
+         if(!declared.equals(UTF8) && declared.newEncoder().maxBytesPerChar() != 1)
+            throw new ConfigException(declared.name() + " encoded configuration is not supported by the flat parser");
+         charset = declared;
+      }
+
+      /***
+       * Skips the document type declaration, keeping the internal general entities
+       */
+      private void parseDoctype()
+      {
+         pos += 9;
+         while(pos < limit && in.get(pos) != '[' && in.get(pos) != '>')
+            skipQuotedOrByte();
+         if(pos < limit && in.get(pos) == '[')
+         {
+            pos++;
+            while(true)
+            {
+               skipWhitespace();
+               if(pos >= limit)
+                  throw error("Unclosed document type declaration");
+               if(in.get(pos) == ']')
+                  break;
+               if(startsWith("<!--"))
+                  skipPast("-->");
+               else if(startsWith("<!ENTITY"))
+                  parseEntityDeclaration();
+               else
+               {
+                  while(pos < limit && in.get(pos) != '>')
+                     skipQuotedOrByte();
+                  pos++;
+               }
+            }
+            pos++;
+            skipWhitespace();
+         }
+         expect('>');
+      }
+
+      private void parseEntityDeclaration()
+      {
+         pos += 8;
+         skipWhitespace();
+         boolean parameter = pos < limit && in.get(pos) == '%';
+         int nameStart = pos;
+         while(pos < limit && !isWhitespace(in.get(pos)) && in.get(pos) != '>')
+            pos++;
+         String name = decode(nameStart, pos);
+         skipWhitespace();
+         byte quote = pos < limit ? in.get(pos) : 0;
+         if(!parameter && (quote == '"' || quote == '\''))
+         {
+            int valueStart = ++pos;
+            while(pos < limit && in.get(pos) != quote)
+               pos++;
+            entities.put(name, decodeMarkup(valueStart, pos, false));
+            pos++;
+         }
+         while(pos < limit && in.get(pos) != '>')
+            skipQuotedOrByte();
+         pos++;
+      }
+
+      private void parseStartTag()
+      {
+         pos++;
+         int nameStart = pos;
+         while(pos < limit && !isWhitespace(in.get(pos)) && in.get(pos) != '/' && in.get(pos) != '>')
+            pos++;
+         if(pos == nameStart)
+            throw error("Missing element name");
+         int parent = depth > 0 ? openNodes[depth - 1] : NONE;
+         int node = tree.addNode(internRaw(nameStart, pos), parent);
+         if(parent != NONE)
+            appendChild(node);
+         boolean empty = false;
+         while(true)
+         {
+            skipWhitespace();
+            if(pos >= limit)
+               throw error("Unclosed start tag");
+            byte b = in.get(pos);
+            if(b == '>')
+            {
+               pos++;
+               break;
+            }
+            if(b == '/')
+            {
+               pos++;
+               expect('>');
+               empty = true;
+               break;
+            }
+            parseAttribute(node);
+         }
+         sortAttributes(node);
+         push(node);
+         if(empty)
+            closeElement();
+      }
+
+      /***
+       * Orders the attributes of the element by name like the xml parser, values of a name keep their order
+       */
+      private void sortAttributes(int node)
+      {
+         int start = tree.attributeStarts[node];
+         int end = start + tree.attributeCounts[node];
+         for(int i = start + 1; i < end; i++)
+         {
+            int name = tree.attributeNames[i];
+            int value = tree.attributeValues[i];
+            int j = i - 1;
+            while(j >= start && tree.strings[tree.attributeNames[j]].compareTo(tree.strings[name]) > 0)
+            {
+               tree.attributeNames[j + 1] = tree.attributeNames[j];
+               tree.attributeValues[j + 1] = tree.attributeValues[j];
+               j--;
+            }
+            tree.attributeNames[j + 1] = name;
+            tree.attributeValues[j + 1] = value;
+         }
+      }
+
+      private void parseAttribute(int node)
+      {
+         int nameStart = pos;
+         while(pos < limit && !isWhitespace(in.get(pos)) && in.get(pos) != '=' && in.get(pos) != '>' && in.get(pos) != '/')
+            pos++;
+         int name = internRaw(nameStart, pos);
+         skipWhitespace();
+         expect('=');
+         skipWhitespace();
+         byte quote = pos < limit ? in.get(pos) : 0;
+         if(quote != '"' && quote != '\'')
+            throw error("Missing attribute value quote");
+         int start = ++pos;
+         boolean plain = true;
+         while(pos < limit && in.get(pos) != quote)
+         {
+            byte b = in.get(pos++);
+            plain &= b != '&' && b != '\r' && b != '\n' && b != '\t' && b != LIST_DELIMITER && b != '\\';
+         }
+         if(pos >= limit)
+            throw error("Unclosed attribute value");
+         int end = pos++;
+         if(plain)
+         {
+            while(start < end && in.get(start) == ' ')
+               start++;
+            while(end > start && in.get(end - 1) == ' ')
+               end--;
+            tree.addAttribute(node, name, internRaw(start, end));
+            return;
+         }
+         for(Object value : PropertyConverter.split(decodeMarkup(start, end, true), LIST_DELIMITER))
+            tree.addAttribute(node, name, internDecoded((String) value));
+      }
+
+      private void parseEndTag()
+      {
+         pos += 2;
+         int nameStart = pos;
+         while(pos < limit && !isWhitespace(in.get(pos)) && in.get(pos) != '>')
+            pos++;
+         if(depth == 0)
+            throw error("Unexpected end tag");
+         int node = openNodes[depth - 1];
+         if(internRaw(nameStart, pos) != tree.names[node])
+            throw error("End tag " + decode(nameStart, pos) + " does not match " + tree.getName(node));
+         skipWhitespace();
+         expect('>');
+         closeElement();
+      }
+
+      private void parseText()
+      {
+         Text text = texts[depth - 1];
+         int start = pos;
+         boolean carriageReturn = false;
+         while(pos < limit)
+         {
+            byte b = in.get(pos);
+            if(b == '<')
+               break;
+            if(b == '&')
+            {
+               appendRaw(text, start, pos, carriageReturn);
+               appendDecoded(text, parseReference());
+               start = pos;
+               carriageReturn = false;
+               continue;
+            }
+            carriageReturn |= b == '\r';
+            pos++;
+         }
+         appendRaw(text, start, pos, carriageReturn);
+      }
+
+      private void parseCData()
+      {
+         if(depth == 0)
+            throw error("Text outside of the document element");
+         pos += 9;
+         int start = pos;
+         skipPast("]]>");
+         appendDecoded(texts[depth - 1], normalizeLineEnds(decode(start, pos - 3)));
+      }
+
+      /***
+       * Reads an entity or character reference at pos
+       * @return the replacement text
+       */
+      private String parseReference()
+      {
+         int start = ++pos;
+         while(pos < limit && in.get(pos) != ';')
+            pos++;
+         if(pos >= limit)
+            throw error("Unclosed reference");
+         String name = decode(start, pos++);
+         if(name.startsWith("#x"))
+            return new String(Character.toChars(Integer.parseInt(name.substring(2), 16)));
+         if(name.startsWith("#"))
+            return new String(Character.toChars(Integer.parseInt(name.substring(1))));
+         if("lt".equals(name))
+            return "<";
+         if("gt".equals(name))
+            return ">";
+         if("amp".equals(name))
+            return "&";
+         if("quot".equals(name))
+            return "\"";
+         if("apos".equals(name))
+            return "'";
+         String value = entities.get(name);
+         if(value == null)
+            throw error("Undefined entity " + name);
+         return value;
+      }
+
+      /***
+       * Decodes an attribute value or entity literal replacing references
+       * @param attribute if white space characters are replaced by spaces
+       */
+      private String decodeMarkup(int start, int end, boolean attribute)
+      {
+         StringBuilder builder = new StringBuilder(end - start);
+         int savedPos = pos;
+         pos = start;
+         int segment = start;
+         while(pos < end)
+         {
+            if(in.get(pos) == '&')
+            {
+               builder.append(decodeLiteral(segment, pos, attribute));
+               builder.append(parseReference());
+               segment = pos;
+            }
+            else
+               pos++;
+         }
+         builder.append(decodeLiteral(segment, end, attribute));
+         pos = savedPos;
+         return builder.toString();
+      }
+
+      /***
+       * Decodes characters written as is, normalizing line ends and attribute white space
+       */
+      private String decodeLiteral(int start, int end, boolean attribute)
+      {
+         String value = normalizeLineEnds(decode(start, end));
+         return attribute ? value.replace('\n', ' ').replace('\t', ' ') : value;
+      }
+
+      private void appendDecoded(Text text, String value)
+      {
+         if(text.hasText && !text.useBuilder)
+         {
+            text.builder.setLength(0);
+            text.builder.append(decode(text.rawStart, text.rawEnd));
+            text.useBuilder = true;
+         }
+         text.append(value);
+      }
+
+      private void appendRaw(Text text, int start, int end, boolean carriageReturn)
+      {
+         if(!text.hasText)
+         {
+            while(start < end && isWhitespace(in.get(start)))
+               start++;
+            if(start == end)
+               return;
+            text.hasText = true;
+            if(!carriageReturn)
+            {
+               text.rawStart = start;
+               text.rawEnd = end;
+               return;
+            }
+            text.builder.setLength(0);
+            text.useBuilder = true;
+         }
+         else if(start == end)
+            return;
+         else if(!text.useBuilder)
+         {
+            text.builder.setLength(0);
+            text.builder.append(decode(text.rawStart, text.rawEnd));
+            text.useBuilder = true;
+         }
+         String segment = decode(start, end);
+         text.builder.append(carriageReturn ? normalizeLineEnds(segment) : segment);
+      }
+
+      private void push(int node)
+      {
+         if(depth == openNodes.length)
+         {
+            openNodes = Arrays.copyOf(openNodes, depth * 2);
+            lastChildren = Arrays.copyOf(lastChildren, depth * 2);
+            texts = Arrays.copyOf(texts, depth * 2);
+         }
+         openNodes[depth] = node;
+         lastChildren[depth] = NONE;
+         if(texts[depth] == null)
+            texts[depth] = new Text();
+         texts[depth].reset();
+         depth++;
+      }
+
+      private void appendChild(int node)
+      {
+         int parentLevel = depth - 1;
+         if(lastChildren[parentLevel] == NONE)
+            tree.firstChildren[openNodes[parentLevel]] = node;
+         else
+            tree.nextSiblings[lastChildren[parentLevel]] = node;
+         lastChildren[parentLevel] = node;
+      }
+
+      /***
+       * Sets the value of the element at the top of the stack and pops it.
+       * Values with list delimiters are split into one node per value following the element.
+       */
+      private void closeElement()
+      {
+         int node = openNodes[depth - 1];
+         Text text = texts[depth - 1];
+         depth--;
+         if(!text.hasText)
+         {
+            tree.values[node] = tree.firstChildren[node] == NONE ? internDecoded("") : NONE;
+            return;
+         }
+         String value = null;
+         if(text.useBuilder)
+            value = trimEnd(text.builder);
+         else
+         {
+            int end = text.rawEnd;
+            while(end > text.rawStart && isWhitespace(in.get(end - 1)))
+               end--;
+            boolean plain = true;
+            for(int i = text.rawStart; i < end && plain; i++)
+               plain = in.get(i) != LIST_DELIMITER && in.get(i) != '\\';
+            if(plain || depth == 0)
+            {
+               tree.values[node] = internRaw(text.rawStart, end);
+               return;
+            }
+            value = decode(text.rawStart, end);
+         }
+         if(depth == 0 || (value.indexOf(LIST_DELIMITER) < 0 && value.indexOf('\\') < 0))
+         {
+            tree.values[node] = internDecoded(value);
+            return;
+         }
+         List<?> parts = PropertyConverter.split(value, LIST_DELIMITER);
+         tree.values[node] = internDecoded((String) parts.get(0));
+         for(int i = 1; i < parts.size(); i++)
+         {
+            int sibling = tree.addNode(tree.names[node], tree.parents[node]);
+            tree.values[sibling] = internDecoded((String) parts.get(i));
+            appendChild(sibling);
+         }
+      }
+
+      /***
+       * Returns the pool index of the string in the byte range, adding it if it was not seen before.
+       */
+      private int internRaw(int start, int end)
+      {
+         int length = end - start;
+         int hash = 0x811c9dc5;
+         for(int i = start; i < end; i++)
+            hash = (hash ^ (in.get(i) & 0xff)) * 0x01000193;
+         int mask = rawTable.length - 1;
+         int slot = hash & mask;
+         int index;
+         while((index = rawTable[slot]) != NONE)
+         {
+            if(rawHashes[index] == hash && rawLengths[index] == length && equalBytes(rawOffsets[index], start, length))
+               return index;
+            slot = (slot + 1) & mask;
+         }
+         index = tree.addString(decode(start, end));
+         if(index >= rawOffsets.length)
+         {
+            int capacity = Math.max(index + 1, rawOffsets.length * 2);
+            rawOffsets = Arrays.copyOf(rawOffsets, capacity);
+            rawLengths = Arrays.copyOf(rawLengths, capacity);
+            rawHashes = Arrays.copyOf(rawHashes, capacity);
+         }
+         rawOffsets[index] = start;
+         rawLengths[index] = length;
+         rawHashes[index] = hash;
+         rawTable[slot] = index;
+         if(++rawCount * 2 > rawTable.length)
+            rehash();
+         return index;
+      }
+
+      private void rehash()
+      {
+         int[] table = newTable(rawTable.length * 2);
+         int mask = table.length - 1;
+         for(int index : rawTable)
+         {
+            if(index == NONE)
+               continue;
+            int slot = rawHashes[index] & mask;
+            while(table[slot] != NONE)
+               slot = (slot + 1) & mask;
+            table[slot] = index;
+         }
+         rawTable = table;
+      }
+
+      private int internDecoded(String value)
+      {
+         Integer index = decodedStrings.get(value);
+         if(index == null)
+         {
+            index = tree.addString(value);
+            decodedStrings.put(value, index);
+         }
+         return index;
+      }
+
+      private boolean equalBytes(int first, int second, int length)
+      {
+         for(int i = 0; i < length; i++)
+         {
+            if(in.get(first + i) != in.get(second + i))
+               return false;
+         }
+         return true;
+      }
+
+      private String decode(int start, int end)
+      {
+         int length = end - start;
+         if(length > scratch.length)
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+         for(int i = 0; i < length; i++)
+            scratch[i] = in.get(start + i);
+         return new String(scratch, 0, length, charset);
+      }
+
+      private boolean startsWith(String prefix)
+      {
+         return startsWithAt(pos, prefix);
+      }
+
+      private boolean startsWithAt(int start, String prefix)
+      {
+         if(start + prefix.length() > limit)
+            return false;
+         for(int i = 0; i < prefix.length(); i++)
+         {
+            if(in.get(start + i) != prefix.charAt(i))
+               return false;
+         }
+         return true;
+      }
+
+      private void skipPast(String terminator)
+      {
+         while(pos < limit && !startsWith(terminator))
+            pos++;
+         if(pos >= limit)
+            throw error("Missing " + terminator);
+         pos += terminator.length();
+      }
+
+      private void skipQuotedOrByte()
+      {
+         byte b = in.get(pos++);
+         if(b == '"' || b == '\'')
+         {
+            while(pos < limit && in.get(pos) != b)
+               pos++;
+            pos++;
+         }
+      }
+
+      private void skipWhitespace()
+      {
+         while(pos < limit && isWhitespace(in.get(pos)))
+            pos++;
+      }
+
+      private void expect(char expected)
+      {
+         if(pos >= limit || in.get(pos) != expected)
+            throw error("Expected '" + expected + "'");
+         pos++;
+      }
+
+      private ConfigException error(String message)
+      {
+         int line = 1;
+         for(int i = in.position(); i < Math.min(pos, limit); i++)
+         {
+            if(in.get(i) == '\n')
+               line++;
+         }
+         return new ConfigException(message + " at line " + line);
+      }
+
+      private static boolean isWhitespace(byte b)
+      {
+         return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+      }
+
+      private static String normalizeLineEnds(String value)
+      {
+         return value.indexOf('\r') < 0 ? value : value.replace("\r\n", "\n").replace('\r', '\n');
+      }
+
+      private static String trimEnd(StringBuilder builder)
+      {
+         int end = builder.length();
+         while(end > 0 && builder.charAt(end - 1) <= ' ')
+            end--;
+         return builder.substring(0, end);
+      }
+
+      private static int[] newTable(int size)
+      {
+         int[] table = new int[size];
+         Arrays.fill(table, NONE);
+         return table;
+      }
+   }
+
+   /***
+    * Text collected for an open element, kept as a byte range while it is a single plain segment
+    */
+   private static final class Text
+   {
+      boolean hasText;
+      boolean useBuilder;
+      int rawStart;
+      int rawEnd;
+      final StringBuilder builder = new StringBuilder();
+
+      void reset()
+      {
+         hasText = false;
+         useBuilder = false;
+      }
+
+      /***
+       * Appends text that is not a plain byte range, leading white space is dropped
+       */
+      void append(String value)
+      {
+         if(hasText)
+         {
+            builder.append(value);
+            return;
+         }
+         int start = 0;
+         while(start < value.length() && value.charAt(start) <= ' ')
+            start++;
+         if(start == value.length())
+            return;
+         hasText = true;
+         useBuilder = true;
+         builder.setLength(0);
+         builder.append(value, start, value.length());
+      }
+   }
+}
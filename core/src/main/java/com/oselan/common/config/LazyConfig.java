@@ -0,0 +1,186 @@
+package com.oselan.common.config;
+
+import org.apache.commons.configuration.HierarchicalConfiguration;
+
+import com.oselan.common.util.ReflectionUtil;
+
+/***
+ * Holds a config bean that is created and filled only when it is first accessed through {@link #get()}.
+ * Loading the holder only keeps a reference to the configuration section, after a reload the bean is
+ * filled again on its next access.
+ * Can be registered on a ConfigProvider or a parent bean like any config bean or used as the type of a field
+ * e.g.
+ * <pre>
+ * &#64;ConfigFieldMapping("MailConfig")
+ * private LazyConfig&lt;MailConfig&gt; mailConfig;
+ * </pre>
+ * @author Ahmad Hamid
+ * @param <T> the bean class
+ */
+public class LazyConfig<T extends ConfigBean> implements IConfig
+{
+   private final Class<T> beanClass;
+   private String path;
+   private volatile HierarchicalConfiguration config;
+   private volatile T bean;
+   private volatile boolean stale;
+   /***
+    * Instance the bean is created in if its class is an inner class, e.g. the bean holding the field
+    */
+   private volatile Object enclosingInstance;
+
+   /***
+    * Bean of beanClass will be created on first access
+    * @param beanClass
+    */
+   public LazyConfig(Class<T> beanClass)
+   {
+      this.beanClass = beanClass;
+   }
+
+   /***
+    * Bean will be filled on first access
+    * @param bean
+    */
+   @SuppressWarnings("unchecked")
+   public LazyConfig(T bean)
+   {
+      this((Class<T>) bean.getClass());
+      this.bean = bean;
+   }
+
+   /***
+    * Keeps the configuration to fill the bean with on its next access
+    */
+   @Override
+   public void loadConfiguration(HierarchicalConfiguration config)
+   {
+      if(config == null)
+         throw new ConfigException("Configuration not found.");
+      this.config = config;
+      this.stale = true;
+   }
+
+   /***
+    * Sets the configuration of the holder and of its filled bean without reading it, for a configuration that did not change
+    * but was reloaded into a new tree
+    * @param config
+    */
+   void attachConfiguration(HierarchicalConfiguration config)
+   {
+      synchronized(this)
+      {
+         this.config = config;
+         if(bean != null && !stale)
+            bean.attachConfiguration(config);
+      }
+   }
+
+   /***
+    * The path of the field mapping if set otherwise the path of the bean
+    */
+   @Override
+   public String getPath()
+   {
+      if(path != null)
+         return path;
+      if(bean != null)
+         return bean.getPath();
+      ConfigBeanMapping annotation = beanClass.getAnnotation(ConfigBeanMapping.class);
+      return annotation == null ? null : annotation.value();
+   }
+
+   /***
+    * Allows internally setting path of the bean.
+    * @param path
+    */
+   void setPath(String path)
+   {
+      this.path = path;
+   }
+
+   /***
+    * Sets the instance the bean is created in if its class is an inner class
+    * see {@link ReflectionUtil#createInstance(Object, Class)}
+    * @param enclosingInstance
+    */
+   void setEnclosingInstance(Object enclosingInstance)
+   {
+      this.enclosingInstance = enclosingInstance;
+   }
+
+   Object getEnclosingInstance()
+   {
+      return enclosingInstance;
+   }
+
+   /***
+    * Returns the bean filling it from configuration if it was not filled since the configuration was loaded.
+    * @return the bean or null if the configuration was never loaded and no bean was supplied
+    */
+   public T get()
+   {
+      if(stale)
+      {
+         synchronized(this)
+         {
+            if(stale)
+            {
+               T loadingBean = bean;
+               if(loadingBean == null)
+               {
+                  try
+                  {
+                     loadingBean = ReflectionUtil.createInstance(enclosingInstance, beanClass);
+                  }
+                  catch(Exception e)
+                  {
+                     throw new ConfigException("Failed to create config bean " + beanClass.getName(), e);
+                  }
+               }
+               if(path != null)
+                  loadingBean.setPath(path);
+               loadingBean.loadConfiguration(config);
+               bean = loadingBean;
+               stale = false;
+            }
+         }
+      }
+      return bean;
+   }
+
+   /***
+    * The held bean without filling it
+    * @return the bean or null if it was never filled and no bean was supplied
+    */
+   T getBean()
+   {
+      return bean;
+   }
+
+   /***
+    * If the bean is filled with the latest loaded configuration
+    * @return
+    */
+   public boolean isLoaded()
+   {
+      return config != null && !stale;
+   }
+
+   /***
+    * The class of the held bean
+    * @return
+    */
+   public Class<T> getBeanClass()
+   {
+      return beanClass;
+   }
+
+   @Override
+   public String toString()
+   {
+      StringBuilder builder = new StringBuilder();
+      builder.append("LazyConfig [beanClass=").append(beanClass.getName()).append(", loaded=").append(isLoaded()).append("]");
+      return builder.toString();
+   }
+}
@@ -0,0 +1,147 @@
+package com.oselan.common.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.configuration.ConfigurationException;
+import org.apache.commons.configuration.XMLConfiguration;
+import org.apache.commons.configuration.tree.ConfigurationNode;
+
+/***
+ * Configuration files read from the entries of a zip archive without extracting them.
+ * Entries are looked up in the central directory and streamed into the parser, an entry is parsed again only
+ * if its CRC changed and the archive is not opened at all while its modification time and size do not change.
+ * @author Ahmad Hamid
+ */
+final class ZipConfigBundle
+{
+   private static final int BUFFER_SIZE = 8192;
+
+   private final File file;
+   private final List<String> entryNames;
+   private ConfigurationNode[] roots;
+   /***
+    * CRC of each entry when it was parsed
+    */
+   private final long[] crcs;
+   private long lastModified = -1;
+   private long length = -1;
+
+   /***
+    * @param file zip archive
+    * @param entryNames entries to read in order of precedence
+    */
+   ZipConfigBundle(File file, List<String> entryNames)
+   {
+      this.file = file;
+      this.entryNames = Collections.unmodifiableList(new ArrayList<String>(entryNames));
+      this.roots = new ConfigurationNode[entryNames.size()];
+      this.crcs = new long[entryNames.size()];
+      Arrays.fill(crcs, -1);
+   }
+
+   File getFile()
+   {
+      return file;
+   }
+
+   List<String> getEntryNames()
+   {
+      return entryNames;
+   }
+
+   /***
+    * The root node of each entry as last parsed, a new array after every read that parsed an entry
+    * @return
+    */
+   ConfigurationNode[] getRoots()
+   {
+      return roots;
+   }
+
+   /***
+    * Parses the entries that changed since the last read
+    * @param flat parse with the flat parser, see {@link FlatConfigTree}
+    * @return number of parsed entries
+    * @throws ConfigurationException if the archive or an entry can not be read or parsed
+    */
+   int read(boolean flat) throws ConfigurationException
+   {
+      long modified = file.lastModified();
+      long size = file.length();
+      if (modified == lastModified && size == length)
+         return 0;
+      //read into copies to keep the last read entries if any entry fails
+      ConfigurationNode[] readRoots = roots.clone();
+      long[] readCrcs = crcs.clone();
+      int parsed = 0;
+      try
+      {
+         ZipFile zip = new ZipFile(file);
+         try
+         {
+            for (int i = 0; i < entryNames.size(); i++)
+            {
+               ZipEntry entry = zip.getEntry(entryNames.get(i));
+               if (entry == null)
+                  throw new ConfigurationException("Configuration entry " + entryNames.get(i) + " not found in " + file);
+               //unknown CRCs are always parsed
+               if (entry.getCrc() != -1 && entry.getCrc() == readCrcs[i])
+                  continue;
+               readRoots[i] = parseEntry(zip, entry, flat);
+               readCrcs[i] = entry.getCrc();
+               parsed++;
+            }
+         }
+         finally
+         {
+            zip.close();
+         }
+      }
+      catch(IOException e)
+      {
+         throw new ConfigurationException("Failed to read configuration archive " + file, e);
+      }
+      roots = readRoots;
+      System.arraycopy(readCrcs, 0, crcs, 0, crcs.length);
+      lastModified = modified;
+      length = size;
+      return parsed;
+   }
+
+   private static ConfigurationNode parseEntry(ZipFile zip, ZipEntry entry, boolean flat) throws IOException, ConfigurationException
+   {
+      InputStream in = zip.getInputStream(entry);
+      try
+      {
+         if (flat)
+            return FlatConfigTree.parse(ByteBuffer.wrap(readFully(in, entry.getSize()))).getRootNode();
+         XMLConfiguration config = new XMLConfiguration();
+         config.load(in);
+         return config.getRootNode();
+      }
+      finally
+      {
+         in.close();
+      }
+   }
+
+   private static byte[] readFully(InputStream in, long size) throws IOException
+   {
+      ByteArrayOutputStream out = new ByteArrayOutputStream(size > 0 && size < Integer.MAX_VALUE ? (int) size : BUFFER_SIZE);
+      byte[] buffer = new byte[BUFFER_SIZE];
+      int read;
+      while ((read = in.read(buffer)) != -1)
+         out.write(buffer, 0, read);
+      return out.toByteArray();
+   }
+}
@@ -0,0 +1,212 @@
+package com.oselan.common.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class FileUtil
+{
+   /***
+    * Attempts to get the absolute path based on the passed path parameter.
+    * Symbolic links are kept in the path so that a link swapped to a new file is followed.
+    * 
+    * @param path
+    * @return absolute path to file or null if not found
+    */
+   public static String getFilePath(String path)
+   {
+      File tmp = new File(path);
+      if(tmp.exists())
+         path = tmp.getAbsolutePath();
+      else
+      {// attempt this being a relative path
+         tmp = new File(".");
+         tmp = new File(tmp.getAbsoluteFile().getParentFile(), path);
+         if (tmp.exists())
+            path = tmp.getAbsolutePath();
+      }
+      System.out.println(path);
+      return path;
+   }
+   
+   
+   /***
+    * Returns the size of file in bytes if it exists -1 if not
+    * @param file
+    * @return
+    */
+   public static long getFileSize(File file)
+   {
+
+      if(!file.exists() || !file.isFile())
+      {
+         return -1;
+      }
+      // Here we get the actual size
+      return file.length();
+   }
+   
+   
+   /****
+    * rolls a file by adding an index before the extension
+    * If new filename_<index>.extension exists index is incremented
+    * @param file
+    */
+   public static void backupFile(File file)
+   { 
+      if (file.exists())
+      {
+         int count = 1; 
+         String[] fileNameParts = file.getName().split("\\.");  
+         String newFullPath = file.getParent() + File.separator + fileNameParts[0] + "_%d." + fileNameParts[1];
+         File newFile = new File(String.format(newFullPath,count++) ); 
+         while(newFile.exists()) 
+         {
+            newFile = new File(String.format(newFullPath,count++) ); 
+         }
+         file.renameTo(newFile);
+      }
+   }
+   
+   
+   /****
+    * Copies a file to filename_<index>.extension with an index higher than the existing backups
+    * and deletes the oldest backups to keep at most retention backups.
+    * @param file
+    * @param retention maximum number of backups to keep
+    * @return the backup file or null if file does not exist
+    * @throws IOException
+    */
+   public static File backupFile(File file, int retention) throws IOException
+   {
+      if (!file.exists())
+         return null;
+      String name = file.getName();
+      int extensionIndex = name.lastIndexOf('.');
+      String baseName = extensionIndex > 0 ? name.substring(0, extensionIndex) : name;
+      String extension = extensionIndex > 0 ? name.substring(extensionIndex) : "";
+      Pattern backupPattern = Pattern.compile(Pattern.quote(baseName) + "_(\\d+)" + Pattern.quote(extension));
+      File directory = file.getAbsoluteFile().getParentFile();
+      TreeMap<Long, File> backups = new TreeMap<Long, File>();
+      String[] names = directory.list();
+      for (int i = 0; names != null && i < names.length; i++)
+      {
+         Matcher matcher = backupPattern.matcher(names[i]);
+         if (matcher.matches() && matcher.group(1).length() < 19)
+            backups.put(Long.valueOf(matcher.group(1)), new File(directory, names[i]));
+      }
+      long index = backups.isEmpty() ? 1 : backups.lastKey() + 1;
+      File backup = new File(directory, baseName + "_" + index + extension);
+      Files.copy(file.toPath(), backup.toPath(), StandardCopyOption.COPY_ATTRIBUTES);
+      backups.put(index, backup);
+      while (backups.size() > Math.max(retention, 1))
+      {
+         Files.deleteIfExists(backups.pollFirstEntry().getValue().toPath());
+      }
+      return backup;
+   }
+   
+   /***
+    * Replaces the content of a file so that readers and a crash leave either the old or the new content. 
+    * The content is written and synced to a temporary file in the same directory which is then renamed over the file.
+    * If file is a symbolic link its target is replaced.
+    * @param file
+    * @param content
+    * @throws IOException
+    */
+   public static void writeAtomically(File file, byte[] content) throws IOException
+   {
+      Path target = file.toPath().toAbsolutePath();
+      if (Files.exists(target))
+         target = target.toRealPath();
+      Path directory = target.getParent();
+      Path temp = Files.createTempFile(directory, "." + target.getFileName(), ".tmp");
+      try
+      {
+         FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+         try
+         {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining())
+               channel.write(buffer);
+            channel.force(true);
+         }
+         finally
+         {
+            channel.close();
+         }
+         //temp files are created only readable by the owner
+         if (Files.exists(target) && Files.getFileAttributeView(target, PosixFileAttributeView.class) != null)
+            Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(target));
+         try
+         {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+         }
+         catch(AtomicMoveNotSupportedException e)
+         {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+         }
+      }
+      finally
+      {
+         Files.deleteIfExists(temp);
+      }
+      syncDirectory(directory);
+   }
+   
+   /***
+    * Syncs a directory so that a rename in it is durable, not supported on all platforms
+    * @param directory
+    */
+   private static void syncDirectory(Path directory)
+   {
+      try
+      {
+         FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ);
+         try
+         {
+            channel.force(true);
+         }
+         finally
+         {
+            channel.close();
+         }
+      }
+      catch(IOException e)
+      {
+         //directories can not be opened on windows
+      }
+   }
+   
+   /***
+    * 
+    * Appends a value at the end of the file name but before the extension if it exists
+    * @param fileName
+    * @return
+    */
+   public static String appendFileNameSuffix(String fileName,String suffix)
+   {
+      int lastIndexofSeparator = fileName.lastIndexOf(File.separatorChar);
+      String newFileName ;
+      if (lastIndexofSeparator > 0 )
+      {
+         String extension = fileName.substring(lastIndexofSeparator  , fileName.length());
+         String simpleFileName = fileName.substring(0 , lastIndexofSeparator); 
+         newFileName = simpleFileName + suffix + extension;
+      }
+      else //not extension
+         newFileName = fileName + suffix;
+      return newFileName;
+   }
+
+}
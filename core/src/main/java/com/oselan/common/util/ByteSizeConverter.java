@@ -0,0 +1,37 @@
+package com.oselan.common.util;
+
+import java.util.Locale;
+
+/***
+ * Converts a byte size such as 512, 64KB, 1.5M or 2GiB to a number of bytes.
+ * Units are binary multiples of 1024 and case insensitive: B, K, KB, KiB, M, MB, MiB, G, GB, GiB, T, TB, TiB.
+ * Used on long fields e.g. @ConfigFieldMapping(value="MaxUpload", converter=ByteSizeConverter.class)
+ * @author Ahmad Hamid
+ */
+public class ByteSizeConverter implements ValueConverter<Long>
+{
+   private static final String UNITS = "BKMGT";
+
+   @Override
+   public Long convert(String value)
+   {
+      String size = value.trim().toUpperCase(Locale.ROOT);
+      int unitStart = size.length();
+      while(unitStart > 0 && Character.isLetter(size.charAt(unitStart - 1)))
+         unitStart--;
+      String unit = size.substring(unitStart);
+      String number = size.substring(0, unitStart).trim();
+      int exponent = 0;
+      if(!unit.isEmpty())
+      {
+         exponent = UNITS.indexOf(unit.charAt(0));
+         String suffix = unit.substring(1);
+         if(exponent < 0 || (exponent == 0 ? !suffix.isEmpty() : !(suffix.isEmpty() || suffix.equals("B") || suffix.equals("IB"))))
+            throw new NumberFormatException("Invalid byte size unit " + value);
+      }
+      long multiplier = 1L << (10 * exponent);
+      if(number.indexOf('.') < 0)
+         return Math.multiplyExact(Long.parseLong(number), multiplier);
+      return (long) (Double.parseDouble(number) * multiplier);
+   }
+}
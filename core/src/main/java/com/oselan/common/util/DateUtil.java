@@ -4,6 +4,7 @@
 package com.oselan.common.util;
 
 import java.text.*;
+import java.time.ZoneId;
 import java.util.*;
 
 import org.apache.commons.lang.*;
@@ -19,6 +20,8 @@ public class DateUtil
    /**
     * Parses the provided date string and returns a date object.  Will return null
     * if the date string is whitespace, empty (""), null, or the actual string "null".
+    * Dates in {@link #SIMPLE_DATE_FORMAT} are parsed with the shared formatter of {@link ValueConverters}
+    * and must be valid dates.
     * @param dateStr
     * @param dateFormat
     * @return
@@ -27,6 +30,8 @@ public class DateUtil
    {
       if(StringUtils.isBlank(dateStr) || dateStr.toLowerCase().equals("null"))
          return null;      
+      if(SIMPLE_DATE_FORMAT.equals(dateFormat))
+         return Date.from(ValueConverters.parseDefaultDate(dateStr).atStartOfDay(ZoneId.systemDefault()).toInstant());
          
       return new SimpleDateFormat(dateFormat).parse(dateStr);
    }
@@ -1,10 +1,13 @@
 package com.oselan.common.util;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
 import java.text.ParseException;
-import java.util.Calendar;
-import java.util.Date;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
@@ -151,65 +154,26 @@ public class ReflectionUtil
    }
 
    /***
-    * Attempts to convert a string value to a class object based 
+    * Attempts to convert a string value to a class object based on the converter registered for the type, see {@link ValueConverters}
     * @param fieldType
     * @param value
-    * @return
+    * @return the value or null if the value is empty or the type is not supported
     * @throws ParseException
     */
-   @SuppressWarnings("unchecked")
    public static <T> T getObjectValue(Class<T> fieldType, String value) throws ParseException
    {
-      Object objValue = null;
-
-      if(value != null && value.length() != 0)
+      try
       {
-         if(fieldType.isEnum())
-            objValue = getEnumConstant(fieldType, value);
-         else
-            if(fieldType.equals(String.class))
-            {
-               objValue = value;
-            }
-            else
-               if(fieldType.equals(Integer.class) || fieldType.equals(int.class))
-               {
-                  objValue = Integer.parseInt(value);
-               }
-               else
-                  if(fieldType.equals(Float.class) || fieldType.equals(float.class))
-                  {
-                     objValue = Float.parseFloat(value);
-                  }
-                  else
-                     if(fieldType.equals(Double.class) || fieldType.equals(double.class))
-                     {
-                        objValue = Double.parseDouble(value);
-                     }
-                     else
-                        if(fieldType.equals(Boolean.class) || fieldType.equals(boolean.class))
-                        {
-                           objValue = Boolean.valueOf(value);
-
-                        }
-                     else
-                        if(fieldType.equals(Date.class))
-                        {
-                           Date date = DateUtil.parseDate(value, DEFAULT_DATE_FORMAT);
-                           Calendar cal = Calendar.getInstance();
-                           int hours = cal.get(Calendar.HOUR_OF_DAY);
-                           int mins = cal.get(Calendar.MINUTE);
-                           int secs = cal.get(Calendar.SECOND);
-                           cal.setTime(date);
-                           cal.set(cal.get(Calendar.YEAR), cal.get(Calendar.MONTH), cal.get(Calendar.DAY_OF_MONTH), hours, mins, secs);
-                           objValue = cal.getTime();// dateFormat.parse(value);
-                        }  else
-                              if(fieldType.equals(char.class) || fieldType.equals(Character.class))
-                              {
-                                 objValue = value.charAt(0);
-                              }
+         return ValueConverters.convert(fieldType, value);
+      }
+      catch(ParseException | RuntimeException e)
+      {
+         throw e;
+      }
+      catch(Exception e)
+      {
+         throw new IllegalArgumentException("Failed to convert " + value + " to " + fieldType.getName(), e);
       }
-      return (T) objValue;
    }
 
    /***
@@ -232,38 +196,175 @@ public class ReflectionUtil
    /***
     * A generic createInstance of a class that creates an instances using the default constructor.  
     * The primary purpose of this is to support inner classes and normal classes 
-    * Recall that inner classes can not be instantiated before creating an instance of the outer class 
+    * Recall that inner classes can not be instantiated before creating an instance of the outer class,
+    * a new instance of the outer class is created for each instance of an inner class, see {@link #createInstance(Object, Class)}
+    * to use an existing one.
+    * The constructor is resolved once per class and invoked through a method handle.
     * @param clazz
     * @return
     * @throws Exception 
     */
    public static <T> T createInstance(final Class<T> clazz) throws Exception 
    {
+      return createInstance(null, clazz);
+   }
 
-      T instanceToReturn = null;
-      Class<?> enclosingClass = clazz.getEnclosingClass();
-      try{
-         if(enclosingClass != null)
+   /***
+    * Creates an instance of clazz using the default constructor, an inner class is created in enclosingInstance
+    * e.g. the list bean of an inner element class.
+    * @param enclosingInstance the instance of the outer class of an inner class, if null or not an instance of the outer
+    * class a new instance of the outer class is created. Ignored for other classes.
+    * @param clazz
+    * @return
+    * @throws Exception
+    */
+   public static <T> T createInstance(Object enclosingInstance, final Class<T> clazz) throws Exception
+   {
+      try
+      {
+         return clazz.cast(INSTANTIATORS.get(clazz).newInstance(enclosingInstance));
+      }
+      catch(Exception e)
+      {
+         throw new Exception("could not instantiate " + clazz, e);
+      }
+   }
+
+   /***
+    * Returns the instance of the outer class an instance of an inner class was created in
+    * @param instance
+    * @return the enclosing instance or null if the class is not an inner class or does not keep its enclosing instance
+    * @throws Exception
+    */
+   public static Object getEnclosingInstance(Object instance) throws Exception
+   {
+      return INSTANTIATORS.get(instance.getClass()).getEnclosingInstance(instance);
+   }
+
+   private static final ClassValue<Instantiator> INSTANTIATORS = new ClassValue<Instantiator>()
+   {
+      @Override
+      protected Instantiator computeValue(Class<?> clazz)
+      {
+         return new Instantiator(clazz);
+      }
+   };
+
+   /***
+    * The default constructor of a class as a method handle, or the failure to resolve it.
+    * The failure is the cause of a new exception thrown on every call, so callers never share a thrown instance.
+    */
+   private static final class Instantiator
+   {
+      private final Class<?> enclosingClass;
+      private final MethodHandle constructor;
+      /***
+       * Reads the synthetic field holding the enclosing instance of an inner class, null if there is none
+       */
+      private final MethodHandle outerInstance;
+      private final Exception failure;
+
+      Instantiator(Class<?> clazz)
+      {
+         Class<?> outerClass = null;
+         MethodHandle handle = null;
+         Exception error = null;
+         try
          {
-            Object instanceOfEnclosingClass = createInstance(enclosingClass);
-   
-            Constructor<T> ctor = clazz.getDeclaredConstructor( enclosingClass);
+            Constructor<?> ctor;
+            try
+            {
+               //top level, static nested and local classes in static context
+               ctor = clazz.getDeclaredConstructor();
+            }
+            catch(NoSuchMethodException e)
+            {
+               //inner classes take the enclosing instance
+               if(clazz.getEnclosingClass() == null || Modifier.isStatic(clazz.getModifiers()))
+                  throw e;
+               outerClass = clazz.getEnclosingClass();
+               ctor = clazz.getDeclaredConstructor(outerClass);
+            }
+            if(Modifier.isAbstract(clazz.getModifiers()))
+               throw new InstantiationException(clazz.getName() + " is abstract");
             ctor.setAccessible(true);
-            if(ctor != null)
+            handle = MethodHandles.lookup().unreflectConstructor(ctor);
+            handle = handle.asType(outerClass == null ? MethodType.methodType(Object.class) : MethodType.methodType(Object.class, Object.class));
+         }
+         catch(Exception e)
+         {
+            outerClass = null;
+            handle = null;
+            error = e;
+         }
+         this.enclosingClass = outerClass;
+         this.constructor = handle;
+         this.outerInstance = outerClass == null ? null : findOuterInstance(clazz, outerClass);
+         this.failure = error;
+      }
+
+      private static MethodHandle findOuterInstance(Class<?> clazz, Class<?> outerClass)
+      {
+         for(Field field : clazz.getDeclaredFields())
+         {
+            if(field.isSynthetic() && field.getType() == outerClass)
             {
-               instanceToReturn = ctor.newInstance(instanceOfEnclosingClass);
+               try
+               {
+                  field.setAccessible(true);
+                  return MethodHandles.lookup().unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class));
+               }
+               catch(Exception e)
+               {
+                  return null;
+               }
             }
          }
-         else
+         return null;
+      }
+
+      Object getEnclosingInstance(Object instance) throws Exception
+      {
+         if(outerInstance == null)
+            return null;
+         try
+         {
+            return (Object) outerInstance.invokeExact(instance);
+         }
+         catch(Exception | Error e)
+         {
+            throw e;
+         }
+         catch(Throwable e)
          {
-            instanceToReturn = clazz.newInstance();
+            throw new InvocationTargetException(e);
          }
       }
-      catch(Exception e)
-      { 
-         throw new Exception("could not instantiate " + clazz);
+
+      Object newInstance(Object enclosingInstance) throws Exception
+      {
+         if(failure != null)
+         {
+            InstantiationException e = new InstantiationException("No usable default constructor: " + failure.getMessage());
+            e.initCause(failure);
+            throw e;
+         }
+         try
+         {
+            if(enclosingClass == null)
+               return (Object) constructor.invokeExact();
+            Object outer = enclosingClass.isInstance(enclosingInstance) ? enclosingInstance : createInstance(enclosingClass);
+            return (Object) constructor.invokeExact(outer);
+         }
+         catch(Exception | Error e)
+         {
+            throw e;
+         }
+         catch(Throwable e)
+         {
+            throw new InvocationTargetException(e);
+         }
       }
-      return instanceToReturn;
    }
    
    /***
@@ -0,0 +1,20 @@
+package com.oselan.common.util;
+
+/***
+ * Converts a string value read from configuration or a request parameter to a value of type T.
+ * Converters are registered per type with {@link ValueConverters#register(Class, ValueConverter)} or set on a single
+ * field with ConfigFieldMapping converter. One instance converts all the values of a type, so converters must be thread safe.
+ * Converters used on fields need a no argument constructor.
+ * @author Ahmad Hamid
+ * @param <T> the converted type
+ */
+public interface ValueConverter<T>
+{
+   /***
+    * Converts a non empty value
+    * @param value
+    * @return
+    * @throws Exception if the value can not be converted
+    */
+   public T convert(String value) throws Exception;
+}
@@ -0,0 +1,360 @@
+package com.oselan.common.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.time.format.SignStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/***
+ * Registry of the converters from string values to field types, shared by the configuration beans and
+ * {@link ReflectionUtil#getObjectValue(Class, String)}.
+ * Converters are registered for the primitive and boxed types, String, BigDecimal, BigInteger, Date, LocalDate,
+ * Duration, URI and InetSocketAddress, enums are converted by constant name. Other types are supported by registering
+ * a converter, which should be done before beans with fields of the type are loaded as the converter of a field is
+ * resolved once when its bean class is first bound.
+ * Dates are in {@link ReflectionUtil#DEFAULT_DATE_FORMAT} and parsed with a shared immutable formatter, invalid dates
+ * such as 02/30/2017 are rejected.
+ * @author Ahmad Hamid
+ */
+public final class ValueConverters
+{
+   /***
+    * Formatter of {@link ReflectionUtil#DEFAULT_DATE_FORMAT}, single digit months and days are accepted
+    */
+   public static final DateTimeFormatter DEFAULT_DATE_FORMATTER = new DateTimeFormatterBuilder()
+      .appendValue(ChronoField.MONTH_OF_YEAR, 1, 2, SignStyle.NOT_NEGATIVE).appendLiteral('/')
+      .appendValue(ChronoField.DAY_OF_MONTH, 1, 2, SignStyle.NOT_NEGATIVE).appendLiteral('/')
+      .appendValue(ChronoField.YEAR, 4).toFormatter(Locale.ROOT).withResolverStyle(ResolverStyle.STRICT);
+
+   private static final ConcurrentMap<Class<?>, ValueConverter<?>> CONVERTERS = new ConcurrentHashMap<Class<?>, ValueConverter<?>>();
+
+   static
+   {
+      register(String.class, new ValueConverter<String>()
+      {
+         @Override
+         public String convert(String value)
+         {
+            return value;
+         }
+      });
+      ValueConverter<Boolean> booleanConverter = new ValueConverter<Boolean>()
+      {
+         @Override
+         public Boolean convert(String value)
+         {
+            return Boolean.valueOf(value);
+         }
+      };
+      register(Boolean.class, booleanConverter);
+      register(boolean.class, booleanConverter);
+      ValueConverter<Byte> byteConverter = new ValueConverter<Byte>()
+      {
+         @Override
+         public Byte convert(String value)
+         {
+            return Byte.valueOf(value);
+         }
+      };
+      register(Byte.class, byteConverter);
+      register(byte.class, byteConverter);
+      ValueConverter<Short> shortConverter = new ValueConverter<Short>()
+      {
+         @Override
+         public Short convert(String value)
+         {
+            return Short.valueOf(value);
+         }
+      };
+      register(Short.class, shortConverter);
+      register(short.class, shortConverter);
+      ValueConverter<Integer> integerConverter = new ValueConverter<Integer>()
+      {
+         @Override
+         public Integer convert(String value)
+         {
+            return Integer.valueOf(value);
+         }
+      };
+      register(Integer.class, integerConverter);
+      register(int.class, integerConverter);
+      ValueConverter<Long> longConverter = new ValueConverter<Long>()
+      {
+         @Override
+         public Long convert(String value)
+         {
+            return Long.valueOf(value);
+         }
+      };
+      register(Long.class, longConverter);
+      register(long.class, longConverter);
+      ValueConverter<Float> floatConverter = new ValueConverter<Float>()
+      {
+         @Override
+         public Float convert(String value)
+         {
+            return Float.valueOf(value);
+         }
+      };
+      register(Float.class, floatConverter);
+      register(float.class, floatConverter);
+      ValueConverter<Double> doubleConverter = new ValueConverter<Double>()
+      {
+         @Override
+         public Double convert(String value)
+         {
+            return Double.valueOf(value);
+         }
+      };
+      register(Double.class, doubleConverter);
+      register(double.class, doubleConverter);
+      ValueConverter<Character> characterConverter = new ValueConverter<Character>()
+      {
+         @Override
+         public Character convert(String value)
+         {
+            return value.charAt(0);
+         }
+      };
+      register(Character.class, characterConverter);
+      register(char.class, characterConverter);
+      register(BigDecimal.class, new ValueConverter<BigDecimal>()
+      {
+         @Override
+         public BigDecimal convert(String value)
+         {
+            return new BigDecimal(value.trim());
+         }
+      });
+      register(BigInteger.class, new ValueConverter<BigInteger>()
+      {
+         @Override
+         public BigInteger convert(String value)
+         {
+            return new BigInteger(value.trim());
+         }
+      });
+      register(LocalDate.class, new ValueConverter<LocalDate>()
+      {
+         @Override
+         public LocalDate convert(String value) throws ParseException
+         {
+            return parseDefaultDate(value);
+         }
+      });
+      register(Date.class, new ValueConverter<Date>()
+      {
+         @Override
+         public Date convert(String value) throws ParseException
+         {
+            return atCurrentTime(parseDefaultDate(value));
+         }
+      });
+      register(Duration.class, new ValueConverter<Duration>()
+      {
+         @Override
+         public Duration convert(String value)
+         {
+            return parseDuration(value);
+         }
+      });
+      register(URI.class, new ValueConverter<URI>()
+      {
+         @Override
+         public URI convert(String value)
+         {
+            return URI.create(value.trim());
+         }
+      });
+      register(InetSocketAddress.class, new ValueConverter<InetSocketAddress>()
+      {
+         @Override
+         public InetSocketAddress convert(String value)
+         {
+            return parseSocketAddress(value);
+         }
+      });
+   }
+
+   private ValueConverters()
+   {
+   }
+
+   /***
+    * Registers the converter of type replacing the current one, primitive and boxed types are registered separately
+    * @param type
+    * @param converter
+    */
+   public static <T> void register(Class<T> type, ValueConverter<? extends T> converter)
+   {
+      if(type == null || converter == null)
+         throw new IllegalArgumentException("Type and converter are required");
+      CONVERTERS.put(type, converter);
+   }
+
+   /***
+    * Returns the converter of type or null if the type is not supported
+    * @param type
+    * @return
+    */
+   @SuppressWarnings({ "unchecked", "rawtypes" })
+   public static <T> ValueConverter<T> forType(Class<T> type)
+   {
+      ValueConverter<?> converter = CONVERTERS.get(type);
+      if(converter == null && type.isEnum())
+      {
+         converter = new EnumConverter(type);
+         ValueConverter<?> registered = CONVERTERS.putIfAbsent(type, converter);
+         if(registered != null)
+            converter = registered;
+      }
+      return (ValueConverter<T>) converter;
+   }
+
+   /***
+    * Converts value to type
+    * @param type
+    * @param value
+    * @return null if the value is null or empty or the type is not supported
+    * @throws Exception if the converter fails
+    */
+   public static <T> T convert(Class<T> type, String value) throws Exception
+   {
+      ValueConverter<T> converter = forType(type);
+      return converter == null ? null : convert(converter, value);
+   }
+
+   /***
+    * Converts value with converter
+    * @param converter
+    * @param value
+    * @return null if the value is null or empty
+    * @throws Exception if the converter fails
+    */
+   public static <T> T convert(ValueConverter<T> converter, String value) throws Exception
+   {
+      return value == null || value.isEmpty() ? null : converter.convert(value);
+   }
+
+   /***
+    * Parses a date in {@link ReflectionUtil#DEFAULT_DATE_FORMAT}
+    * @param value
+    * @return
+    * @throws ParseException if the date is invalid
+    */
+   public static LocalDate parseDefaultDate(String value) throws ParseException
+   {
+      try
+      {
+         return LocalDate.parse(value.trim(), DEFAULT_DATE_FORMATTER);
+      }
+      catch(DateTimeParseException e)
+      {
+         ParseException parseException = new ParseException("Unparseable date: \"" + value + "\"", e.getErrorIndex());
+         parseException.initCause(e);
+         throw parseException;
+      }
+   }
+
+   /***
+    * The date at the current time of day in seconds
+    * @param date
+    * @return
+    */
+   public static Date atCurrentTime(LocalDate date)
+   {
+      LocalTime now = LocalTime.now().truncatedTo(ChronoUnit.SECONDS);
+      return Date.from(date.atTime(now).atZone(ZoneId.systemDefault()).toInstant());
+   }
+
+   /***
+    * Parses an ISO-8601 duration such as PT30S or a number with a unit: ns, us, ms, s, m, h or d.
+    * A number without unit is in milliseconds.
+    * @param value
+    * @return
+    */
+   public static Duration parseDuration(String value)
+   {
+      String duration = value.trim();
+      if(duration.startsWith("P") || duration.startsWith("-P") || duration.startsWith("+P"))
+         return Duration.parse(duration);
+      int unitStart = duration.length();
+      while(unitStart > 0 && Character.isLetter(duration.charAt(unitStart - 1)))
+         unitStart--;
+      long amount = Long.parseLong(duration.substring(0, unitStart).trim());
+      String unit = duration.substring(unitStart).toLowerCase(Locale.ROOT);
+      switch(unit)
+      {
+         case "ns":
+            return Duration.ofNanos(amount);
+         case "us":
+            return Duration.of(amount, ChronoUnit.MICROS);
+         case "":
+         case "ms":
+            return Duration.ofMillis(amount);
+         case "s":
+            return Duration.ofSeconds(amount);
+         case "m":
+            return Duration.ofMinutes(amount);
+         case "h":
+            return Duration.ofHours(amount);
+         case "d":
+            return Duration.ofDays(amount);
+         default:
+            throw new IllegalArgumentException("Invalid duration unit " + value);
+      }
+   }
+
+   /***
+    * Parses host:port, [ipv6]:port or :port. The host is not resolved, an address without host is the wildcard address.
+    * @param value
+    * @return
+    */
+   public static InetSocketAddress parseSocketAddress(String value)
+   {
+      String address = value.trim();
+      int portStart = address.lastIndexOf(':');
+      if(portStart < 0 || address.indexOf(']', portStart) >= 0)
+         throw new IllegalArgumentException("Missing port in socket address " + value);
+      int port = Integer.parseInt(address.substring(portStart + 1));
+      String host = address.substring(0, portStart);
+      if(host.startsWith("[") && host.endsWith("]"))
+         host = host.substring(1, host.length() - 1);
+      return host.isEmpty() ? new InetSocketAddress(port) : InetSocketAddress.createUnresolved(host, port);
+   }
+
+   /***
+    * Converts an enum constant name
+    */
+   private static final class EnumConverter<E extends Enum<E>> implements ValueConverter<E>
+   {
+      private final Class<E> enumType;
+
+      EnumConverter(Class<E> enumType)
+      {
+         this.enumType = enumType;
+      }
+
+      @Override
+      public E convert(String value)
+      {
+         return Enum.valueOf(enumType, value);
+      }
+   }
+}
@@ -0,0 +1,2460 @@
+ package com.oselan.common.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.configuration.ConfigurationException;
+import org.apache.commons.configuration.HierarchicalConfiguration;
+import org.apache.commons.configuration.XMLConfiguration;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import com.oselan.common.util.ByteSizeConverter;
+import com.oselan.common.util.DateUtil;
+import com.oselan.common.util.ReflectionUtil;
+import com.oselan.common.util.ValueConverter;
+import com.oselan.common.util.ValueConverters;
+
+ 
+ 
+
+@FixMethodOrder(MethodSorters.JVM)
+public class TestConfigurations
+{
+    
+     
+    /***
+     * used to ttest file based configuration .
+     */
+  private static final String FILE_PARENTCHILD = "test/parentchild.xml"; 
+  private static final String CONFIG_PARENT_CHILD_XML  = "<Config>" + 
+                                                        "<ParentConfig>" + 
+                                                        "<ChildConfig>" + 
+                                                              "<PropertyX>Test Field of Type Config Bean</PropertyX>  " + 
+                                                              "<PropertyY>true</PropertyY>  " + 
+                                                        "</ChildConfig>" +  
+                                                           "<PropertyA>false</PropertyA> " + 
+                                                           "<lastRun>20171115091203</lastRun>   " + 
+                                                     "</ParentConfig>" + 
+                                                   "</Config>";   
+   private static final String CONFIG_LIST_ITEMS_XML ="<Config>" + 
+                                                   "<ListConfig listkey=\"app1\">" + 
+                                                   "        <ListItemConfig id=\"TestProcess1\">" + 
+                                                    "           <ListItemConfigProperty>test1</ListItemConfigProperty> " + 
+                                                   "        </ListItemConfig>  " + 
+                                                   "        <ListItemConfig id=\"TestProcess2\">" + 
+                                                   "           <ListItemConfigProperty>test2</ListItemConfigProperty>" + 
+                                                   "        </ListItemConfig>  " + 
+                                                   "        <ListItemConfig id=\"TestProcess3\">" + 
+                                                   "            <ListItemConfigProperty>test3</ListItemConfigProperty>" + 
+                                                   "        </ListItemConfig>" + 
+                                                   "</ListConfig>"
+                                                   + "</Config>" ;
+   
+   private static final String CONFIG_LIST_XML ="<Config>" + 
+      "<ListConfig >" +  
+      "          <ListItemConfigProperty>test1</ListItemConfigProperty>  "  +
+      "           <ListItemConfigProperty>test2</ListItemConfigProperty> "  +
+      "           <ListItemConfigProperty>test3</ListItemConfigProperty> " + 
+      "</ListConfig>" + "</Config>" ;
+   
+   private static final String CONFIG_DATATYPE_XML = "<Config>" + 
+                                                         "<DataTypesConfig>" + 
+                                                         "           <booleanValue>true</booleanValue>" + 
+                                                         "           <integerValue>3</integerValue>" + 
+                                                         "           <longValue>3000000000000</longValue>" + 
+                                                         "           <doubleValue>2.12345678910</doubleValue>" + 
+                                                         "           <floatValue>6.5</floatValue>" + 
+                                                         "           <StringValue>Test</StringValue>" +     
+                                                         "           <enumValue>SAMPLE</enumValue>" + 
+                                                         "           <dateValue>12/12/2017</dateValue>" + 
+                                                         "           <parsableDateTime>20171109155731</parsableDateTime>   " + 
+                                                         "</DataTypesConfig>" + 
+                                                      "</Config>";
+   
+   @BeforeClass 
+   public static void createFiles() throws IOException 
+   {  
+         File file = new File(FILE_PARENTCHILD);
+         file.getParentFile().mkdirs();
+         assertTrue(file.createNewFile());
+         FileWriter fwriter = new FileWriter(file);
+         fwriter.write(CONFIG_PARENT_CHILD_XML);
+         fwriter.close(); 
+   }
+   
+   @AfterClass
+  public static void cleanFiles(){
+      File file = new File(FILE_PARENTCHILD);
+      if (file.exists()) file.delete(); 
+      
+  }
+   
+   /***
+    * Tests
+    * File based configuration 
+    * Loading parentBean config
+    * Initializing and loading child beans 
+    * Annotation  
+    */
+   @Test 
+   public void testFileReadingAnnotation()
+   { 
+      @ConfigBeanMapping("ParentConfig")
+      class ConfigParentA extends ConfigBean 
+      {
+         //fields
+         @ConfigFieldMapping("PropertyA")
+         private String propertyA;  
+         @ConfigFieldMapping("lastRun")
+         private String lastRunDate; 
+         private ConfigChild configChild ;  
+         //properties
+         public String getPropertyA()
+         {
+            return propertyA;
+         } 
+         public String getLastRunDate()
+         {
+            return lastRunDate;
+         } 
+         public ConfigChild getConfigChild()
+         {
+            return configChild;
+         }   
+      }
+      ConfigParentA configParent = new ConfigParentA();
+      new ConfigProvider().withConfigBean(configParent).loadConfiguration(FILE_PARENTCHILD);  
+      assertNotNull(configParent.getLastRunDate());
+      assertNotNull(configParent.getPropertyA());
+      assertNotNull(configParent.getConfigChild());
+      assertNotNull(configParent.getConfigChild().getPropertyX()); 
+      assertTrue(configParent.getConfigChild().isPropertyY());
+   }
+   
+   
+   /***
+    * Testing bean filling manually mixed with child bean based on Annotations
+    */
+   @Test
+   public void testFileReadingManual()
+   {
+      class ConfigParentM  extends ConfigBean 
+      {
+         //paths and property keys 
+         private static final String CONFIG_PATH = "ParentConfig"; 
+         private static final String PROPERTY_A = "PropertyA"; 
+         private static final String LAST_RUN = "lastRun";
+         //fields
+         private String propertyA; 
+         private String lastRunDate;
+         private ConfigChild configChild ;  
+         //read configuration manually .
+         @Override
+         public void readConfiguration()
+         { 
+            super.readConfiguration();
+            propertyA =  getConfig().getString(PROPERTY_A);  
+            lastRunDate = getConfig().getString(LAST_RUN); 
+         } 
+         //get the path of this config.
+         @Override
+         public String getPath()
+         {
+            return CONFIG_PATH;
+         }
+           
+         public String getPropertyA()
+         {
+            return propertyA;
+         } 
+         public String getLastRunDate()
+         {
+            return lastRunDate;
+         }
+         public ConfigChild getConfigChild()
+         {
+            return configChild;
+         } 
+         
+      }
+      
+      ConfigParentM configParent = new ConfigParentM();
+      new ConfigProvider().withConfigBean(configParent).loadConfiguration(FILE_PARENTCHILD);  
+      assertNotNull(configParent.getLastRunDate());
+      assertNotNull(configParent.getPropertyA());
+      assertNotNull(configParent.getConfigChild());
+      assertNotNull(configParent.getConfigChild().getPropertyX()); 
+      assertTrue(configParent.getConfigChild().isPropertyY());
+   }
+   
+   
+   
+   /***
+    * Testing configuration reloading and writing 
+    */
+   @Test 
+   @Ignore
+   public void testFileWriting_Reloading()
+   { 
+      @ConfigBeanMapping("ParentConfig")
+      class ConfigParentA extends ConfigBean 
+      {
+         //fields
+         @ConfigFieldMapping("PropertyA")
+         private String propertyA;  
+        
+         //properties
+         public String getPropertyA()
+         {
+            return propertyA;
+         } 
+         public void setPropertyA(String value)
+         {
+            writeProperty("PropertyA", value);
+         }
+         @Override
+         public String toString()
+         {
+            return "ConfigParentA [propertyA=" + propertyA + "]";
+         } 
+         
+      } 
+      ConfigParentA configParentWritable = new ConfigParentA();
+        new ConfigProvider().withConfigBean(configParentWritable).loadConfiguration(FILE_PARENTCHILD,false,true);  
+      assertNotNull(configParentWritable.getPropertyA()); 
+      
+      ConfigParentA configParentReloadable = new ConfigParentA();
+       new ConfigProvider().withConfigBean(configParentReloadable).loadConfiguration(FILE_PARENTCHILD,true,true);  
+      assertNotNull(configParentReloadable.getPropertyA()); 
+      
+      
+      //Since both providers read from same source , both values should be equal
+      assertEquals(configParentWritable.getPropertyA() , configParentReloadable.getPropertyA());
+      //change the value through the first bean
+      String anyValue = "dummyValue";
+      configParentWritable.setPropertyA(anyValue);
+      //check if the reloadable object automatically detected the change.
+      System.out.println(configParentReloadable );
+      assertNotEquals(configParentReloadable.getPropertyA(), anyValue);
+      //wait for reloading to occur
+      waitFor(ConfigProvider.REFRESH_DELAY+5000);
+      System.out.println(configParentReloadable );
+      //reloading occurred check propertyA is now equal
+      assertEquals(anyValue,configParentReloadable.getPropertyA());
+      
+      //Trying the other way around will not work since the first bean provider is not reloadable.
+      configParentReloadable.setPropertyA("true"); 
+      //wait for reloading to occur
+      waitFor(ConfigProvider.REFRESH_DELAY+5000);
+      //still not equal
+      assertNotEquals(configParentWritable.getPropertyA(), configParentReloadable.getPropertyA());
+   }
+   
+   
+   @Test 
+   public void testXMLStringReading()
+   { 
+      @ConfigBeanMapping("ParentConfig")
+      class ConfigParentA extends ConfigBean 
+      {
+         //fields
+         @ConfigFieldMapping("PropertyA")
+         private String propertyA;  
+         @ConfigFieldMapping("lastRun")
+         private String lastRunDate; 
+         private ConfigChild configChild ;  
+         //properties
+         public String getPropertyA()
+         {
+            return propertyA;
+         } 
+         public String getLastRunDate()
+         {
+            return lastRunDate;
+         } 
+         public ConfigChild getConfigChild()
+         {
+            return configChild;
+         }   
+      }
+      ConfigParentA configParent = new ConfigParentA();
+      new ConfigProvider().withConfigBean(configParent).loadConfiguration(CONFIG_PARENT_CHILD_XML);  
+      assertNotNull(configParent.getLastRunDate());
+      assertNotNull(configParent.getPropertyA());
+      assertNotNull(configParent.getConfigChild());
+      assertNotNull(configParent.getConfigChild().getPropertyX()); 
+      assertTrue(configParent.getConfigChild().isPropertyY());
+   }
+
+   /***
+    * ConfigProvider supports bean injection of ParentBean and childBean
+    * after loadConfiguration has been called
+    */
+   @Test
+   public void testBeanInjectionPostLoading()
+   {
+      @ConfigBeanMapping("ParentConfig")
+      class ConfigParentA extends ConfigBean 
+      {
+         //fields
+         @ConfigFieldMapping("PropertyA")
+         private String propertyA;  
+         @ConfigFieldMapping("lastRun")
+         private String lastRunDate;  
+         //properties
+         public String getPropertyA()
+         {
+            return propertyA;
+         } 
+         public String getLastRunDate()
+         {
+            return lastRunDate;
+         } 
+          
+      }
+      ConfigParentA configParent = new ConfigParentA();
+      ConfigChild configChild = new ConfigChild();
+      ConfigProvider c1 = new ConfigProvider().loadConfiguration(CONFIG_PARENT_CHILD_XML );
+       
+      assertNull(configParent.getLastRunDate());
+      assertNull(configParent.getPropertyA()); 
+      assertNull(configChild.getPropertyX()); 
+      assertFalse(configChild.isPropertyY());
+      //inject beans
+      c1.withConfigBean(configParent);
+      configParent.withConfigBean(configChild);
+      //values change
+      assertNotNull(configParent.getLastRunDate());
+      assertNotNull(configParent.getPropertyA()); 
+      assertNotNull(configChild.getPropertyX()); 
+      assertTrue(configChild.isPropertyY());
+   }
+   
+   /***
+    *   This loading a list of beans using ConfigList subclass 
+    */
+   @Test
+   public void testBeanListLoading()
+   {  
+      //list item config
+       @ConfigBeanMapping("ListItemConfig")
+       class ConfigListItem extends ConfigBean
+       {  
+         @ConfigFieldMapping( "[@id]")
+         private String id;
+         @ConfigFieldMapping( "ListItemConfigProperty")
+         private String listItemConfigProperty;
+         public String getId()
+         {
+            return id;
+         }
+         public String getListItemConfigProperty()
+         {
+            return listItemConfigProperty;
+         }
+         @Override
+         public String toString()
+         {
+            return "ConfigListItem [id=" + id + ", listItemConfigProperty=" + listItemConfigProperty + "]";
+         }
+         
+       }
+      
+       //list config
+       @ConfigBeanMapping("ListConfig")
+       class ConfigList extends ConfigBeanList<ConfigListItem>
+       {   
+         @ConfigFieldMapping( "[@listkey]")
+         private String listKey;
+          
+         @Override
+         protected Class<ConfigListItem> getElementClass()
+         {
+            return ConfigListItem.class;
+         }
+   
+         public String getListKey()
+         {
+            return listKey;
+         }
+   
+       }
+        
+       ConfigList configList = new ConfigList();
+       new ConfigProvider().withConfigBean(configList).loadConfiguration(CONFIG_LIST_ITEMS_XML);
+       assertNotNull( configList.getListKey()); 
+       assertTrue( configList.size() > 0 );
+       assertNotNull(configList.get(0).getId());
+       assertNotNull(configList.get(0).getListItemConfigProperty());
+       for (ConfigListItem item: configList)
+          System.out.println(item);
+   }
+   
+   @Test
+   public void testStringListLoading()
+   {  
+      @ConfigBeanMapping("ListConfig")
+      class ConfigList  extends ConfigBean 
+      {
+         
+         private List<Object> listItems;   
+         @SuppressWarnings("unchecked")
+		@Override
+         public void readConfiguration()
+         { 
+            super.readConfiguration();
+            listItems = new ArrayList<Object>();
+            listItems  =  getConfig().getList("ListItemConfigProperty");
+            System.out.println(listItems);
+         } 
+        
+           
+      }
+      ConfigList list = new ConfigList();
+//       ConfigBeanList<ConfigBean> configList = new ConfigBeanList();
+      new ConfigProvider().withConfigBean(list).loadConfiguration(CONFIG_LIST_XML);
+       
+     
+   }
+   
+   /****
+    * Tests data type mapping to various accepted data types
+    * Tests parsing methods  
+    */
+   @Test
+   public void testDataTypeMapping()
+   {
+      @ConfigBeanMapping("DataTypesConfig")
+       class ConfigDataTypes extends ConfigBean
+      {  
+         //Fieldsv
+        @ConfigFieldMapping("booleanValue")
+        private boolean booleanValue;
+        @ConfigFieldMapping("integerValue")
+        private int integerValue;
+        @ConfigFieldMapping("longValue")
+        private long longValue;
+        @ConfigFieldMapping("doubleValue")
+        private double doubleValue;
+        @ConfigFieldMapping("floatValue")
+        private float floatValue;
+        @ConfigFieldMapping("StringValue")
+        private String stringValue;
+        @ConfigFieldMapping("enumValue") 
+        private MyEnum enumValue;
+        @ConfigFieldMapping("dateValue")//MM/dd/yyyy
+        private Date date; 
+        @ConfigFieldMapping(value="parsableDateTime",parserMethod="parseDateTime")
+        private Date datetime;
+        //Boxed Objects mapping
+        @ConfigFieldMapping("booleanValue")
+        private Boolean booleanObj;
+        @ConfigFieldMapping("integerValue")
+        private Integer integerObj;
+        @ConfigFieldMapping("longValue")
+        private Long longObj;
+        @ConfigFieldMapping("doubleValue")
+        private Double doubleObj;
+        @ConfigFieldMapping("floatValue")
+        private Float floatObj;
+        /***
+         * Parser for datetime
+         * @param value
+         */
+        @SuppressWarnings("unused")
+        public void parseDateTime(String value)
+        {
+           try
+           {
+              datetime = new SimpleDateFormat("yyyyMMddHHmmss").parse(value);
+           }
+           catch(ParseException e)
+           {
+              // TODO Auto-generated catch block
+              e.printStackTrace();
+           }
+        }
+
+      @Override
+      public String toString()
+      {
+         return "ConfigDataTypes [booleanValue=" + booleanValue + ", integerValue=" + integerValue + ", longValue=" + longValue + ", doubleValue="
+            + doubleValue + ", floatValue=" + floatValue + ", stringValue=" + stringValue + ", enumValue=" + enumValue + ", date=" + date
+            + ", datetime=" + datetime + ", booleanObj=" + booleanObj + ", integerObj=" + integerObj + ", longObj=" + longObj + ", doubleObj="
+            + doubleObj + ", floatObj=" + floatObj + "]";
+      }
+        
+     }
+      
+      ConfigDataTypes configDataTypes = new ConfigDataTypes();
+      new ConfigProvider().withConfigBean(configDataTypes).loadConfiguration(CONFIG_DATATYPE_XML);
+      System.out.println(configDataTypes.toString());
+      assertTrue(configDataTypes.booleanValue);
+      assertTrue(configDataTypes.integerValue>0);
+      assertTrue(configDataTypes.longValue>0);
+      assertTrue(configDataTypes.doubleValue>0);
+      assertTrue(configDataTypes.floatValue>0);
+      assertNotNull(configDataTypes.enumValue );
+      assertNotNull(configDataTypes.date );
+      assertNotNull(configDataTypes.datetime );
+      
+      assertNotNull(configDataTypes.stringValue ); 
+      assertNotNull(configDataTypes.booleanObj );
+      assertNotNull(configDataTypes.integerObj );
+      assertNotNull(configDataTypes.longObj );
+      assertNotNull(configDataTypes.doubleObj );
+      assertNotNull(configDataTypes.floatObj );
+   }
+   
+   
+  
+   private static final String CONFIG_RECURSION_XML  = "<config>" + 
+      "<filter className=\"fClass1\" >"   
+      + "<success  command=\"command1\" actor=\"actor1\" />"
+      + "<fail >"
+      +    "<filter className=\"fClass1\" >"
+      +        "<success command=\"command2\" actor=\"actor2\"/>"
+      +        "<fail command=\"command3\" actor=\"actor3\"/>"
+      +    "</filter>"
+      + "</fail>"
+   + "</filter></config>";
+  
+   @Test
+   public void testFileReadingAnnotationRecurrsion()
+   { 
+      
+      FilterConfig configFilter = new FilterConfig();
+      new ConfigProvider().withConfigBean(configFilter).loadConfiguration(CONFIG_RECURSION_XML);
+      System.out.println(configFilter);
+   }
+    /***
+    * filter_config 
+    * <filter className="..." >
+    *  <success  command="..." actor="..." >
+    *  <fail >
+    *     <filter className="..." >
+    *        <success command="..." actor="...">
+    *        <fail command="..." actor="...">
+    *     </filter>
+    *  </fail>
+    * </filter> 
+    *
+    */   
+   @ConfigBeanMapping("filter")
+   public class FilterConfig extends ConfigBean 
+   {
+      @ConfigFieldMapping("[@className]") 
+      private String className;
+      @ConfigFieldMapping(value="success",defaultValue="null")
+      private branchConfig success;
+      @ConfigFieldMapping(value="fail",defaultValue="null")
+      private branchConfig fail;
+      @Override
+      public String toString()
+      {
+         StringBuilder builder = new StringBuilder();
+         builder.append("FilterConfig [className=").append(className).append(", success=").append(success).append(", fail=").append(fail).append("]");
+         return builder.toString();
+      }
+      
+   }
+   
+   public class branchConfig extends ConfigBean 
+   {
+      @ConfigFieldMapping(value="[@command]",defaultValue="null") 
+      private String command;
+      @ConfigFieldMapping(value="[@actor]",defaultValue="null")
+      private String actor;
+      @ConfigFieldMapping(value="filter",defaultValue="null")
+      private FilterConfig filter;
+      @Override
+      public String toString()
+      {
+         StringBuilder builder = new StringBuilder();
+         builder.append("branchConfig [command=").append(command).append(", actor=").append(actor).append(", filter=").append(filter).append("]");
+         return builder.toString();
+      }
+      
+   }
+    
+   /****
+    * Tests data type mapping with default values 
+    * Test default null value
+    */
+   @Test
+   public void testDataTypeMappingDefaultValues()
+   {
+      @ConfigBeanMapping("DataTypesConfig")
+       class ConfigDataTypes extends ConfigBean
+      {  
+         //Fields with non existing mappings 
+        @ConfigFieldMapping(value="missingValue",defaultValue="true")
+        private boolean booleanValue;
+        @ConfigFieldMapping(value="missingValue",defaultValue="22")
+        private int integerValue;
+        @ConfigFieldMapping(value="missingValue",defaultValue="300000000")
+        private long longValue;
+        @ConfigFieldMapping(value="missingValue",defaultValue="3.62222")
+        private double doubleValue;
+        @ConfigFieldMapping(value="missingValue",defaultValue="3.6")
+        private float floatValue;
+        @ConfigFieldMapping(value="missingValue",defaultValue="stringValue")
+        private String stringValue;
+        @ConfigFieldMapping(value="missingValue",defaultValue="SAMPLE2") 
+        private MyEnum enumValue;
+        @ConfigFieldMapping(value="missingValue",defaultValue="12/10/2017")
+        private Date date; 
+        @ConfigFieldMapping(value="missingValue",parserMethod="parseDateTime",defaultValue="20171109155731")
+        private Date datetime;
+        //Objects mapping
+        @ConfigFieldMapping(value="missingValue",defaultValue="true")
+        private Boolean booleanObj;
+        @ConfigFieldMapping(value="missingValue",defaultValue="22")
+        private Integer integerObj;
+        @ConfigFieldMapping(value="missingValue",defaultValue="3000000000")
+        private Long longObj;
+        @ConfigFieldMapping(value="missingValue",defaultValue="3.6222222")
+        private Double doubleObj;
+        @ConfigFieldMapping(value="missingValue",defaultValue="3.6")
+        private Float floatObj;
+       
+        @ConfigFieldMapping(value="missingValue",defaultValue="null")
+        private String nullValue;
+        /***
+         * Parser for datetime
+         * @param value
+         */
+        @SuppressWarnings("unused")
+        public void parseDateTime(String value)
+        {
+           try
+           {
+              datetime = new SimpleDateFormat("yyyyMMddHHmmss").parse(value);
+           }
+           catch(ParseException e)
+           {
+              // TODO Auto-generated catch block
+              e.printStackTrace();
+           }
+        }
+   
+      @Override
+      public String toString()
+      {
+         return "ConfigDataTypes [booleanValue=" + booleanValue + ", integerValue=" + integerValue + ", longValue=" + longValue + ", doubleValue="
+            + doubleValue + ", floatValue=" + floatValue + ", stringValue=" + stringValue + ", enumValue=" + enumValue + ", date=" + date
+            + ", datetime=" + datetime + ", booleanObj=" + booleanObj + ", integerObj=" + integerObj + ", longObj=" + longObj + ", doubleObj="
+            + doubleObj + ", floatObj=" + floatObj + "]";
+      }
+        
+     }
+      
+      ConfigDataTypes configDataTypes = new ConfigDataTypes();
+      new ConfigProvider().withConfigBean(configDataTypes).loadConfiguration(CONFIG_DATATYPE_XML);
+      System.out.println(configDataTypes.toString());
+      assertTrue(configDataTypes.booleanValue);
+      assertTrue(configDataTypes.integerValue>0);
+      assertTrue(configDataTypes.longValue>0);
+      assertTrue(configDataTypes.doubleValue>0);
+      assertTrue(configDataTypes.floatValue>0);
+      assertNotNull(configDataTypes.enumValue );
+      assertNotNull(configDataTypes.date );
+      assertNotNull(configDataTypes.datetime ); 
+      assertNotNull(configDataTypes.stringValue ); 
+      assertNotNull(configDataTypes.booleanObj );
+      assertNotNull(configDataTypes.integerObj );
+      assertNotNull(configDataTypes.longObj );
+      assertNotNull(configDataTypes.doubleObj );
+      assertNotNull(configDataTypes.floatObj );
+      assertNull(configDataTypes.nullValue);
+   }
+
+
+
+
+   /****
+    * Tests a default value that can not be parsed to the field type fails the binding 
+    * and that a bean class is bound the same way on every load
+    */
+   @Test
+   public void testBindingPlan()
+   {
+      @ConfigBeanMapping("DataTypesConfig")
+      class ConfigInvalidDefault extends ConfigBean
+      {
+         @ConfigFieldMapping(value="missingValue",defaultValue="notANumber")
+         private int integerValue;
+      }
+      try
+      {
+         new ConfigProvider().withConfigBean(new ConfigInvalidDefault()).loadConfiguration(CONFIG_DATATYPE_XML);
+         fail("Expected invalid default value to fail");
+      }
+      catch(ConfigException e)
+      {
+         assertTrue(e.getMessage().contains("notANumber"));
+      }
+      
+      ConfigChild first = new ConfigChild();
+      ConfigChild second = new ConfigChild();
+      new ConfigProvider().withConfigBean(first).withConfigBean(second).loadConfiguration("<Config><ChildConfig><PropertyX>x</PropertyX></ChildConfig></Config>");
+      assertTrue(ConfigBindingPlan.forClass(ConfigChild.class) == ConfigBindingPlan.forClass(second.getClass()));
+      assertEquals("x", first.getPropertyX());
+      assertEquals(first.getPropertyX(), second.getPropertyX());
+      assertFalse(second.isPropertyY());
+   }
+
+
+   /****
+    * Tests the binder generated at compile time is used for beans with accessible fields
+    */
+   @Test
+   public void testGeneratedBinder()
+   {
+      assertEquals(ConfigBinder.getBinderClassName(GeneratedBinderConfig.class), ConfigBinder.forClass(GeneratedBinderConfig.class).getClass().getName());
+      assertTrue(ConfigBinder.forClass(FilterConfig.class) instanceof ConfigBindingPlan);
+      
+      GeneratedBinderConfig config = new GeneratedBinderConfig();
+      new ConfigProvider().withConfigBean(config).loadConfiguration(CONFIG_DATATYPE_XML);
+      assertTrue(config.booleanValue);
+      assertEquals(Integer.valueOf(3), config.integerObj);
+      assertEquals(3000000000000L, config.longValue);
+      assertEquals("Test", config.stringValue);
+      assertEquals(MyEnum.SAMPLE, config.enumValue);
+      assertNotNull(config.date);
+      assertEquals(Float.valueOf(3.6f), config.floatObj);
+      assertEquals(MyEnum.SAMPLE2, config.defaultEnum);
+      assertEquals("20171109155731", config.datetime);
+      assertNull(config.child);
+      assertEquals("Test", config.section.value);
+   }
+   
+   /***
+    * Subconfiguration implementing IConfig without extending ConfigBean
+    */
+   public static class StringValueSection implements IConfig
+   {
+      Object value;
+
+      @Override
+      public void loadConfiguration(HierarchicalConfiguration config)
+      {
+         value = config.getRootNode().getValue();
+      }
+
+      @Override
+      public String getPath()
+      {
+         return "StringValue";
+      }
+   }
+   
+   @ConfigBeanMapping("DataTypesConfig")
+   public class GeneratedBinderConfig extends ConfigBean
+   {
+      @ConfigFieldMapping("booleanValue")
+      boolean booleanValue;
+      @ConfigFieldMapping("integerValue")
+      Integer integerObj;
+      @ConfigFieldMapping("longValue")
+      long longValue;
+      @ConfigFieldMapping("StringValue")
+      String stringValue;
+      @ConfigFieldMapping("enumValue")
+      MyEnum enumValue;
+      @ConfigFieldMapping("dateValue")
+      Date date;
+      @ConfigFieldMapping(value="missingValue",defaultValue="3.6")
+      Float floatObj;
+      @ConfigFieldMapping(value="missingValue",defaultValue="SAMPLE2")
+      MyEnum defaultEnum;
+      @ConfigFieldMapping(value="parsableDateTime",parserMethod="parseDateTime")
+      String datetime;
+      @ConfigFieldMapping(value="ChildConfig",defaultValue="null")
+      ConfigChild child;
+      StringValueSection section;
+      
+      public void parseDateTime(String value)
+      {
+         datetime = value;
+      }
+   }
+
+
+   /****
+    * Tests loading beans in parallel with a dependency between beans
+    */
+   @Test
+   public void testParallelBinding()
+   {
+      final List<String> loadOrder = Collections.synchronizedList(new ArrayList<String>());
+      @ConfigBeanMapping("ParentConfig")
+      class ConfigParentP extends ConfigBean 
+      {
+         @ConfigFieldMapping("PropertyA")
+         private String propertyA;
+         @Override
+         public void readConfiguration()
+         {
+            waitFor(50);
+            super.readConfiguration();
+            loadOrder.add("parent");
+         }
+      }
+      @ConfigBeanMapping("ParentConfig.ChildConfig")
+      class ConfigChildP extends ConfigBean 
+      {
+         @ConfigFieldMapping("PropertyX")
+         private String propertyX;
+         @Override
+         public void readConfiguration()
+         {
+            super.readConfiguration();
+            loadOrder.add("child");
+         }
+      }
+      ConfigParentP parent = new ConfigParentP();
+      ConfigChildP child = new ConfigChildP();
+      ExecutorService executor = Executors.newFixedThreadPool(2);
+      try
+      {
+         ConfigProvider provider = new ConfigProvider().withParallelBinding(executor).withConfigBean(child, parent).withConfigBean(parent);
+         provider.loadConfiguration(CONFIG_PARENT_CHILD_XML);
+         assertEquals("false", parent.propertyA);
+         assertNotNull(child.propertyX);
+         assertEquals(Arrays.asList("parent", "child"), loadOrder);
+         
+         //cyclic dependencies can not be loaded
+         provider.withConfigBean(parent, child);
+         try
+         {
+            provider.readConfigurations();
+            fail("Expected cyclic dependency to fail");
+         }
+         catch(ConfigException e)
+         {
+            assertTrue(e.getMessage().startsWith("Cyclic"));
+         }
+      }
+      finally
+      {
+         executor.shutdown();
+      }
+      
+      //sequential loading also follows the dependencies
+      loadOrder.clear();
+      ConfigChildP sequentialChild = new ConfigChildP();
+      ConfigParentP sequentialParent = new ConfigParentP();
+      new ConfigProvider().withConfigBean(sequentialChild, sequentialParent).withConfigBean(sequentialParent).loadConfiguration(CONFIG_PARENT_CHILD_XML);
+      assertEquals(Arrays.asList("parent", "child"), loadOrder);
+   }
+
+
+   /****
+    * Tests lazy beans are filled on first access and filled again on access after a reload
+    */
+   @Test
+   public void testLazyBinding()
+   {
+      @ConfigBeanMapping("ParentConfig")
+      class ConfigParentL extends ConfigBean 
+      {
+         @ConfigFieldMapping("PropertyA")
+         private String propertyA;
+         @ConfigFieldMapping("ChildConfig")
+         private LazyConfig<ConfigChild> configChild;
+      }
+      ConfigParentL parent = new ConfigParentL();
+      LazyConfig<GeneratedLazyConfig> lazyParent = new LazyConfig<GeneratedLazyConfig>(GeneratedLazyConfig.class);
+      ConfigProvider provider = new ConfigProvider().withConfigBean(parent).withConfigBean(lazyParent).loadConfiguration(CONFIG_PARENT_CHILD_XML);
+      assertEquals("false", parent.propertyA);
+      assertFalse(parent.configChild.isLoaded());
+      ConfigChild child = parent.configChild.get();
+      assertTrue(parent.configChild.isLoaded());
+      assertEquals("Test Field of Type Config Bean", child.getPropertyX());
+      
+      assertFalse(lazyParent.isLoaded());
+      assertFalse(ConfigBinder.forClass(GeneratedLazyConfig.class) instanceof ConfigBindingPlan);
+      assertEquals("false", lazyParent.get().propertyA);
+      assertTrue(lazyParent.get().configChild.get().isPropertyY());
+      
+      provider.loadConfiguration(CONFIG_PARENT_CHILD_XML.replace("Test Field of Type Config Bean", "changed"));
+      assertFalse(parent.configChild.isLoaded());
+      assertTrue(child == parent.configChild.get());
+      assertEquals("changed", child.getPropertyX());
+      assertEquals("changed", lazyParent.get().configChild.get().getPropertyX());
+      
+      //lazy beans of inner classes are created in the parent bean
+      LazyInnerConfig innerParent = new LazyInnerConfig();
+      new ConfigProvider().withConfigBean(innerParent).loadConfiguration(CONFIG_PARENT_CHILD_XML);
+      assertEquals("Test Field of Type Config Bean", innerParent.child.get().propertyX);
+      assertTrue(innerParent.child.get().getParent() == innerParent);
+   }
+   
+   @ConfigBeanMapping("ParentConfig")
+   public class GeneratedLazyConfig extends ConfigBean
+   {
+      @ConfigFieldMapping("PropertyA")
+      String propertyA;
+      LazyConfig<ConfigChild> configChild;
+   }
+
+   @ConfigBeanMapping("ParentConfig")
+   public class LazyInnerConfig extends ConfigBean
+   {
+      LazyConfig<Child> child;
+
+      @ConfigBeanMapping("ChildConfig")
+      public class Child extends ConfigBean
+      {
+         @ConfigFieldMapping("PropertyX")
+         String propertyX;
+
+         LazyInnerConfig getParent()
+         {
+            return LazyInnerConfig.this;
+         }
+      }
+   }
+
+
+   /****
+    * Tests a reload only loads the beans whose configuration section changed
+    * and refresh forces loading the beans of a path
+    */
+   @Test
+   public void testIncrementalReload() throws IOException
+   {
+      final int[] loads = new int[2];
+      @ConfigBeanMapping("ParentConfig.ChildConfig")
+      class ConfigChildR extends ConfigBean 
+      {
+         @ConfigFieldMapping("PropertyX")
+         private String propertyX;
+         @Override
+         public void readConfiguration()
+         {
+            super.readConfiguration();
+            loads[0]++;
+         }
+      }
+      @ConfigBeanMapping("ListConfig")
+      class ConfigListR extends ConfigBean 
+      {
+         @ConfigFieldMapping("[@listkey]")
+         private String listKey;
+         @Override
+         public void readConfiguration()
+         {
+            super.readConfiguration();
+            loads[1]++;
+         }
+      }
+      String xml = CONFIG_PARENT_CHILD_XML.replace("</Config>", "<ListConfig listkey=\"app1\"/></Config>");
+      File file = new File("test/incremental.xml");
+      writeFile(file, xml);
+      try
+      {
+         ConfigChildR child = new ConfigChildR();
+         ConfigListR list = new ConfigListR();
+         ConfigProvider provider = new ConfigProvider().withConfigBean(child).withConfigBean(list).loadConfiguration(file.getPath());
+         assertEquals(1, loads[0]);
+         assertEquals(1, loads[1]);
+         
+         writeFile(file, xml.replace("app1", "app2"));
+         provider.reload();
+         assertEquals(1, loads[0]);
+         assertEquals(2, loads[1]);
+         assertEquals("app2", list.listKey);
+         
+         provider.reload();
+         assertEquals(1, loads[0]);
+         assertEquals(2, loads[1]);
+         
+         provider.refresh("ParentConfig");
+         assertEquals(2, loads[0]);
+         assertEquals(2, loads[1]);
+         assertEquals("Test Field of Type Config Bean", child.propertyX);
+      }
+      finally
+      {
+         file.delete();
+      }
+   }
+   
+   /***
+    * Test reloading a watched file replaced like a kubernetes ConfigMap volume, by swapping the ..data symlink
+    * and by an atomic rename of the target file
+    */
+   @Test
+   public void testWatchedReload() throws IOException, InterruptedException
+   {
+      File dir = new File("test/watched");
+      File version1 = new File(dir, "..v1/config.xml");
+      File version2 = new File(dir, "..v2/config.xml");
+      String xml = "<Config><ChildConfig><PropertyX>original</PropertyX></ChildConfig></Config>";
+      writeFile(version1, xml);
+      writeFile(version2, xml.replace("original", "swapped"));
+      Path data = dir.toPath().resolve("..data");
+      Path link = dir.toPath().resolve("config.xml");
+      try
+      {
+         Files.createSymbolicLink(data, Paths.get("..v1"));
+         Files.createSymbolicLink(link, Paths.get("..data/config.xml"));
+         ConfigChild child = new ConfigChild();
+         new ConfigProvider().withReloadDebounce(50).withConfigBean(child).loadConfiguration(link.toString(), true, false);
+         assertEquals("original", child.propertyX);
+
+         Path dataTmp = dir.toPath().resolve("..data_tmp");
+         Files.createSymbolicLink(dataTmp, Paths.get("..v2"));
+         Files.move(dataTmp, data, StandardCopyOption.ATOMIC_MOVE);
+         assertTrue(awaitValue(child, "swapped"));
+
+         File replacement = new File(version2.getParentFile(), "config.xml.tmp");
+         writeFile(replacement, xml.replace("original", "renamed"));
+         Files.move(replacement.toPath(), version2.toPath(), StandardCopyOption.ATOMIC_MOVE);
+         assertTrue(awaitValue(child, "renamed"));
+      }
+      finally
+      {
+         Files.deleteIfExists(link);
+         Files.deleteIfExists(data);
+         version1.delete();
+         version2.delete();
+         version1.getParentFile().delete();
+         version2.getParentFile().delete();
+         dir.delete();
+      }
+   }
+
+   /***
+    * Test reloads publish new snapshots while pinned snapshots and unchanged beans are kept
+    */
+   @Test
+   public void testSnapshots() throws IOException
+   {
+      String xml = "<Config><ChildConfig><PropertyX>first</PropertyX></ChildConfig>"
+         + "<Other><ChildConfig><PropertyX>other</PropertyX></ChildConfig></Other></Config>";
+      File file = new File("test/snapshots.xml");
+      writeFile(file, xml);
+      try
+      {
+         ConfigChild child = new ConfigChild();
+         ConfigChild other = new ConfigChild();
+         other.setPath("Other.ChildConfig");
+         ConfigProvider provider = new ConfigProvider().withSnapshots().withConfigBean(child).withConfigBean(other).loadConfiguration(file.getPath());
+         ConfigSnapshot first = provider.getSnapshot();
+         assertEquals(1, first.getGeneration());
+         assertEquals(provider.getGeneration(), first.getGeneration());
+         assertTrue(first.get(child) == child);
+         assertTrue(first.getBean(ConfigChild.class) == child);
+
+         writeFile(file, xml.replace("first", "second"));
+         provider.reload();
+         ConfigSnapshot second = provider.getSnapshot();
+         assertEquals(2, second.getGeneration());
+         assertNotEquals(provider.getGeneration(), first.getGeneration());
+         assertEquals("second", second.get(child).getPropertyX());
+         assertEquals("first", first.get(child).getPropertyX());
+         assertEquals("first", child.getPropertyX());
+         assertTrue(second.get(other) == other);
+
+         //reloaded inner class beans are created in the same enclosing instance with their injected beans
+         LazyInnerConfig outer = new LazyInnerConfig();
+         LazyInnerConfig.Child inner = outer.new Child();
+         ConfigChild injected = new ConfigChild();
+         injected.setPath("Injected");
+         inner.withConfigBean(injected);
+         writeFile(file, xml.replace("<PropertyX>first</PropertyX>", "<PropertyX>first</PropertyX><Injected><PropertyX>injected</PropertyX></Injected>"));
+         ConfigProvider innerProvider = new ConfigProvider().withSnapshots().withConfigBean(inner).loadConfiguration(file.getPath());
+         writeFile(file, xml.replace("<PropertyX>first</PropertyX>", "<PropertyX>first</PropertyX><Injected><PropertyX>changed</PropertyX></Injected>"));
+         innerProvider.reload();
+         LazyInnerConfig.Child reloaded = innerProvider.getSnapshot().get(inner);
+         assertTrue(reloaded != inner);
+         assertTrue(reloaded.getParent() == outer);
+         assertEquals(1, reloaded.getConfigBeans().size());
+         assertTrue(reloaded.getConfigBeans().get(0) != injected);
+         assertEquals("changed", ((ConfigChild) reloaded.getConfigBeans().get(0)).getPropertyX());
+         assertEquals("injected", injected.getPropertyX());
+      }
+      finally
+      {
+         file.delete();
+      }
+   }
+
+   /***
+    * Test changes are saved in batches by write behind and on flush
+    */
+   @Test
+   public void testWriteBehind() throws IOException, InterruptedException
+   {
+      File file = new File("test/writebehind.xml");
+      writeFile(file, "<Config><ChildConfig><PropertyX>initial</PropertyX></ChildConfig></Config>");
+      try
+      {
+         ConfigChild child = new ConfigChild();
+         ConfigProvider provider = new ConfigProvider().withWriteBehind(60000, 3).withConfigBean(child).loadConfiguration(file.getPath(), false, true);
+         long modified = file.lastModified();
+         child.writeProperty("PropertyX", "change1");
+         child.writeProperty("PropertyX", "change2");
+         assertEquals(2, provider.getPendingChanges());
+         assertEquals(modified, file.lastModified());
+         assertFalse(readFile(file).contains("change2"));
+
+         child.writeProperty("PropertyX", "change3");
+         for (int i = 0; i < 100 && provider.getPendingChanges() > 0; i++)
+            Thread.sleep(20);
+         assertEquals(0, provider.getPendingChanges());
+
+         child.writeProperty("PropertyX", "change4");
+         provider.flush();
+         assertEquals(0, provider.getPendingChanges());
+         assertTrue(readFile(file).contains("change4"));
+
+         //a batch of one change is saved without waiting for the delay
+         provider.withWriteBehind(60000, 1);
+         child.writeProperty("PropertyX", "change5");
+         for (int i = 0; i < 100 && !readFile(file).contains("change5"); i++)
+            Thread.sleep(20);
+         assertTrue(readFile(file).contains("change5"));
+
+         //changes after closing are saved immediately
+         provider.close();
+         child.writeProperty("PropertyX", "change6");
+         assertTrue(readFile(file).contains("change6"));
+      }
+      finally
+      {
+         file.delete();
+      }
+   }
+
+   /***
+    * Test writes from several threads are all kept while write behind saves the tree
+    */
+   @Test
+   public void testConcurrentWrites() throws IOException, InterruptedException, ConfigurationException
+   {
+      File file = new File("test/concurrentwrites.xml");
+      writeFile(file, "<Config><ChildConfig><PropertyX>initial</PropertyX></ChildConfig></Config>");
+      try
+      {
+         final ConfigChild child = new ConfigChild();
+         ConfigProvider provider = new ConfigProvider().withWriteBehind(1, 1).withConfigBean(child).loadConfiguration(file.getPath(), false, true);
+         final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+         Thread[] writers = new Thread[4];
+         for (int i = 0; i < writers.length; i++)
+         {
+            final int writer = i;
+            writers[i] = new Thread(new Runnable()
+            {
+               @Override
+               public void run()
+               {
+                  try
+                  {
+                     for (int j = 0; j < 50; j++)
+                        child.writeProperty("Writer" + writer + ".Value" + j, "value" + j);
+                  }
+                  catch(Throwable e)
+                  {
+                     failures.add(e);
+                  }
+               }
+            });
+            writers[i].start();
+         }
+         for (Thread writer: writers)
+            writer.join();
+         assertTrue(failures.toString(), failures.isEmpty());
+         provider.save();
+         XMLConfiguration saved = new XMLConfiguration(file);
+         for (int i = 0; i < writers.length; i++)
+            for (int j = 0; j < 50; j++)
+               assertEquals("value" + j, saved.getString("ChildConfig.Writer" + i + ".Value" + j));
+      }
+      finally
+      {
+         file.delete();
+      }
+   }
+
+   /***
+    * Test saving replaces the file and keeps a bounded number of backups
+    */
+   @Test
+   public void testAtomicSave() throws IOException
+   {
+      File dir = new File("test/atomic");
+      File file = new File(dir, "config.xml");
+      writeFile(file, "<Config><ChildConfig><PropertyX>initial</PropertyX></ChildConfig></Config>");
+      try
+      {
+         ConfigChild child = new ConfigChild();
+         new ConfigProvider().withBackups(2).withConfigBean(child).loadConfiguration(file.getPath(), false, true);
+         child.writeProperty("PropertyX", "change1");
+         child.writeProperty("PropertyX", "change2");
+         child.writeProperty("PropertyX", "change3");
+         assertTrue(readFile(file).contains("change3"));
+         assertEquals(Arrays.asList("config.xml", "config_2.xml", "config_3.xml"), sortedNames(dir));
+         assertTrue(readFile(new File(dir, "config_3.xml")).contains("change2"));
+
+         ConfigChild reloaded = new ConfigChild();
+         new ConfigProvider().withConfigBean(reloaded).loadConfiguration(file.getPath());
+         assertEquals("change3", reloaded.getPropertyX());
+      }
+      finally
+      {
+         for (File child : dir.listFiles())
+            child.delete();
+         dir.delete();
+      }
+   }
+
+   /***
+    * Test the compiled cache loads the same configuration as parsing and is refreshed when the file changes
+    */
+   @Test
+   public void testCompiledCache() throws IOException, ConfigurationException
+   {
+      @ConfigBeanMapping("ListConfig")
+      class ConfigListC extends ConfigBean
+      {
+         @ConfigFieldMapping("[@listkey]")
+         private String listKey;
+      }
+      File dir = new File("test/cache");
+      File file = new File(dir, "config.xml");
+      File cacheDir = new File(dir, "compiled");
+      writeFile(file, CONFIG_LIST_ITEMS_XML);
+      try
+      {
+         ConfigCache cache = new ConfigCache(cacheDir);
+         XMLConfiguration parsed = cache.load(file.getPath());
+         File cacheFile = cache.getCacheFile(file.getPath());
+         assertTrue(cacheFile.isFile());
+         Object cacheFileKey = Files.readAttributes(cacheFile.toPath(), BasicFileAttributes.class).fileKey();
+         XMLConfiguration cached = cache.load(file.getPath());
+         assertEquals(cacheFileKey, Files.readAttributes(cacheFile.toPath(), BasicFileAttributes.class).fileKey());
+         assertEquals(ConfigTreeHash.hash(parsed.getRootNode()), ConfigTreeHash.hash(cached.getRootNode()));
+         assertEquals("Config", cached.getRootElementName());
+
+         ConfigListC list = new ConfigListC();
+         new ConfigProvider().withCompiledCache(cacheDir).withConfigBean(list).loadConfiguration(file.getPath());
+         assertEquals("app1", list.listKey);
+
+         //writable configurations are parsed even if cached to keep comments on save
+         writeFile(file, CONFIG_LIST_ITEMS_XML.replace("app1", "app2").replace("<Config>", "<Config><!-- items -->"));
+         new ConfigProvider().withCompiledCache(cacheDir).withConfigBean(list).loadConfiguration(file.getPath());
+         new ConfigProvider().withCompiledCache(cacheDir).withConfigBean(list).loadConfiguration(file.getPath(), false, true);
+         assertEquals("app2", list.listKey);
+         list.writeProperty("[@listkey]", "app3");
+         assertTrue(readFile(file).contains("<ListConfig listkey=\"app3\">"));
+         assertTrue(readFile(file).contains("<ListItemConfigProperty>test3</ListItemConfigProperty>"));
+         assertTrue(readFile(file).contains("<!-- items -->"));
+      }
+      finally
+      {
+         for (File child : cacheDir.listFiles())
+            child.delete();
+         cacheDir.delete();
+         file.delete();
+         dir.delete();
+      }
+   }
+
+   /***
+    * Test the flat parser builds the same configuration tree as the xml parser and beans bind on it
+    */
+   @Test
+   public void testFlatParser() throws IOException, ConfigurationException
+   {
+      String complexXml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\r\n"
+         + "<!DOCTYPE Config [ <!ENTITY env \"prod\"> <!ELEMENT Config ANY> ]>\r\n"
+         + "<!-- header -->\r\n"
+         + "<Config version=\"1, 2\" name=\" app \\, x \" empty=\"\" multi=\"l1&#10;l2\">\r\n"
+         + "  <A> a , b ,c </A>\r\n"
+         + "  <B>t<![CDATA[ <z>, ]]>&amp;&#65;&lt;x&env;</B>\r\n"
+         + "  <D>  </D><G/><H>a\\,b</H>\r\n"
+         + "  <M> x <X>1</X> y </M>\r\n"
+         + "  <N>multi\r\nline</N><U>\u00fcn\u00ef</U><?pi data?>\r\n"
+         + "  <ChildConfig><PropertyX>flat</PropertyX><PropertyY>true</PropertyY></ChildConfig>\r\n"
+         + "</Config>\r\n";
+      File file = new File("test/flat.xml");
+      try
+      {
+         for (String xml : Arrays.asList(CONFIG_PARENT_CHILD_XML, CONFIG_LIST_ITEMS_XML, CONFIG_LIST_XML, CONFIG_DATATYPE_XML, complexXml))
+         {
+            Files.write(file.toPath(), xml.getBytes("UTF-8"));
+            XMLConfiguration parsed = new XMLConfiguration();
+            parsed.load(file);
+            FlatConfigTree tree = FlatConfigTree.parse(file);
+            assertEquals(xml, ConfigTreeHash.hash(parsed.getRootNode()), ConfigTreeHash.hash(tree.getRootNode()));
+         }
+         FlatConfigTree repeated = FlatConfigTree.parse(ByteBuffer.wrap("<C><A>x</A><A>x</A><A k='x'>x</A></C>".getBytes("UTF-8")));
+         assertEquals(4, repeated.getNodeCount());
+         assertEquals(4, repeated.getStringCount());
+
+         ConfigChild child = new ConfigChild();
+         ConfigProvider provider = new ConfigProvider().withFlatParser().withConfigBean(child).loadConfiguration(file.getPath());
+         assertEquals("flat", child.getPropertyX());
+         assertTrue(child.isPropertyY());
+         assertTrue(provider.getSnapshot() == null);
+         // only the root and ChildConfig are looked up, the other sections of the flat tree are not indexed
+         ConfigPathIndex index = (ConfigPathIndex) child.getConfig().getExpressionEngine();
+         assertEquals(2, index.getIndexedNodeCount());
+
+         Files.write(file.toPath(), CONFIG_LIST_ITEMS_XML.getBytes("UTF-8"));
+         XMLConfiguration config = new XMLConfiguration();
+         config.setRootNode(FlatConfigTree.parse(file).getRootNode());
+         assertEquals("app1", config.getString("ListConfig[@listkey]"));
+         assertEquals(3, config.configurationsAt("ListConfig.ListItemConfig").size());
+         assertEquals("test2", config.getString("ListConfig.ListItemConfig(1).ListItemConfigProperty"));
+
+         try
+         {
+            FlatConfigTree.parse(ByteBuffer.wrap("<Config><A></B></Config>".getBytes("UTF-8")));
+            fail("Expected mismatched end tag to fail");
+         }
+         catch(ConfigException e)
+         {
+            assertTrue(e.getMessage().contains("does not match"));
+         }
+      }
+      finally
+      {
+         file.delete();
+      }
+   }
+
+   /***
+    * Test a configuration composed of several files with precedence, reloading only the changed file
+    */
+   @Test
+   public void testComposedFiles() throws IOException, InterruptedException
+   {
+      File dir = new File("test/composed");
+      File override = new File(dir, "override.xml");
+      File base = new File(dir, "base.xml");
+      writeFile(override, "<Config><ChildConfig><PropertyX>override</PropertyX></ChildConfig></Config>");
+      writeFile(base, "<Config><ChildConfig><PropertyX>base</PropertyX><PropertyY>true</PropertyY></ChildConfig>"
+         + "<Other><ChildConfig><PropertyX>other</PropertyX></ChildConfig></Other></Config>");
+      try
+      {
+         ConfigChild child = new ConfigChild();
+         ConfigChild other = new ConfigChild();
+         other.setPath("Other.ChildConfig");
+         ConfigProvider provider = new ConfigProvider().withReloadDebounce(50).withConfigBean(child).withConfigBean(other)
+            .loadConfiguration(Arrays.asList(override.getPath(), base.getPath()), true);
+         assertEquals("override", child.getPropertyX());
+         assertTrue(child.isPropertyY());
+         assertEquals("other", other.getPropertyX());
+         assertEquals(2, provider.getConfigFiles().size());
+         assertFalse(provider.isWritable());
+
+         writeFile(base, "<Config><ChildConfig><PropertyX>base</PropertyX><PropertyY>true</PropertyY></ChildConfig>"
+            + "<Other><ChildConfig><PropertyX>changed</PropertyX></ChildConfig></Other></Config>");
+         assertTrue(awaitValue(other, "changed"));
+         assertEquals("override", child.getPropertyX());
+
+         ConfigChild flat = new ConfigChild();
+         new ConfigProvider().withFlatParser().withConfigBean(flat).loadConfiguration(Arrays.asList(override.getPath(), base.getPath()), false);
+         assertEquals("override", flat.getPropertyX());
+         assertTrue(flat.isPropertyY());
+      }
+      finally
+      {
+         override.delete();
+         base.delete();
+         dir.delete();
+      }
+   }
+
+   /***
+    * Test loading from the provided sources and reloading a custom source when its version changes
+    */
+   @Test
+   public void testConfigSources() throws IOException, InterruptedException
+   {
+      String xml = "<Config><ChildConfig><PropertyX>source</PropertyX></ChildConfig></Config>";
+      assertTrue(ConfigSources.detect(" \r\n" + xml) instanceof ConfigSources.StringSource);
+      assertTrue(ConfigSources.detect(FILE_PARENTCHILD).getFile() != null);
+      assertTrue(ConfigSources.detect("config<1>.xml").getFile() != null);
+
+      File dir = new File("test/sources");
+      File file = new File(dir, "config.xml");
+      writeFile(file, xml);
+      try
+      {
+         ConfigChild child = new ConfigChild();
+         new ConfigProvider().withConfigBean(child).loadConfiguration(ConfigSources.classpath("config.xml", new URLClassLoader(new URL[] { dir.toURI().toURL() })));
+         assertEquals("source", child.getPropertyX());
+
+         final String[] content = { xml.replace("source", "custom") };
+         final int[] version = { 1 };
+         ConfigSource custom = new ConfigSource()
+         {
+            @Override
+            public InputStream openStream()
+            {
+               return new ByteArrayInputStream(content[0].getBytes());
+            }
+
+            @Override
+            public File getFile()
+            {
+               return null;
+            }
+
+            @Override
+            public Object getVersion()
+            {
+               return version[0];
+            }
+         };
+         ConfigProvider provider = new ConfigProvider().withConfigBean(child).loadConfiguration(custom);
+         assertEquals("custom", child.getPropertyX());
+         content[0] = xml.replace("source", "unversioned");
+         provider.reload();
+         assertEquals("custom", child.getPropertyX());
+         version[0]++;
+         provider.reload();
+         assertEquals("unversioned", child.getPropertyX());
+
+         //reloadable sources are polled for a new version
+         ConfigChild polled = new ConfigChild();
+         ConfigProvider polling = new ConfigProvider().withRefreshDelay(20, 40).withConfigBean(polled).loadConfiguration(custom, true, false);
+         content[0] = xml.replace("source", "polled");
+         version[0]++;
+         assertTrue(awaitValue(polled, "polled"));
+         polling.close();
+         content[0] = xml.replace("source", "closed");
+         version[0]++;
+         Thread.sleep(200);
+         assertEquals("polled", polled.getPropertyX());
+
+         new ConfigProvider().withConfigBean(child).loadConfiguration(ConfigSources.stream(new ByteArrayInputStream(xml.getBytes())));
+         assertEquals("source", child.getPropertyX());
+      }
+      finally
+      {
+         file.delete();
+         dir.delete();
+      }
+   }
+
+   /***
+    * Test loading entries of a zip archive and reparsing only the entries whose CRC changed
+    */
+   @Test
+   public void testZipConfiguration() throws IOException, ConfigurationException
+   {
+      File zip = new File("test/bundle.zip");
+      String base = "<Config><ChildConfig><PropertyX>base</PropertyX><PropertyY>true</PropertyY></ChildConfig>"
+         + "<Other><ChildConfig><PropertyX>other</PropertyX></ChildConfig></Other></Config>";
+      String override = "<Config><ChildConfig><PropertyX>override</PropertyX></ChildConfig></Config>";
+      writeZip(zip, "conf/override.xml", override, "conf/base.xml", base);
+      try
+      {
+         ZipConfigBundle bundle = new ZipConfigBundle(zip, Arrays.asList("conf/override.xml", "conf/base.xml"));
+         assertEquals(2, bundle.read(false));
+         assertEquals(0, bundle.read(false));
+         writeZip(zip, "conf/override.xml", override, "conf/base.xml", base.replace("other", "changed entry"));
+         assertEquals(1, bundle.read(false));
+
+         ConfigChild child = new ConfigChild();
+         ConfigChild other = new ConfigChild();
+         other.setPath("Other.ChildConfig");
+         ConfigProvider provider = new ConfigProvider().withConfigBean(child).withConfigBean(other)
+            .loadZipConfiguration(zip.getPath(), Arrays.asList("conf/override.xml", "conf/base.xml"), false);
+         assertEquals("override", child.getPropertyX());
+         assertTrue(child.isPropertyY());
+         assertEquals("changed entry", other.getPropertyX());
+
+         writeZip(zip, "conf/override.xml", override, "conf/base.xml", base);
+         provider.reload();
+         assertEquals("other", other.getPropertyX());
+         assertEquals("override", child.getPropertyX());
+      }
+      finally
+      {
+         zip.delete();
+      }
+   }
+
+   /***
+    * Test watchers back off while a file does not change and stop reloading once the provider is closed
+    */
+   @Test
+   public void testReloadScheduler() throws IOException, InterruptedException
+   {
+      File file = new File("test/scheduled.xml");
+      String xml = "<Config><ChildConfig><PropertyX>initial</PropertyX></ChildConfig></Config>";
+      writeFile(file, xml);
+      try
+      {
+         final int[] changes = { 0 };
+         ConfigFileWatcher watcher = new ConfigFileWatcher(ConfigReloadScheduler.getShared(), file.getPath(), 10, 20, 80, new Runnable()
+         {
+            @Override
+            public void run()
+            {
+               changes[0]++;
+            }
+         });
+         watcher.start();
+         for (int i = 0; i < 50 && watcher.getPollMillis() < 80; i++)
+            Thread.sleep(20);
+         assertEquals(80, watcher.getPollMillis());
+         watcher.shutdown();
+         assertFalse(watcher.isActive());
+         long jittered = ConfigReloadScheduler.jitter(1000);
+         assertTrue(jittered >= 900 && jittered <= 1100);
+
+         ConfigChild child = new ConfigChild();
+         ConfigProvider provider = new ConfigProvider().withReloadDebounce(20).withRefreshDelay(20, 40).withConfigBean(child).loadConfiguration(file.getPath(), true, false);
+         writeFile(file, xml.replace("initial", "reloaded"));
+         assertTrue(awaitValue(child, "reloaded"));
+         provider.close();
+         writeFile(file, xml.replace("initial", "closed"));
+         Thread.sleep(200);
+         assertEquals("reloaded", child.getPropertyX());
+         assertEquals(0, changes[0]);
+      }
+      finally
+      {
+         file.delete();
+      }
+   }
+
+   /***
+    * Test the directory of a swapped symlink target is no longer watched once the target is replaced and deleted
+    */
+   @Test
+   public void testSwappedSymlinkTarget() throws IOException, InterruptedException
+   {
+      File dir = new File("test/swapped");
+      File first = new File(dir, "data1/config.xml");
+      File second = new File(dir, "data2/config.xml");
+      Path link = new File(dir, "config.xml").toPath();
+      writeFile(first, "<Config><ChildConfig><PropertyX>first</PropertyX></ChildConfig></Config>");
+      writeFile(second, "<Config><ChildConfig><PropertyX>second</PropertyX></ChildConfig></Config>");
+      Files.deleteIfExists(link);
+      Files.createSymbolicLink(link, Paths.get("data1", "config.xml"));
+      ConfigReloadScheduler scheduler = new ConfigReloadScheduler();
+      final AtomicInteger changes = new AtomicInteger();
+      ConfigFileWatcher watcher = new ConfigFileWatcher(scheduler, link.toString(), 10, 20, 40, new Runnable()
+      {
+         @Override
+         public void run()
+         {
+            changes.incrementAndGet();
+         }
+      });
+      try
+      {
+         watcher.start();
+         assertEquals(2, scheduler.getWatchedDirectoryCount());
+         Files.delete(link);
+         Files.createSymbolicLink(link, Paths.get("data2", "config.xml"));
+         first.delete();
+         first.getParentFile().delete();
+         for (int i = 0; i < 100 && changes.get() == 0; i++)
+            Thread.sleep(20);
+         assertEquals(1, changes.get());
+         assertEquals(2, scheduler.getWatchedDirectoryCount());
+         watcher.shutdown();
+         assertEquals(0, scheduler.getWatchedDirectoryCount());
+      }
+      finally
+      {
+         watcher.shutdown();
+         Files.deleteIfExists(link);
+         second.delete();
+         second.getParentFile().delete();
+         first.delete();
+         first.getParentFile().delete();
+         dir.delete();
+      }
+   }
+
+   /***
+    * Test load statistics are recorded and exposed over JMX with the reload operation
+    */
+   @Test
+   public void testManagement() throws IOException, JMException
+   {
+      File file = new File("test/managed.xml");
+      String xml = "<Config><ChildConfig><PropertyX>initial</PropertyX></ChildConfig></Config>";
+      writeFile(file, xml);
+      try
+      {
+         ConfigChild child = new ConfigChild();
+         ConfigProvider provider = new ConfigProvider().withManagement("test").withConfigBean(child).loadConfiguration(file.getPath());
+         ConfigProviderMXBean stats = provider.getStats();
+         assertEquals(1, stats.getLoadCount());
+         assertNotNull(stats.getLastSuccessTime());
+         assertTrue(stats.getBeanBindMicros().containsKey("ChildConfig"));
+
+         MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+         ObjectName name = new ObjectName("com.oselan.common.config:type=ConfigProvider,name=\"test\"");
+         assertEquals(1L, server.getAttribute(name, "LoadCount"));
+         writeFile(file, xml.replace("initial", "managed"));
+         server.invoke(name, "reload", null, null);
+         assertEquals("managed", child.getPropertyX());
+         assertEquals(1, stats.getReloadCount());
+         assertEquals(2L, server.getAttribute(name, "Generation"));
+
+         writeFile(file, "<Config><ChildConfig>");
+         try
+         {
+            provider.reload();
+            fail("Expected reloading invalid xml to fail");
+         }
+         catch(ConfigException e)
+         {
+            assertEquals(1, stats.getFailureCount());
+            assertNotNull(stats.getLastFailure());
+         }
+         provider.close();
+         assertFalse(server.isRegistered(name));
+      }
+      finally
+      {
+         file.delete();
+      }
+   }
+
+   /***
+    * Test key queries answered by the path index select the same nodes as the default expression engine
+    * and reads with compiled keys return the values of the configuration, 
+    * the index is dropped once the tree is modified
+    */
+   @Test
+   public void testPathIndex() throws IOException, ConfigurationException
+   {
+      String xml = "<Config><A k=\"1\"><B>b1</B><B>b2</B><C.D>cd</C.D></A><A k=\"2\"><B>b3</B><E/></A>"
+         + "<ChildConfig><PropertyX>indexed</PropertyX><Ref>${A(1).B}</Ref></ChildConfig></Config>";
+      XMLConfiguration config = new XMLConfiguration();
+      config.load(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+      XMLConfiguration indexed = new XMLConfiguration();
+      indexed.load(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+      ConfigPathIndex index = ConfigPathIndex.install(indexed);
+      assertNotNull(index);
+      assertTrue(ConfigPathIndex.install(indexed) == index);
+      for (String key : Arrays.asList("", "A", "A.B", "A(1).B", "A.B(1)", "A(0).B(2)", "A[@k]", "A(1)[@k]", "A[@k](1)", "A(5).B", "A.C..D", "A.E", "X.Y"))
+      {
+         assertEquals(key, config.getList(key), indexed.getList(key));
+         assertEquals(key, config.configurationsAt(key).size(), indexed.configurationsAt(key).size());
+         assertEquals(key, !config.configurationsAt(key).isEmpty(), ConfigPathIndex.exists(indexed, key));
+         ConfigPathIndex.Key compiled = ConfigPathIndex.compile(key);
+         assertEquals(key, config.getString(key, "default"), ConfigPathIndex.getString(indexed, compiled, "default", false));
+         assertEquals(key, config.getString(key), ConfigPathIndex.getString(indexed, compiled, null, true));
+         assertEquals(key, config.getList(key), ConfigPathIndex.getList(indexed, compiled, null, true));
+      }
+      assertEquals("b3", indexed.configurationAt("A(1)").getString("B"));
+      HierarchicalConfiguration childConfig = indexed.configurationAt("ChildConfig");
+      assertTrue(childConfig.getExpressionEngine() == index);
+      assertEquals("b3", ConfigPathIndex.getString(childConfig, ConfigPathIndex.compile("Ref"), null, false));
+
+      ConfigChild child = new ConfigChild();
+      ConfigProvider provider = new ConfigProvider().withConfigBean(child).loadConfiguration(xml);
+      assertEquals("indexed", child.getPropertyX());
+      index = (ConfigPathIndex) child.getConfig().getExpressionEngine();
+      assertTrue(index.isValid());
+      child.writeProperty("PropertyY", "true");
+      assertFalse(index.isValid());
+      assertEquals("true", child.getConfig().getString("PropertyY"));
+      provider.readConfigurations();
+      assertTrue(child.isPropertyY());
+      assertTrue(((ConfigPathIndex) child.getConfig().getExpressionEngine()).isValid());
+   }
+
+   /***
+    * Test fields converted by registered and field converters, and the shared converters of ReflectionUtil and DateUtil
+    */
+   @Test
+   public void testValueConverters() throws Exception
+   {
+      @ConfigBeanMapping("Converted")
+      class ConfigConverted extends ConfigBean
+      {
+         @ConfigFieldMapping("Timeout")
+         private Duration timeout;
+         @ConfigFieldMapping(value="Interval", defaultValue="PT1M")
+         private Duration interval;
+         @ConfigFieldMapping("Endpoint")
+         private URI endpoint;
+         @ConfigFieldMapping("Listen")
+         private InetSocketAddress listen;
+         @ConfigFieldMapping(value="MaxUpload", converter=ByteSizeConverter.class)
+         private long maxUpload;
+         @ConfigFieldMapping("Filter")
+         private Pattern filter;
+         @ConfigFieldMapping("Day")
+         private Date day;
+      }
+      ValueConverters.register(Pattern.class, new ValueConverter<Pattern>()
+      {
+         @Override
+         public Pattern convert(String value)
+         {
+            return Pattern.compile(value);
+         }
+      });
+      ConfigConverted converted = new ConfigConverted();
+      new ConfigProvider().withConfigBean(converted).loadConfiguration("<Config><Converted><Timeout>250ms</Timeout>"
+         + "<Endpoint>https://example.com/api</Endpoint><Listen>localhost:8080</Listen><MaxUpload>1.5MB</MaxUpload>"
+         + "<Filter>a+b</Filter><Day>3/7/2018</Day></Converted></Config>");
+      assertEquals(Duration.ofMillis(250), converted.timeout);
+      assertEquals(Duration.ofMinutes(1), converted.interval);
+      assertEquals(URI.create("https://example.com/api"), converted.endpoint);
+      assertEquals("localhost", converted.listen.getHostString());
+      assertEquals(8080, converted.listen.getPort());
+      assertEquals(1572864L, converted.maxUpload);
+      assertTrue(converted.filter.matcher("aab").matches());
+      assertEquals("03/07/2018", DateUtil.formatDate(converted.day, DateUtil.SIMPLE_DATE_FORMAT));
+
+      assertEquals(Long.valueOf(42), ReflectionUtil.getObjectValue(long.class, "42"));
+      assertEquals(Duration.ofSeconds(2), ReflectionUtil.getObjectValue(Duration.class, "PT2S"));
+      assertNull(ReflectionUtil.getObjectValue(Object.class, "value"));
+      assertEquals(2L << 30, new ByteSizeConverter().convert("2GiB").longValue());
+      assertEquals(9000, ValueConverters.parseSocketAddress(":9000").getPort());
+      try
+      {
+         DateUtil.parseDate("02/30/2017", DateUtil.SIMPLE_DATE_FORMAT);
+         fail("Expected an invalid date to fail");
+      }
+      catch(ParseException e)
+      {
+         assertNotNull(e.getMessage());
+      }
+   }
+
+   /***
+    * Test memoized parser methods are only called when the value changed, with the generated binder and reflection binding
+    */
+   @Test
+   public void testMemoizedParser()
+   {
+      @ConfigBeanMapping("Parsed")
+      class ConfigParsed extends ConfigBean
+      {
+         private int parseCount;
+         @ConfigFieldMapping(value="Pattern", parserMethod="parsePattern", memoizeParser=true)
+         private Pattern pattern;
+
+         @SuppressWarnings("unused")
+         public void parsePattern(String value)
+         {
+            parseCount++;
+            pattern = Pattern.compile(value);
+         }
+      }
+      assertEquals(ConfigBinder.getBinderClassName(MemoizedParserConfig.class), ConfigBinder.forClass(MemoizedParserConfig.class).getClass().getName());
+      ConfigParsed parsed = new ConfigParsed();
+      MemoizedParserConfig generated = new MemoizedParserConfig();
+      ConfigProvider provider = new ConfigProvider().withConfigBean(parsed).withConfigBean(generated)
+         .loadConfiguration("<Config><Parsed><Pattern>a+</Pattern></Parsed></Config>");
+      assertTrue(parsed.pattern.matcher("aa").matches());
+      assertEquals(1, parsed.parseCount);
+      assertEquals(1, generated.parseCount);
+      provider.readConfigurations();
+      assertEquals(1, parsed.parseCount);
+      assertEquals(1, generated.parseCount);
+      provider.loadConfiguration("<Config><Parsed><Pattern>b+</Pattern></Parsed></Config>");
+      assertTrue(parsed.pattern.matcher("bb").matches());
+      assertEquals(2, parsed.parseCount);
+      assertEquals(2, generated.parseCount);
+   }
+
+   @ConfigBeanMapping("Parsed")
+   public class MemoizedParserConfig extends ConfigBean
+   {
+      int parseCount;
+      @ConfigFieldMapping(value="Pattern", parserMethod="parsePattern", memoizeParser=true)
+      String pattern;
+
+      public void parsePattern(String value)
+      {
+         parseCount++;
+         pattern = value;
+      }
+   }
+
+   /***
+    * Test reloading a list keeps unchanged children, rebinds changed ones in place and reports the changes
+    */
+   @Test
+   public void testBeanListMerge()
+   {
+      @ConfigBeanMapping("Item")
+      class ConfigMergeItem extends ConfigBean
+      {
+         @ConfigFieldMapping("[@id]")
+         private String id;
+         @ConfigFieldMapping("Value")
+         private String value;
+      }
+      @ConfigBeanMapping("Items")
+      class ConfigMergeList extends ConfigBeanList<ConfigMergeItem>
+      {
+         @Override
+         protected Class<ConfigMergeItem> getElementClass()
+         {
+            return ConfigMergeItem.class;
+         }
+
+         @Override
+         protected String getKeyPath()
+         {
+            return "[@id]";
+         }
+      }
+      ConfigMergeList list = new ConfigMergeList();
+      ConfigProvider provider = new ConfigProvider().withConfigBean(list).loadConfiguration(
+         "<Config><Items><Item id=\"a\"><Value>1</Value></Item><Item id=\"b\"><Value>2</Value></Item><Item id=\"c\"><Value>3</Value></Item></Items></Config>");
+      assertEquals(3, list.size());
+      assertEquals(3, list.getAddedChildren().size());
+      ConfigMergeItem a = list.get(0), b = list.get(1), c = list.get(2);
+
+      provider.loadConfiguration(
+         "<Config><Items><Item id=\"d\"><Value>4</Value></Item><Item id=\"b\"><Value>20</Value></Item><Item id=\"a\"><Value>1</Value></Item></Items></Config>");
+      assertEquals(3, list.size());
+      assertEquals("d", list.get(0).id);
+      assertTrue(list.get(1) == b);
+      assertEquals("20", b.value);
+      assertTrue(list.get(2) == a);
+      assertEquals("1", a.value);
+      assertEquals("a", a.getConfig().getString("[@id]"));
+      assertEquals(Arrays.asList(list.get(0)), list.getAddedChildren());
+      assertEquals(Arrays.asList(b), list.getChangedChildren());
+      assertEquals(Arrays.asList(c), list.getRemovedChildren());
+
+      provider.readConfigurations();
+      assertTrue(list.getAddedChildren().isEmpty());
+      assertTrue(list.getChangedChildren().isEmpty());
+      assertTrue(list.getRemovedChildren().isEmpty());
+      assertTrue(list.get(1) == b);
+   }
+
+   /***
+    * Test the unique, multi and range indexes of a list and the keyed lookup of a map
+    */
+   @Test
+   public void testBeanListIndexes()
+   {
+      @ConfigBeanMapping("Route")
+      class ConfigRoute extends ConfigBean
+      {
+         @ConfigFieldMapping("[@name]")
+         private String name;
+      }
+      @ConfigBeanMapping("Routes")
+      class ConfigRoutes extends ConfigBeanList<ConfigRoute>
+      {
+         private final ConfigBeanIndex<String, ConfigRoute> byName = addIndex(ConfigBeanIndex.<String, ConfigRoute>unique("[@name]", String.class));
+         private final ConfigBeanIndex<String, ConfigRoute> byTenant = addIndex(ConfigBeanIndex.<String, ConfigRoute>multi("[@tenant]", String.class));
+         private final ConfigBeanIndex<Integer, ConfigRoute> byPort = addIndex(ConfigBeanIndex.<Integer, ConfigRoute>range("Port", Integer.class));
+
+         @Override
+         protected Class<ConfigRoute> getElementClass()
+         {
+            return ConfigRoute.class;
+         }
+      }
+      @ConfigBeanMapping("Routes")
+      class ConfigRouteMap extends ConfigBeanMap<String, ConfigRoute>
+      {
+         @Override
+         protected Class<ConfigRoute> getElementClass()
+         {
+            return ConfigRoute.class;
+         }
+
+         @Override
+         protected String getKeyPath()
+         {
+            return "[@name]";
+         }
+
+         @Override
+         protected Class<String> getKeyType()
+         {
+            return String.class;
+         }
+      }
+      String xml = "<Config><Routes><Route name=\"r1\" tenant=\"t1\"><Port>8080</Port></Route><Route name=\"r2\" tenant=\"t2\"><Port>443</Port></Route>"
+         + "<Route name=\"r3\" tenant=\"t1\"><Port>9000</Port></Route><Route name=\"r4\"/></Routes></Config>";
+      ConfigRoutes routes = new ConfigRoutes();
+      ConfigRouteMap routeMap = new ConfigRouteMap();
+      ConfigProvider provider = new ConfigProvider().withConfigBean(routes).withConfigBean(routeMap).loadConfiguration(xml);
+      assertEquals("r2", routes.byName.get("r2").name);
+      assertNull(routes.byName.get("r5"));
+      assertEquals(2, routes.byTenant.getAll("t1").size());
+      assertEquals("r3", routes.byTenant.getAll("t1").get(1).name);
+      assertTrue(routes.byTenant.getAll("t3").isEmpty());
+      assertEquals(Arrays.asList(443, 8080, 9000), new ArrayList<Integer>(routes.byPort.keySet()));
+      assertEquals(2, routes.byPort.getRange(1000, true, 9000, true).size());
+      assertEquals("r1", routes.byPort.asNavigableMap().floorEntry(8999).getValue().get(0).name);
+      assertEquals("r4", routeMap.getByKey("r4").name);
+      assertTrue(routeMap.containsKey("r1"));
+      assertEquals(4, routeMap.keySet().size());
+      try
+      {
+         routes.byName.asNavigableMap();
+         fail("Not a range index");
+      }
+      catch(UnsupportedOperationException e)
+      {
+      }
+
+      provider.loadConfiguration("<Config><Routes><Route name=\"r2\" tenant=\"t2\"><Port>444</Port></Route></Routes></Config>");
+      assertNull(routes.byName.get("r1"));
+      assertEquals(444, routes.byPort.asNavigableMap().firstKey().intValue());
+      assertNull(routeMap.getByKey("r1"));
+      assertTrue(routeMap.getByKey("r2") == routeMap.get(0));
+
+      ConfigRoutes duplicates = new ConfigRoutes();
+      try
+      {
+         new ConfigProvider().withConfigBean(duplicates).loadConfiguration("<Config><Routes><Route name=\"r1\"/><Route name=\"r1\"/></Routes></Config>");
+         fail("Duplicate unique key");
+      }
+      catch(ConfigException e)
+      {
+      }
+   }
+
+   /***
+    * Test streaming the children of a list section matches loading the list, sequentially and in parallel batches
+    */
+   @Test
+   public void testStreamReader() throws ConfigurationException
+   {
+      @ConfigBeanMapping("Item")
+      class ConfigStreamItem extends ConfigBean
+      {
+         @ConfigFieldMapping("[@id]")
+         private int id;
+         @ConfigFieldMapping("Value")
+         private String value;
+      }
+      @ConfigBeanMapping("Items")
+      class ConfigStreamList extends ConfigBeanList<ConfigStreamItem>
+      {
+         @Override
+         protected Class<ConfigStreamItem> getElementClass()
+         {
+            return ConfigStreamItem.class;
+         }
+      }
+      StringBuilder xml = new StringBuilder("<Config><Other><Item id=\"-1\"/></Other><Items>");
+      for (int i = 0; i < 1000; i++)
+         xml.append("<Item id=\"").append(i).append("\" tags=\"a, b\"><Value>v").append(i).append("</Value><Empty/><Nested><X>1</X></Nested><Hosts>h1,h2</Hosts></Item>");
+      xml.append("</Items></Config>");
+      ConfigStreamList list = new ConfigStreamList();
+      new ConfigProvider().withConfigBean(list).loadConfiguration(xml.toString());
+
+      final List<ConfigStreamItem> visited = new ArrayList<ConfigStreamItem>();
+      ConfigStreamReader reader = new ConfigStreamReader(xml.toString()).withBatchSize(64);
+      assertEquals(1000, reader.forEach(list, new ConfigVisitor<ConfigStreamItem>()
+      {
+         @Override
+         public boolean visit(ConfigStreamItem child)
+         {
+            return visited.add(child);
+         }
+      }));
+      for (int i = 0; i < list.size(); i++)
+      {
+         assertEquals(i, visited.get(i).id);
+         assertEquals("v" + i, visited.get(i).value);
+         assertEquals(ConfigTreeHash.hash(list.get(i).getConfig().getRootNode()), ConfigTreeHash.hash(visited.get(i).getConfig().getRootNode()));
+      }
+
+      assertEquals(10, reader.forEachConfiguration("Items.Item", new ConfigVisitor<HierarchicalConfiguration>()
+      {
+         @Override
+         public boolean visit(HierarchicalConfiguration child)
+         {
+            return child.getInt("[@id]") < 9;
+         }
+      }));
+
+      Stream<ConfigStreamItem> items = reader.stream("Items", ConfigStreamItem.class, true);
+      try
+      {
+         long sum = 0;
+         for (Iterator<ConfigStreamItem> iterator = items.filter(new Predicate<ConfigStreamItem>()
+         {
+            @Override
+            public boolean test(ConfigStreamItem item)
+            {
+               return item.id % 2 == 0;
+            }
+         }).collect(Collectors.<ConfigStreamItem>toList()).iterator(); iterator.hasNext();)
+            sum += iterator.next().id;
+         assertEquals(249500, sum);
+      }
+      finally
+      {
+         items.close();
+      }
+
+      //empty elements are kept with an empty value like the xml parser keeps them
+      String routes = "<Config><Routes><Route id='a'/><Route/><Route id='c'><Empty/><Blank> </Blank><Attributed k='1'/></Route></Routes></Config>";
+      XMLConfiguration parsed = new XMLConfiguration();
+      parsed.load(new ByteArrayInputStream(routes.getBytes()));
+      List<HierarchicalConfiguration> streamed = new ConfigStreamReader(routes).configurations("Routes.Route", false).collect(Collectors.<HierarchicalConfiguration>toList());
+      assertEquals(3, streamed.size());
+      for (int i = 0; i < streamed.size(); i++)
+         assertEquals(ConfigTreeHash.hash(parsed.configurationAt("Routes.Route(" + i + ")").getRootNode()), ConfigTreeHash.hash(streamed.get(i).getRootNode()));
+      assertEquals("", streamed.get(1).getString(""));
+      assertEquals("", streamed.get(2).getString("Empty"));
+   }
+
+   /***
+    * Test the children of a paged list are hydrated from the store through the cache, by index and key
+    */
+   @Test
+   public void testPagedBeanList()
+   {
+      @ConfigBeanMapping("Override")
+      class ConfigOverride extends ConfigBean
+      {
+         @ConfigFieldMapping("[@customer]")
+         private String customer;
+         @ConfigFieldMapping("Limit")
+         private int limit;
+      }
+      @ConfigBeanMapping("Overrides")
+      class ConfigOverrides extends ConfigBeanPagedList<ConfigOverride>
+      {
+         @ConfigFieldMapping("[@region]")
+         private String region;
+
+         @Override
+         protected Class<ConfigOverride> getElementClass()
+         {
+            return ConfigOverride.class;
+         }
+
+         @Override
+         protected String getKeyPath()
+         {
+            return "[@customer]";
+         }
+
+         @Override
+         protected int getCacheSize()
+         {
+            return 2;
+         }
+      }
+      StringBuilder xml = new StringBuilder("<Config><Overrides region=\"eu\">");
+      for (int i = 0; i < 100; i++)
+         xml.append("<Override customer=\"c").append(i).append("\"><Limit>").append(i * 10).append("</Limit></Override>");
+      xml.append("</Overrides></Config>");
+      ConfigOverrides overrides = new ConfigOverrides();
+      ConfigProvider provider = new ConfigProvider().withConfigBean(overrides).loadConfiguration(xml.toString());
+      try
+      {
+         assertEquals("eu", overrides.region);
+         assertEquals(100, overrides.size());
+         assertTrue(overrides.getStoreSize() > 0);
+         assertEquals(250, overrides.get(25).limit);
+         assertTrue(overrides.get(25) == overrides.getByKey("c25"));
+         assertEquals(1, overrides.getCacheMisses());
+         assertEquals(2, overrides.getCacheHits());
+         overrides.get(1);
+         overrides.get(2);
+         assertEquals(3, overrides.getCacheMisses());
+         assertEquals(990, overrides.getByKey("c99").limit);
+         assertEquals(4, overrides.getCacheMisses());
+         assertNull(overrides.getByKey("c100"));
+         int total = 0;
+         for (ConfigOverride override : overrides)
+            total += override.limit;
+         assertEquals(49500, total);
+         try
+         {
+            overrides.add(new ConfigOverride());
+            fail("Paged lists are read only");
+         }
+         catch (UnsupportedOperationException e)
+         {
+         }
+
+         //an interrupted reader closes the store channel, the next reads reopen it
+         Thread.currentThread().interrupt();
+         try
+         {
+            overrides.get(50);
+            fail("Expected the interrupted read to fail");
+         }
+         catch (ConfigException e)
+         {
+            assertTrue(Thread.interrupted());
+         }
+         assertEquals(500, overrides.get(50).limit);
+         assertEquals("c60", overrides.get(60).customer);
+
+         provider.loadConfiguration("<Config><Overrides region=\"us\"><Override customer=\"c1\"><Limit>5</Limit></Override></Overrides></Config>");
+         assertEquals(1, overrides.size());
+         assertEquals(5, overrides.getByKey("c1").limit);
+
+         ConfigOverrides streamed = new ConfigOverrides();
+         streamed.load(new ConfigStreamReader(xml.toString()));
+         assertEquals(100, streamed.size());
+         assertEquals("c42", streamed.get(42).customer);
+         assertNull(streamed.region);
+         streamed.close();
+         assertTrue(streamed.isEmpty());
+
+         //an empty child does not end the stream
+         streamed.load(new ConfigStreamReader("<Config><Overrides><Override customer=\"a\"><Limit>1</Limit></Override><Override/>"
+            + "<Override customer=\"c\"><Limit>3</Limit></Override></Overrides></Config>"));
+         assertEquals(3, streamed.size());
+         assertEquals("a", streamed.get(0).customer);
+         assertEquals(3, streamed.getByKey("c").limit);
+         streamed.close();
+
+         //the stores of replaced snapshot beans are deleted, the published ones when the provider is closed
+         ConfigOverrides registered = new ConfigOverrides();
+         ConfigProvider snapshots = new ConfigProvider().withSnapshots().withConfigBean(registered).loadConfiguration(xml.toString());
+         assertEquals(100, registered.size());
+         snapshots.loadConfiguration("<Config><Overrides region=\"us\"><Override customer=\"c1\"><Limit>5</Limit></Override></Overrides></Config>");
+         ConfigOverrides published = snapshots.getSnapshot().get(registered);
+         assertTrue(published != registered);
+         assertTrue(registered.isEmpty());
+         assertEquals(0, registered.getStoreSize());
+         assertEquals(5, published.getByKey("c1").limit);
+         snapshots.close();
+         assertTrue(published.isEmpty());
+      }
+      finally
+      {
+         overrides.close();
+      }
+   }
+
+   /***
+    * Test instances are created by the cached constructors of top level, static nested and inner classes,
+    * inner list elements are created in their list
+    */
+   @Test
+   public void testCreateInstance() throws Exception
+   {
+      assertNotNull(ReflectionUtil.createInstance(StaticNestedConfig.class));
+      assertTrue(ReflectionUtil.createInstance(StaticNestedConfig.class) != ReflectionUtil.createInstance(StaticNestedConfig.class));
+      InnerItemList enclosing = new InnerItemList();
+      assertTrue(ReflectionUtil.createInstance(enclosing, InnerItemList.Item.class).getList() == enclosing);
+      assertNotNull(ReflectionUtil.createInstance(InnerItemList.Item.class).getList());
+      assertTrue(ReflectionUtil.createInstance("not enclosing", InnerItemList.Item.class).getList() != enclosing);
+      Throwable first = null;
+      for (int i = 0; i < 2; i++)
+      {
+         try
+         {
+            ReflectionUtil.createInstance(ConfigBean.class);
+            fail("Abstract classes can not be instantiated");
+         }
+         catch (Exception e)
+         {
+            //a new exception on every call caused by the cached failure
+            assertTrue(e.getCause() instanceof InstantiationException);
+            assertTrue(e.getCause() != first);
+            assertNotNull(e.getCause().getCause());
+            if (first != null)
+               assertTrue(e.getCause().getCause() == first.getCause());
+            first = e.getCause();
+         }
+      }
+
+      InnerItemList list = new InnerItemList();
+      new ConfigProvider().withConfigBean(list).loadConfiguration("<Config><InnerItems><Item id=\"1\"/><Item id=\"2\"/></InnerItems></Config>");
+      assertEquals(2, list.size());
+      assertEquals("2", list.get(1).id);
+      assertTrue(list.get(0).getList() == list);
+   }
+
+   public static class StaticNestedConfig
+   {
+   }
+
+   @ConfigBeanMapping("InnerItems")
+   public class InnerItemList extends ConfigBeanList<InnerItemList.Item>
+   {
+      @Override
+      protected Class<Item> getElementClass()
+      {
+         return Item.class;
+      }
+
+      @ConfigBeanMapping("Item")
+      public class Item extends ConfigBean
+      {
+         @ConfigFieldMapping("[@id]")
+         private String id;
+
+         public InnerItemList getList()
+         {
+            return InnerItemList.this;
+         }
+      }
+   }
+
+   /***
+    * Test writing to a bean whose section did not change on reload is saved from the reloaded configuration
+    */
+   @Test
+   public void testWriteAfterReload() throws IOException
+   {
+      @ConfigBeanMapping("ParentConfig")
+      class ConfigParentW extends ConfigBean
+      {
+         @ConfigFieldMapping("ChildConfig")
+         private ConfigChild child;
+      }
+      @ConfigBeanMapping("Other")
+      class ConfigOtherW extends ConfigBean
+      {
+         @ConfigFieldMapping("Value")
+         private String value;
+      }
+      File file = new File("test/writereload.xml");
+      writeFile(file, "<Config><ParentConfig><ChildConfig><PropertyX>initial</PropertyX></ChildConfig></ParentConfig><Other><Value>1</Value></Other></Config>");
+      try
+      {
+         ConfigParentW parent = new ConfigParentW();
+         ConfigOtherW other = new ConfigOtherW();
+         ConfigProvider provider = new ConfigProvider().withConfigBean(parent).withConfigBean(other).loadConfiguration(file.getPath(), false, true);
+         writeFile(file, "<Config><ParentConfig><ChildConfig><PropertyX>initial</PropertyX></ChildConfig></ParentConfig><Other><Value>2</Value></Other></Config>");
+         provider.reload();
+         assertEquals("2", other.value);
+         parent.writeProperty("PropertyA", "parentWrite");
+         assertTrue(readFile(file).contains("parentWrite"));
+         parent.child.writeProperty("PropertyX", "childWrite");
+         assertTrue(readFile(file).contains("childWrite"));
+         assertTrue(readFile(file).contains("<Value>2</Value>"));
+      }
+      finally
+      {
+         file.delete();
+      }
+   }
+
+   private static void writeZip(File zip, String... namesAndContents) throws IOException
+   {
+      zip.getParentFile().mkdirs();
+      ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip));
+      for (int i = 0; i < namesAndContents.length; i += 2)
+      {
+         out.putNextEntry(new ZipEntry(namesAndContents[i]));
+         out.write(namesAndContents[i + 1].getBytes("UTF-8"));
+         out.closeEntry();
+      }
+      out.close();
+   }
+
+   private static List<String> sortedNames(File dir)
+   {
+      List<String> names = new ArrayList<String>(Arrays.asList(dir.list()));
+      Collections.sort(names);
+      return names;
+   }
+
+   private static String readFile(File file) throws IOException
+   {
+      return new String(Files.readAllBytes(file.toPath()), "UTF-8");
+   }
+
+   private static boolean awaitValue(ConfigChild child, String value) throws InterruptedException
+   {
+      for (int i = 0; i < 100 && !value.equals(child.propertyX); i++)
+         Thread.sleep(50);
+      return value.equals(child.propertyX);
+   }
+
+   private static void writeFile(File file, String content) throws IOException
+   {
+      file.getParentFile().mkdirs();
+      FileWriter fwriter = new FileWriter(file);
+      fwriter.write(content);
+      fwriter.close(); 
+   }
+
+
+   /**
+     * Test Manual configuration read
+     */
+  public class ConfigParent  extends ConfigBean 
+  {
+     //paths and property keys 
+     private static final String CONFIG_PATH = "ParentConfig"; 
+     private static final String PROPERTY_A = "PropertyA"; 
+     private static final String LAST_RUN = "lastRun";
+     //fields
+     private boolean propertyA; 
+     private Date lastRunDate;
+     
+   //read configuration manually .
+     @Override
+     public void readConfiguration()
+     { 
+        super.readConfiguration();
+        propertyA =  getConfig().getBoolean(PROPERTY_A); 
+        //parse filelast run date.
+        lastRunDate = readFileLastRunDate(); 
+     } 
+     //get the path of this config.
+     @Override
+     public String getPath()
+     {
+        return CONFIG_PATH;
+     }
+       
+     //properties
+     public boolean isPropertyA()
+     {
+        return propertyA;
+     } 
+     public Date getLastRunDate()
+     {
+        return lastRunDate;
+     } 
+     
+     protected static final String SYSTEM_DATE_TIME_FORMAT = "yyyyMMddHHmmss"; 
+     /***
+      * Test writing data back to config
+      * @param date
+      */
+     public void setLastRunDate(Date date)
+     { 
+           lastRunDate = date;
+           writeProperty(LAST_RUN, DateUtil.formatDate(date, SYSTEM_DATE_TIME_FORMAT));
+
+     } 
+     public Date readFileLastRunDate()
+     {
+        Date lastRunDate = null; 
+        String lastRun =  getConfig().getString(LAST_RUN, "");
+        if(!lastRun.isEmpty()) try
+        {
+           lastRunDate = DateUtil.parseDate(lastRun, SYSTEM_DATE_TIME_FORMAT);
+        }
+        catch(ParseException e)
+        { 
+        }  
+        return lastRunDate;
+        
+     }
+      
+  }
+  
+  
+  @ConfigBeanMapping("ChildConfig")
+   public class ConfigChild extends ConfigBean
+     {  //fields 
+        @ConfigFieldMapping("PropertyX")
+        private String propertyX;
+        @ConfigFieldMapping(value="PropertyY",defaultValue="false")
+        private boolean propertyY;
+        
+        //properties
+        public String getPropertyX()
+        {
+           return propertyX;
+        } 
+        public boolean isPropertyY()
+        {
+           return propertyY;
+        } 
+        @Override
+        public String toString()
+        {
+           return "ConfigChild [propertyX=" + propertyX + ", propertyY=" + propertyY + "]";
+        }  
+     }
+  
+  /***
+    * TEST Used for enumeration field
+    * @author Ahmad
+    *
+    */
+  public enum MyEnum
+  {
+     SAMPLE,
+     SAMPLE2,
+     SAMPLE3;
+  }
+/***
+ * Waits for x milliseconds 
+ * @param millis
+ */
+public static void waitFor(long millis)
+{
+   try
+   { 
+      Thread.sleep(millis);
+   }
+   catch(InterruptedException e)
+   { 
+      e.printStackTrace();
+   }
+}
+
+   
+}
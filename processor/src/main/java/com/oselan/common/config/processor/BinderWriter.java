@@ -0,0 +1,347 @@
+package com.oselan.common.config.processor;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/***
+ * Builds the source of the generated ConfigBinder of a bean class.
+ * Fields are read with the same type rules as the reflection binding of ConfigBean:
+ * List, boolean, int, long, float, double, char, enums, Date (MM/dd/yyyy) and anything else as a String.
+ * Default values are parsed once into constants of the binder.
+ * @author Ahmad Hamid
+ */
+class BinderWriter
+{
+   static final String INVALID_DEFAULT = "Invalid default value";
+   private static final String CONFIGURATION = "org.apache.commons.configuration.HierarchicalConfiguration";
+   private static final String DATE_FORMAT = "MM/dd/yyyy";
+
+   private final ProcessingEnvironment processingEnv;
+   private final TypeElement beanClass;
+   private final String packageName;
+   private final String simpleName;
+   private final StringBuilder constants = new StringBuilder();
+   private final StringBuilder body = new StringBuilder();
+
+   BinderWriter(ProcessingEnvironment processingEnv, TypeElement beanClass)
+   {
+      this.processingEnv = processingEnv;
+      this.beanClass = beanClass;
+      this.packageName = ConfigBinderProcessor.getPackageName(beanClass);
+      String qualifiedName = beanClass.getQualifiedName().toString();
+      String nestedName = packageName.isEmpty() ? qualifiedName : qualifiedName.substring(packageName.length() + 1);
+      this.simpleName = nestedName.replace('.', '_') + ConfigBinderProcessor.BINDER_SUFFIX;
+   }
+
+   String getQualifiedName()
+   {
+      return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+   }
+
+   /***
+    * Field holding a subconfiguration bean
+    * @return why the field is not supported or null
+    */
+   String addSubconfig(VariableElement field, String path, boolean required)
+   {
+      DeclaredType type = (DeclaredType) field.asType();
+      if(!type.getTypeArguments().isEmpty())
+         return "generic field type " + type + " of field " + field.getSimpleName();
+      if(!isAccessible((TypeElement) type.asElement()))
+         return "inaccessible field type " + type + " of field " + field.getSimpleName();
+      String fieldType = typeName(field.asType());
+      String name = field.getSimpleName().toString();
+      body.append("      bean.").append(name).append(" = bindSubconfig(bean, bean.").append(name).append(", ").append(fieldType)
+         .append(".class, ").append(literal(path)).append(", ").append(required).append(");\n");
+      return null;
+   }
+
+   /***
+    * LazyConfig field holding a subconfiguration bean filled on first access
+    * @return why the field is not supported or null
+    */
+   String addLazySubconfig(VariableElement field, String path, boolean required)
+   {
+      DeclaredType type = (DeclaredType) field.asType();
+      if(type.getTypeArguments().size() != 1 || type.getTypeArguments().get(0).getKind() != TypeKind.DECLARED)
+         return "LazyConfig field without bean class " + field.getSimpleName();
+      DeclaredType beanType = (DeclaredType) type.getTypeArguments().get(0);
+      if(!beanType.getTypeArguments().isEmpty() || !isAccessible((TypeElement) beanType.asElement()))
+         return "inaccessible bean class " + beanType + " of field " + field.getSimpleName();
+      String name = field.getSimpleName().toString();
+      body.append("      bean.").append(name).append(" = bindLazySubconfig(bean, bean.").append(name).append(", ").append(typeName(beanType))
+         .append(".class, ").append(literal(path)).append(", ").append(required).append(");\n");
+      return null;
+   }
+
+   /***
+    * Field set by calling a parser method with the string value
+    * @param memoized if the parser is skipped when the value did not change
+    */
+   void addParser(VariableElement field, String path, String defaultValue, boolean required, String parserMethod, boolean memoized)
+   {
+      if(!memoized)
+      {
+         body.append("      bean.").append(parserMethod).append("(").append(readString(path, defaultValue, required)).append(");\n");
+         return;
+      }
+      //parsed only if the value changed since the last load of the bean
+      String name = literal(field.getSimpleName().toString());
+      String value = field.getSimpleName() + "_value";
+      body.append("      java.lang.String ").append(value).append(" = ").append(readString(path, defaultValue, required)).append(";\n");
+      body.append("      if(!isParsed(bean, ").append(name).append(", ").append(value).append("))\n      {\n");
+      body.append("         bean.").append(parserMethod).append("(").append(value).append(");\n");
+      body.append("         setParsed(bean, ").append(name).append(", ").append(value).append(");\n      }\n");
+   }
+
+   /***
+    * Field read and converted from the configuration value
+    * @return why the field is not supported or null
+    */
+   String addValue(VariableElement field, String path, String defaultValue, boolean required)
+   {
+      TypeMirror type = field.asType();
+      String name = field.getSimpleName().toString();
+      //required fields have no default value constant
+      String constant = required ? null : "DEFAULT_" + name;
+      String read;
+      try
+      {
+         if(isSubtype(type, "java.util.List"))
+         {
+            read = "(" + typeName(type) + ") " + (required ? "config.getList(" + literal(path) + ")"
+               : "config.getList(" + literal(path) + ", " + constant + ")");
+            addConstant("java.util.List<?>", constant, defaultValue == null ? "null"
+               : "java.util.Arrays.asList(" + literal(defaultValue) + ".split(\",\"))");
+         }
+         else if(isType(type, TypeKind.BOOLEAN, "java.lang.Boolean"))
+         {
+            read = readNumber("Boolean", "Boolean", path, constant, required);
+            addConstant("java.lang.Boolean", constant, defaultValue == null ? "java.lang.Boolean.FALSE"
+               : "java.lang.Boolean.valueOf(" + literal(defaultValue) + ")");
+         }
+         else if(isType(type, TypeKind.INT, "java.lang.Integer"))
+         {
+            if(defaultValue != null)
+               Integer.valueOf(defaultValue);
+            read = readNumber("Int", "Integer", path, constant, required);
+            addConstant("java.lang.Integer", constant, valueOf("java.lang.Integer", defaultValue));
+         }
+         else if(isType(type, TypeKind.LONG, "java.lang.Long"))
+         {
+            if(defaultValue != null)
+               Long.valueOf(defaultValue);
+            read = readNumber("Long", "Long", path, constant, required);
+            addConstant("java.lang.Long", constant, valueOf("java.lang.Long", defaultValue));
+         }
+         else if(isType(type, TypeKind.FLOAT, "java.lang.Float"))
+         {
+            if(defaultValue != null)
+               Float.valueOf(defaultValue);
+            read = readNumber("Float", "Float", path, constant, required);
+            addConstant("java.lang.Float", constant, valueOf("java.lang.Float", defaultValue));
+         }
+         else if(isType(type, TypeKind.DOUBLE, "java.lang.Double"))
+         {
+            if(defaultValue != null)
+               Double.valueOf(defaultValue);
+            read = readNumber("Double", "Double", path, constant, required);
+            addConstant("java.lang.Double", constant, valueOf("java.lang.Double", defaultValue));
+         }
+         else if(isType(type, TypeKind.CHAR, "java.lang.Character"))
+         {
+            read = "readCharacter(config, " + literal(path) + ", " + constant + ", " + required + ")";
+            addConstant("java.lang.Character", constant, defaultValue == null ? "null"
+               : "java.lang.Character.valueOf(" + literal(defaultValue) + ".charAt(0))");
+         }
+         else if(type.getKind() == TypeKind.DECLARED && ((DeclaredType) type).asElement().getKind() == ElementKind.ENUM)
+         {
+            TypeElement enumType = (TypeElement) ((DeclaredType) type).asElement();
+            if(!isAccessible(enumType))
+               return "inaccessible enum " + enumType.getQualifiedName();
+            if(defaultValue != null && !hasEnumConstant(enumType, defaultValue))
+               return INVALID_DEFAULT + " " + defaultValue + " for field " + name;
+            String enumName = typeName(type);
+            read = "readEnum(config, " + literal(path) + ", " + enumName + ".class, " + constant + ", " + required + ")";
+            addConstant(enumName, constant, defaultValue == null ? "null" : enumName + "." + defaultValue);
+         }
+         else if(isType(type, TypeKind.NONE, "java.util.Date"))
+         {
+            if(defaultValue != null)
+               new SimpleDateFormat(DATE_FORMAT).parse(defaultValue);
+            read = "readDate(config, " + literal(path) + ", " + constant + ", " + required + ")";
+            addConstant("java.util.Date", constant, "parseDefaultDate(" + literal(defaultValue) + ")");
+         }
+         else if(isAssignable(processingEnv.getElementUtils().getTypeElement("java.lang.String").asType(), type))
+         {
+            read = readString(path, defaultValue, required);
+         }
+         else
+            return "unsupported field type " + type + " of field " + name;
+      }
+      catch(NumberFormatException e)
+      {
+         return INVALID_DEFAULT + " " + defaultValue + " for field " + name;
+      }
+      catch(ParseException e)
+      {
+         return INVALID_DEFAULT + " " + defaultValue + " for field " + name;
+      }
+      body.append("      bean.").append(name).append(" = ").append(read).append(";\n");
+      return null;
+   }
+
+   /***
+    * Returns the complete source of the binder class
+    * @return
+    */
+   String toSource()
+   {
+      String beanName = beanClass.getQualifiedName().toString();
+      StringBuilder source = new StringBuilder();
+      if(!packageName.isEmpty())
+         source.append("package ").append(packageName).append(";\n\n");
+      source.append("/***\n");
+      source.append(" * Config binder of {@link ").append(beanName).append("} generated by ")
+         .append(ConfigBinderProcessor.class.getName()).append(", do not edit.\n");
+      source.append(" */\n");
+      source.append("public final class ").append(simpleName).append(" extends ").append(ConfigBinderProcessor.CONFIG_BINDER)
+         .append("<").append(beanName).append(">\n{\n");
+      source.append(constants);
+      if(constants.length() > 0)
+         source.append("\n");
+      source.append("   @Override\n");
+      source.append("   @SuppressWarnings({ \"unchecked\", \"rawtypes\" })\n");
+      source.append("   public void bind(").append(beanName).append(" bean)\n   {\n");
+      source.append("      ").append(CONFIGURATION).append(" config = bean.getConfig();\n");
+      source.append(body);
+      source.append("   }\n}\n");
+      return source.toString();
+   }
+
+   private void addConstant(String type, String name, String value)
+   {
+      if(name == null)
+         return;
+      constants.append("   private static final ").append(type).append(" ").append(name).append(" = ").append(value).append(";\n");
+   }
+
+   private static String readNumber(String requiredGetter, String defaultGetter, String path, String constant, boolean required)
+   {
+      return required ? "config.get" + requiredGetter + "(" + literal(path) + ")"
+         : "config.get" + defaultGetter + "(" + literal(path) + ", " + constant + ")";
+   }
+
+   private static String readString(String path, String defaultValue, boolean required)
+   {
+      return required ? "config.getString(" + literal(path) + ")"
+         : "config.getString(" + literal(path) + ", " + (defaultValue == null ? "(java.lang.String) null" : literal(defaultValue)) + ")";
+   }
+
+   private static String valueOf(String type, String defaultValue)
+   {
+      return defaultValue == null ? "null" : type + ".valueOf(" + literal(defaultValue) + ")";
+   }
+
+   private boolean isType(TypeMirror type, TypeKind primitive, String boxedName)
+   {
+      if(type.getKind() == primitive)
+         return true;
+      return type.getKind() == TypeKind.DECLARED
+         && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals(boxedName);
+   }
+
+   private boolean isSubtype(TypeMirror type, String className)
+   {
+      Types types = processingEnv.getTypeUtils();
+      TypeElement element = processingEnv.getElementUtils().getTypeElement(className);
+      return type.getKind() == TypeKind.DECLARED && types.isSubtype(types.erasure(type), types.erasure(element.asType()));
+   }
+
+   private boolean isAssignable(TypeMirror from, TypeMirror to)
+   {
+      return processingEnv.getTypeUtils().isAssignable(from, to);
+   }
+
+   private boolean hasEnumConstant(TypeElement enumType, String name)
+   {
+      for(Element element : enumType.getEnclosedElements())
+      {
+         if(element.getKind() == ElementKind.ENUM_CONSTANT && element.getSimpleName().contentEquals(name))
+            return true;
+      }
+      return false;
+   }
+
+   /***
+    * Checks the type can be referenced from the package of the binder
+    */
+   private boolean isAccessible(TypeElement type)
+   {
+      Elements elements = processingEnv.getElementUtils();
+      boolean samePackage = elements.getPackageOf(type).getQualifiedName().contentEquals(packageName);
+      Element element = type;
+      while(element instanceof TypeElement)
+      {
+         if(element.getModifiers().contains(Modifier.PRIVATE) || (!samePackage && !element.getModifiers().contains(Modifier.PUBLIC)))
+            return false;
+         element = element.getEnclosingElement();
+      }
+      return true;
+   }
+
+   private String typeName(TypeMirror type)
+   {
+      return processingEnv.getTypeUtils().erasure(type).toString();
+   }
+
+   /***
+    * Returns the java string literal of a value or null
+    */
+   static String literal(String value)
+   {
+      if(value == null)
+         return "null";
+      StringBuilder literal = new StringBuilder("\"");
+      for(int i = 0; i < value.length(); i++)
+      {
+         char c = value.charAt(i);
+         switch(c)
+         {
+            case '"':
+               literal.append("\\\"");
+               break;
+            case '\\':
+               literal.append("\\\\");
+               break;
+            case '\n':
+               literal.append("\\n");
+               break;
+            case '\r':
+               literal.append("\\r");
+               break;
+            case '\t':
+               literal.append("\\t");
+               break;
+            default:
+               if(c < 0x20 || c > 0x7e)
+                  literal.append(String.format("\\u%04x", (int) c));
+               else
+                  literal.append(c);
+         }
+      }
+      return literal.append('"').toString();
+   }
+}
@@ -0,0 +1,270 @@
+package com.oselan.common.config.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/***
+ * Annotation processor generating a ConfigBinder for every ConfigBean subclass using @ConfigBeanMapping or @ConfigFieldMapping.
+ * The generated binder reads the field values from the bean configuration and assigns the fields directly
+ * without any reflection, ConfigBean uses it instead of the reflection binding when it is on the classpath.
+ * Binders can only be generated for classes whose mapped fields are accessible from the package of the class,
+ * other classes are reported with a note and keep using the reflection binding.
+ * @author Ahmad Hamid
+ */
+@SupportedAnnotationTypes({ ConfigBinderProcessor.BEAN_MAPPING, ConfigBinderProcessor.FIELD_MAPPING })
+public class ConfigBinderProcessor extends AbstractProcessor
+{
+   static final String CONFIG_PACKAGE = "com.oselan.common.config";
+   static final String BEAN_MAPPING = CONFIG_PACKAGE + ".ConfigBeanMapping";
+   static final String FIELD_MAPPING = CONFIG_PACKAGE + ".ConfigFieldMapping";
+   static final String CONFIG = CONFIG_PACKAGE + ".IConfig";
+   static final String CONFIG_BEAN = CONFIG_PACKAGE + ".ConfigBean";
+   static final String CONFIG_BINDER = CONFIG_PACKAGE + ".ConfigBinder";
+   static final String LAZY_CONFIG = CONFIG_PACKAGE + ".LazyConfig";
+   static final String BINDER_SUFFIX = "_ConfigBinder";
+   //same values as ConfigFieldMapping constants, the processor does not depend on the config classes
+   static final String NULL_VALUE = "null";
+   static final String UNDEFINED_VALUE = "$U_N_D_E_F_I_N_E_D";
+
+   @Override
+   public SourceVersion getSupportedSourceVersion()
+   {
+      return SourceVersion.latestSupported();
+   }
+
+   @Override
+   public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv)
+   {
+      Set<TypeElement> beanClasses = new LinkedHashSet<TypeElement>();
+      for(TypeElement annotation : annotations)
+      {
+         for(Element element : roundEnv.getElementsAnnotatedWith(annotation))
+         {
+            if(element.getKind() == ElementKind.CLASS)
+               beanClasses.add((TypeElement) element);
+            else if(element.getKind() == ElementKind.FIELD && element.getEnclosingElement().getKind() == ElementKind.CLASS)
+               beanClasses.add((TypeElement) element.getEnclosingElement());
+         }
+      }
+      for(TypeElement beanClass : beanClasses)
+      {
+         if(isConfigBean(beanClass.asType()))
+            generateBinder(beanClass);
+      }
+      return false;
+   }
+
+   /***
+    * Writes the binder source of a bean class if all its mapped fields can be bound directly
+    * @param beanClass
+    */
+   private void generateBinder(TypeElement beanClass)
+   {
+      String problem = getUnsupportedReason(beanClass);
+      BinderWriter writer = new BinderWriter(processingEnv, beanClass);
+      if(problem == null)
+      {
+         for(VariableElement field : ElementFilter.fieldsIn(beanClass.getEnclosedElements()))
+         {
+            if(field.getModifiers().contains(Modifier.STATIC))
+               continue;
+            problem = addField(writer, beanClass, field);
+            if(problem != null)
+               break;
+         }
+      }
+      if(problem != null)
+      {
+         processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+            "No config binder generated, reflection binding is used: " + problem, beanClass);
+         return;
+      }
+      try
+      {
+         Writer source = processingEnv.getFiler().createSourceFile(writer.getQualifiedName(), beanClass).openWriter();
+         try
+         {
+            source.write(writer.toSource());
+         }
+         finally
+         {
+            source.close();
+         }
+      }
+      catch(IOException e)
+      {
+         processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write config binder: " + e.getMessage(), beanClass);
+      }
+   }
+
+   /***
+    * Returns why the class itself can not be bound from generated code or null
+    * @param beanClass
+    * @return
+    */
+   private String getUnsupportedReason(TypeElement beanClass)
+   {
+      if(!beanClass.getTypeParameters().isEmpty())
+         return "generic class";
+      Element element = beanClass;
+      while(element.getKind() != ElementKind.PACKAGE)
+      {
+         if(element instanceof TypeElement)
+         {
+            TypeElement type = (TypeElement) element;
+            if(type.getNestingKind() != NestingKind.TOP_LEVEL && type.getNestingKind() != NestingKind.MEMBER)
+               return "local or anonymous class";
+            if(type.getModifiers().contains(Modifier.PRIVATE))
+               return "private class " + type.getSimpleName();
+         }
+         element = element.getEnclosingElement();
+      }
+      return null;
+   }
+
+   /***
+    * Adds the binding of a field to the writer.
+    * @return why the field can not be bound from generated code or null
+    */
+   private String addField(BinderWriter writer, TypeElement beanClass, VariableElement field)
+   {
+      AnnotationMirror mapping = getAnnotation(field, FIELD_MAPPING);
+      boolean lazy = isLazyConfig(field.asType());
+      //like the reflection binding every IConfig field is a subconfiguration, annotated or not
+      boolean subconfig = lazy || isConfig(field.asType());
+      if(mapping == null && !subconfig)
+         return null;
+      if(field.getModifiers().contains(Modifier.PRIVATE))
+         return "private field " + field.getSimpleName();
+      if(field.getModifiers().contains(Modifier.FINAL))
+         return "final field " + field.getSimpleName();
+      String path = mapping == null ? null : getString(mapping, "value", null);
+      String defaultValue = mapping == null ? UNDEFINED_VALUE : getString(mapping, "defaultValue", UNDEFINED_VALUE);
+      boolean required = UNDEFINED_VALUE.equals(defaultValue);
+      if(NULL_VALUE.equals(defaultValue) || required)
+         defaultValue = null;
+      if(lazy)
+         return writer.addLazySubconfig(field, path, required);
+      if(subconfig)
+         return writer.addSubconfig(field, path, required);
+      String converter = getString(mapping, "converter", null);
+      if(converter != null)
+         return "field " + field.getSimpleName() + " uses converter " + converter;
+      String parserMethod = getString(mapping, "parserMethod", UNDEFINED_VALUE).trim();
+      if(!UNDEFINED_VALUE.equals(parserMethod) && !parserMethod.isEmpty())
+      {
+         if(!hasParserMethod(beanClass, parserMethod))
+         {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+               "Parser method " + parserMethod + " not found on " + beanClass.getQualifiedName(), field);
+            return "missing parser method " + parserMethod;
+         }
+         writer.addParser(field, path, defaultValue, required, parserMethod, Boolean.parseBoolean(getString(mapping, "memoizeParser", "false")));
+         return null;
+      }
+      String problem = writer.addValue(field, path, defaultValue, required);
+      if(problem != null && problem.startsWith(BinderWriter.INVALID_DEFAULT))
+      {
+         processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, problem, field);
+      }
+      return problem;
+   }
+
+   /***
+    * Checks for a public method void name(String) on the class or its super classes as required by ConfigBean
+    */
+   private boolean hasParserMethod(TypeElement beanClass, String name)
+   {
+      Elements elements = processingEnv.getElementUtils();
+      Types types = processingEnv.getTypeUtils();
+      TypeMirror stringType = elements.getTypeElement(String.class.getName()).asType();
+      for(ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(beanClass)))
+      {
+         if(method.getSimpleName().contentEquals(name) && method.getModifiers().contains(Modifier.PUBLIC)
+            && !method.getModifiers().contains(Modifier.STATIC) && method.getParameters().size() == 1
+            && types.isSameType(method.getParameters().get(0).asType(), stringType))
+            return true;
+      }
+      return false;
+   }
+
+   boolean isConfigBean(TypeMirror type)
+   {
+      return isSubtype(type, CONFIG_BEAN);
+   }
+
+   boolean isConfig(TypeMirror type)
+   {
+      return isSubtype(type, CONFIG);
+   }
+
+   private boolean isSubtype(TypeMirror type, String typeName)
+   {
+      if(type.getKind() != TypeKind.DECLARED)
+         return false;
+      TypeElement superType = processingEnv.getElementUtils().getTypeElement(typeName);
+      if(superType == null)
+         return false;
+      Types types = processingEnv.getTypeUtils();
+      return types.isSubtype(types.erasure(type), types.erasure(superType.asType()));
+   }
+
+   boolean isLazyConfig(TypeMirror type)
+   {
+      return type.getKind() == TypeKind.DECLARED
+         && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals(LAZY_CONFIG);
+   }
+
+   static AnnotationMirror getAnnotation(Element element, String annotationName)
+   {
+      for(AnnotationMirror annotation : element.getAnnotationMirrors())
+      {
+         if(((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName))
+            return annotation;
+      }
+      return null;
+   }
+
+   static String getString(AnnotationMirror annotation, String name, String defaultValue)
+   {
+      for(Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation.getElementValues().entrySet())
+      {
+         if(entry.getKey().getSimpleName().contentEquals(name))
+            return String.valueOf(entry.getValue().getValue());
+      }
+      return defaultValue;
+   }
+
+   static String getPackageName(TypeElement type)
+   {
+      Element element = type;
+      while(element.getKind() != ElementKind.PACKAGE)
+         element = element.getEnclosingElement();
+      return ((PackageElement) element).getQualifiedName().toString();
+   }
+}